@@ -0,0 +1,85 @@
+package projects.analytics;
+
+import java.math.BigDecimal;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.entity.Project;
+
+/**
+ * A difficulty range plus an estimated hours threshold, summing actual hours
+ * over the matches, on {@value #PROJECTS} projects: once over a
+ * {@link ProjectColumns} snapshot and once over the {@code LinkedList<Project>}
+ * that fetchAllProjects returns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class ProjectColumnsBenchmark {
+	private static final int PROJECTS = 2_000_000;
+	private static final BigDecimal MIN_ESTIMATE = new BigDecimal("20.00");
+
+	private List<Project> projects;
+	private ProjectColumns columns;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		projects = new LinkedList<>();
+
+		for (int projectId = 1; projectId <= PROJECTS; projectId++) {
+			Project project = new Project();
+
+			project.setProjectId(projectId);
+			project.setProjectName("Project " + random.nextInt(100_000));
+			project.setDifficulty(1 + random.nextInt(5));
+			project.setEstimatedHours(BigDecimal.valueOf(random.nextInt(10_000), 2));
+			project.setActualHours(random.nextInt(4) == 0 ? null : BigDecimal.valueOf(random.nextInt(10_000), 2));
+			projects.add(project);
+		}
+
+		columns = ProjectColumns.from(projects.stream());
+	}
+
+	@Benchmark
+	public long columnar() {
+		RowSet rows = columns.difficultyBetween(2, 4).and(columns.estimatedCentsBetween(2_000, Long.MAX_VALUE));
+		return columns.sumActualCents(rows);
+	}
+
+	@Benchmark
+	public BigDecimal linkedList() {
+		BigDecimal sum = BigDecimal.ZERO;
+
+		for (Project project : projects) {
+			Integer difficulty = project.getDifficulty();
+
+			if (Objects.nonNull(difficulty) && difficulty >= 2 && difficulty <= 4
+					&& Objects.nonNull(project.getEstimatedHours())
+					&& project.getEstimatedHours().compareTo(MIN_ESTIMATE) >= 0
+					&& Objects.nonNull(project.getActualHours())) {
+				sum = sum.add(project.getActualHours());
+			}
+		}
+
+		return sum;
+	}
+}
@@ -0,0 +1,25 @@
+package projects.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the JMH benchmarks. This is the same as {@code org.openjdk.jmh.Main}
+ * except that results are written as JSON to {@code jmh-result.json} unless
+ * {@code -rf} or {@code -rff} is given, so runs can be compared.
+ */
+public class BenchmarkMain {
+	public static void main(String[] args) throws Exception {
+		List<String> arguments = new ArrayList<>(List.of(args));
+
+		if (!arguments.contains("-rf")) {
+			arguments.addAll(List.of("-rf", "json"));
+		}
+
+		if (!arguments.contains("-rff")) {
+			arguments.addAll(List.of("-rff", "jmh-result.json"));
+		}
+
+		org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+	}
+}
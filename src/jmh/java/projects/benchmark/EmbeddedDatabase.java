@@ -0,0 +1,142 @@
+package projects.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import projects.dao.DbConnection;
+import projects.dao.ProjectDao;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.service.ProjectService;
+
+/**
+ * Points the application at an in-memory H2 database in MySQL mode and fills
+ * it with generated projects, so the DAO benchmarks run without a MySQL server.
+ * A second in-memory database can stand in for a read replica, with
+ * {@link #copyToReplica()} playing the part of replication.
+ */
+public class EmbeddedDatabase {
+	public static final String URL = "jdbc:h2:mem:projects;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+	public static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	/**
+	 * Sets the connection properties. This must run before the first connection is
+	 * requested, since the pool reads its configuration once.
+	 */
+	public static void configure() {
+		configure("projects.db.", URL);
+	}
+
+	public static void configure(String prefix, String url) {
+		System.setProperty(prefix + "url", url);
+		System.setProperty(prefix + "user", "sa");
+		System.setProperty(prefix + "password", "");
+	}
+
+	/**
+	 * Configures {@link #REPLICA_URL} as the read replica. Like
+	 * {@link #configure()}, this must run before the first connection is
+	 * requested.
+	 * 
+	 * @param readYourWritesMillis how long a caller's reads stay on the primary
+	 *                             after it writes
+	 */
+	public static void configureReplica(long readYourWritesMillis) {
+		configure(DbConnection.REPLICA_PREFIX, REPLICA_URL);
+		System.setProperty(DbConnection.REPLICA_PREFIX + "readYourWritesMillis", String.valueOf(readYourWritesMillis));
+	}
+
+	/**
+	 * Replaces the replica's contents with a copy of the primary database, as
+	 * replication would, outside the connection pools. Until the next copy the
+	 * replica lags behind every later write to the primary.
+	 */
+	public static void copyToReplica() {
+		List<String> script = new ArrayList<>();
+
+		try (Connection primary = DriverManager.getConnection(URL, "sa", "");
+				Statement stmt = primary.createStatement();
+				ResultSet rs = stmt.executeQuery("SCRIPT")) {
+			while (rs.next()) {
+				script.add(rs.getString(1));
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException("Unable to script the primary database", e);
+		}
+
+		try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+				Statement stmt = replica.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+
+			for (String sql : script) {
+				stmt.execute(sql);
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException("Unable to load the replica database", e);
+		}
+	}
+
+	/**
+	 * Creates the tables and inserts the given number of projects, each with the
+	 * given number of materials and steps and two categories.
+	 */
+	public static void createAndSeed(int projectCount, int childCount) {
+		new ProjectService().createAndPopulateTables();
+
+		ProjectDao projectDao = new ProjectDao();
+		List<Project> batch = new ArrayList<>();
+		Map<String, Integer> categoryIds = new HashMap<>();
+
+		for (int index = 0; index < projectCount; index++) {
+			batch.add(newProject(index, childCount));
+
+			if (batch.size() == 1000 || index == projectCount - 1) {
+				projectDao.importProjectGraphs(batch, categoryIds, "benchmark-seed", index + 1);
+				batch = new ArrayList<>();
+			}
+		}
+
+		projectDao.deleteImportCheckpoint("benchmark-seed");
+	}
+
+	public static Project newProject(int index, int childCount) {
+		Project project = new Project();
+
+		project.setProjectName("Project " + index);
+		project.setEstimatedHours(new BigDecimal("12.50"));
+		project.setActualHours(new BigDecimal("14.25"));
+		project.setDifficulty(index % 5 + 1);
+		project.setNotes("Notes for project " + index + ". ".repeat(20));
+
+		for (int child = 0; child < childCount; child++) {
+			Material material = new Material();
+			material.setMaterialName("Material " + child);
+			material.setNumRequired(child + 1);
+			material.setCost(new BigDecimal("3.75"));
+			project.getMaterials().add(material);
+
+			Step step = new Step();
+			step.setStepText("Step " + child + " of project " + index);
+			step.setStepOrder(child + 1);
+			project.getSteps().add(step);
+		}
+
+		for (int category = 0; category < 2; category++) {
+			Category projectCategory = new Category();
+			projectCategory.setCategoryName("Category " + (index + category) % 10);
+			project.getCategories().add(projectCategory);
+		}
+
+		return project;
+	}
+}
@@ -0,0 +1,102 @@
+package projects.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.benchmark.EmbeddedDatabase;
+import projects.entity.Project;
+
+/**
+ * End-to-end {@link ProjectDao} benchmarks against an in-memory H2 database in
+ * MySQL mode, seeded with {@value #PROJECTS} projects of {@value #CHILDREN}
+ * materials and steps each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectDaoBenchmark {
+	private static final int PROJECTS = 2_000;
+	private static final int CHILDREN = 5;
+	private static final int INSERTS = 100;
+
+	private final ProjectDao projectDao = new ProjectDao();
+	private List<Integer> someIds;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		EmbeddedDatabase.configure();
+		EmbeddedDatabase.createAndSeed(PROJECTS, CHILDREN);
+
+		someIds = new ArrayList<>();
+
+		for (int id = 1; id <= PROJECTS; id += PROJECTS / 100) {
+			someIds.add(id);
+		}
+	}
+
+	@Benchmark
+	public Optional<Project> fetchProjectById() {
+		return projectDao.fetchProjectById(ThreadLocalRandom.current().nextInt(PROJECTS) + 1);
+	}
+
+	@Benchmark
+	public List<Project> fetchAllProjects() {
+		return projectDao.fetchAllProjects();
+	}
+
+	@Benchmark
+	public List<Project> fetchProjectsByIds100() {
+		return projectDao.fetchProjectsByIds(someIds);
+	}
+
+	@Benchmark
+	public ProjectPage fetchProjectPage() {
+		return projectDao.fetchProjectPage(null, 50);
+	}
+
+	/**
+	 * Inserts {@value #INSERTS} projects one transaction at a time. Compare the
+	 * per-project time with {@link #insertProjectsBatched()}.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(INSERTS)
+	public void insertProjectOneAtATime() {
+		for (int index = 0; index < INSERTS; index++) {
+			projectDao.insertProject(EmbeddedDatabase.newProject(index, 0));
+		}
+	}
+
+	/**
+	 * Inserts {@value #INSERTS} projects in one batched transaction.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(INSERTS)
+	public List<Project> insertProjectsBatched() {
+		List<Project> projects = new ArrayList<>(INSERTS);
+
+		for (int index = 0; index < INSERTS; index++) {
+			projects.add(EmbeddedDatabase.newProject(index, 0));
+		}
+
+		return projectDao.insertProjects(projects);
+	}
+}
@@ -0,0 +1,134 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import projects.benchmark.EmbeddedDatabase;
+import projects.entity.Project;
+import projects.service.AsyncProjectService;
+import projects.service.ProjectService;
+
+/**
+ * Checks read routing against two embedded databases, a primary and a replica
+ * that only changes when {@link EmbeddedDatabase#copyToReplica()} runs. A read
+ * that sees a change made on the primary after the copy went to the primary.
+ * Run it with
+ * {@code java -cp target/benchmarks.jar projects.dao.ReplicaRoutingCheck}; it
+ * throws on the first read or write that goes to the wrong database.
+ */
+public class ReplicaRoutingCheck {
+	private static final long READ_YOUR_WRITES_MILLIS = 500;
+	private static final Integer PROJECT_ID = 1;
+	private static final String REPLICATED_NAME = "Project 0";
+
+	private static final ProjectDao projectDao = new ProjectDao();
+
+	public static void main(String[] args) throws Exception {
+		EmbeddedDatabase.configure();
+		EmbeddedDatabase.configureReplica(READ_YOUR_WRITES_MILLIS);
+		EmbeddedDatabase.createAndSeed(5, 2);
+		EmbeddedDatabase.copyToReplica();
+
+		try {
+			check();
+		} finally {
+			DbConnection.shutdown();
+		}
+
+		System.out.println("Replica routing: all checks passed.");
+	}
+
+	private static void check() throws Exception {
+		if (!DbConnection.isReplicaConfigured()) {
+			throw new IllegalStateException("The replica is not configured.");
+		}
+
+		/* Seeding wrote from this thread, so let its window close first. */
+		Thread.sleep(READ_YOUR_WRITES_MILLIS + 100);
+
+		/* Change the primary behind the pools' back, so the replica lags without opening a window. */
+		renameOnPrimary("Primary only");
+
+		expect("a read", REPLICATED_NAME, readName());
+		expect("a read inside readFromPrimary", "Primary only", DbConnection.readFromPrimary(ReplicaRoutingCheck::readName));
+		expect("a read after readFromPrimary", REPLICATED_NAME, readName());
+
+		/* A write goes to the primary and keeps this thread's reads there for the window. */
+		Project project = DbConnection.readFromPrimary(() -> projectDao.fetchProjectById(PROJECT_ID).orElseThrow());
+		project.setProjectName("Written");
+
+		if (!projectDao.modifyProjectDetails(project)) {
+			throw new IllegalStateException("The update did not find project " + PROJECT_ID + ".");
+		}
+
+		expect("the primary after a write", "Written", nameIn(EmbeddedDatabase.URL));
+		expect("the replica after a write", REPLICATED_NAME, nameIn(EmbeddedDatabase.REPLICA_URL));
+		expect("a read right after a write", "Written", readName());
+		expect("another thread's read right after a write", REPLICATED_NAME, onOtherThread(ReplicaRoutingCheck::readName));
+
+		Thread.sleep(READ_YOUR_WRITES_MILLIS + 100);
+		expect("a read after the window", REPLICATED_NAME, readName());
+
+		/* Calls through the async facade run on other threads but share the caller's window. */
+		try (AsyncProjectService asyncService = new AsyncProjectService(new ProjectService(), 4)) {
+			Project asyncProject = DbConnection.readFromPrimary(() -> projectDao.fetchProjectById(PROJECT_ID).orElseThrow());
+			asyncProject.setProjectName("Written async");
+
+			asyncService.modifyProjectDetails(asyncProject).join();
+
+			expect("an async read right after an async write", "Written async",
+					asyncService.fetchProjectById(PROJECT_ID).join().getProjectName());
+			expect("a read right after an async write", "Written async", readName());
+			expect("another thread's read right after an async write", REPLICATED_NAME,
+					onOtherThread(ReplicaRoutingCheck::readName));
+			expect("an async read from another thread", REPLICATED_NAME, onOtherThread(
+					() -> asyncService.fetchProjectById(PROJECT_ID).join().getProjectName()));
+
+			Thread.sleep(READ_YOUR_WRITES_MILLIS + 100);
+			expect("an async read after the window", REPLICATED_NAME,
+					asyncService.fetchProjectById(PROJECT_ID).join().getProjectName());
+		}
+	}
+
+	private static String readName() {
+		return projectDao.fetchProjectById(PROJECT_ID).orElseThrow().getProjectName();
+	}
+
+	/* Runs the read on a new thread, which starts with its own read session. */
+	private static String onOtherThread(Supplier<String> read) {
+		return CompletableFuture.supplyAsync(read, command -> new Thread(command).start()).join();
+	}
+
+	private static void renameOnPrimary(String projectName) throws SQLException {
+		try (Connection conn = DriverManager.getConnection(EmbeddedDatabase.URL, "sa", "");
+				PreparedStatement stmt = conn.prepareStatement("UPDATE project SET project_name = ? WHERE project_id = ?")) {
+			stmt.setString(1, projectName);
+			stmt.setInt(2, PROJECT_ID);
+			stmt.executeUpdate();
+		}
+	}
+
+	private static String nameIn(String url) throws SQLException {
+		try (Connection conn = DriverManager.getConnection(url, "sa", "");
+				PreparedStatement stmt = conn.prepareStatement("SELECT project_name FROM project WHERE project_id = ?")) {
+			stmt.setInt(1, PROJECT_ID);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				return rs.next() ? rs.getString(1) : null;
+			}
+		}
+	}
+
+	private static void expect(String what, String expected, String actual) {
+		if (!expected.equals(actual)) {
+			throw new IllegalStateException(what + " returned \"" + actual + "\", expected \"" + expected + "\"");
+		}
+
+		System.out.println("OK: " + what + " returned \"" + actual + "\"");
+	}
+}
@@ -0,0 +1,128 @@
+package projects.dao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks how {@link SqlScriptReader} splits scripts: semicolons and comment
+ * markers inside quoted text, escapes and doubled quotes, and which comments
+ * are dropped. Run it with
+ * {@code java -cp target/benchmarks.jar projects.dao.SqlScriptReaderCheck};
+ * it throws on the first statement list that differs from what MySQL would
+ * run.
+ */
+public class SqlScriptReaderCheck {
+	private static int checks;
+
+	public static void main(String[] args) {
+		/* Statement boundaries and whitespace. */
+		check("SELECT 1; SELECT 2;", "SELECT 1", "SELECT 2");
+		check("SELECT 1", "SELECT 1");
+		check(";;  ;\n SELECT\n\t 1 ;  ;", "SELECT 1");
+		check("", new String[0]);
+
+		/* Semicolons inside quoted text. */
+		check("INSERT INTO t VALUES ('a;b'); SELECT 2;", "INSERT INTO t VALUES ('a;b')", "SELECT 2");
+		check("SELECT \"a;b\";", "SELECT \"a;b\"");
+		check("SELECT `a;b` FROM t;", "SELECT `a;b` FROM t");
+
+		/* Comment markers inside quoted text are kept as text. */
+		check("SELECT '-- x', '# y', '/* z */';", "SELECT '-- x', '# y', '/* z */'");
+		check("SELECT \"-- x\", \"# y\", \"/* z */\";", "SELECT \"-- x\", \"# y\", \"/* z */\"");
+		check("SELECT `-- x`, `# y`, `/* z */` FROM t;", "SELECT `-- x`, `# y`, `/* z */` FROM t");
+
+		/* Whitespace inside quoted text is not collapsed. */
+		check("SELECT 'a \n\t  b';", "SELECT 'a \n\t  b'");
+
+		/* Backslash escapes in strings, but not in identifiers. */
+		check("SELECT 'it\\'s; fine';", "SELECT 'it\\'s; fine'");
+		check("SELECT \"say \\\"hi\\\"; now\";", "SELECT \"say \\\"hi\\\"; now\"");
+		check("SELECT 'ends in \\\\'; SELECT 2;", "SELECT 'ends in \\\\'", "SELECT 2");
+		check("SELECT `a\\`; SELECT 2;", "SELECT `a\\`", "SELECT 2");
+
+		/* Doubled quotes. */
+		check("SELECT 'it''s; fine';", "SELECT 'it''s; fine'");
+		check("SELECT \"a\"\"b;c\";", "SELECT \"a\"\"b;c\"");
+		check("SELECT `a``b;c` FROM t;", "SELECT `a``b;c` FROM t");
+		check("SELECT '';", "SELECT ''");
+
+		/* Comments are dropped, and their semicolons do not end statements. */
+		check("SELECT 1; -- one; two\nSELECT 2;", "SELECT 1", "SELECT 2");
+		check("SELECT 1 # one; two\n, 2;", "SELECT 1 , 2");
+		check("SELECT /* a; b */ 1;", "SELECT 1");
+		check("SELECT 1 /* a\n; b\n*/ + 2;", "SELECT 1 + 2");
+		check("SELECT 1; /* unterminated; comment", "SELECT 1");
+		check("SELECT 4/2;", "SELECT 4/2");
+
+		/* Executable comments and optimizer hints are statement text, not comments. */
+		check("/*!40014 SET FOREIGN_KEY_CHECKS=0 */;\nINSERT INTO t VALUES (1);", "/*!40014 SET FOREIGN_KEY_CHECKS=0 */",
+				"INSERT INTO t VALUES (1)");
+		check("/*!40101 SET NAMES utf8mb4 */;", "/*!40101 SET NAMES utf8mb4 */");
+		check("/*!40014 SET @OLD_UNIQUE_CHECKS=@@UNIQUE_CHECKS, UNIQUE_CHECKS=0 */;",
+				"/*!40014 SET @OLD_UNIQUE_CHECKS=@@UNIQUE_CHECKS, UNIQUE_CHECKS=0 */");
+		check("SELECT /*+ MAX_EXECUTION_TIME(1000) */ 1;", "SELECT /*+ MAX_EXECUTION_TIME(1000) */ 1");
+		check("SELECT /*! STRAIGHT_JOIN */ 1 /* plain */;", "SELECT /*! STRAIGHT_JOIN */ 1");
+		check("/*!40014 SET FOREIGN_KEY_CHECKS=0", "/*!40014 SET FOREIGN_KEY_CHECKS=0");
+
+		/* "--" only starts a comment when whitespace or the end of input follows. */
+		check("SELECT 5--1;", "SELECT 5--1");
+		check("SELECT 5 --1;", "SELECT 5 --1");
+		check("SELECT 5 -- 1;\n;", "SELECT 5");
+		check("SELECT 5 --\tx\n;", "SELECT 5");
+		check("SELECT 5 --\n- 1;", "SELECT 5 - 1");
+		check("SELECT 5 --", "SELECT 5");
+		check("SELECT 5 - -1;", "SELECT 5 - -1");
+		check("SELECT 5---1;", "SELECT 5---1");
+
+		/* Statements larger than the read buffer are not cut. */
+		String longText = "x".repeat(200_000);
+		check("SELECT '" + longText + "'; SELECT 2;", "SELECT '" + longText + "'", "SELECT 2");
+
+		System.out.println("SqlScriptReader: " + checks + " checks passed.");
+	}
+
+	private static void check(String script, String... expected) {
+		List<String> actual = new ArrayList<>();
+
+		try (SqlScriptReader reader = new SqlScriptReader(new StringReader(script))) {
+			reader.forEachRemaining(actual::add);
+		}
+
+		if (!actual.equals(List.of(expected))) {
+			throw new IllegalStateException(
+					"Script " + quote(script) + " split into " + actual + ", expected " + List.of(expected));
+		}
+
+		checkOneCharAtATime(script, actual);
+		checks++;
+	}
+
+	/* The same script read through a reader that returns one character per call. */
+	private static void checkOneCharAtATime(String script, List<String> expected) {
+		Reader trickle = new StringReader(script) {
+			@Override
+			public int read(char[] buffer, int offset, int length) throws IOException {
+				return super.read(buffer, offset, Math.min(length, 1));
+			}
+		};
+
+		List<String> actual = new ArrayList<>();
+
+		try (SqlScriptReader reader = new SqlScriptReader(trickle)) {
+			reader.forEachRemaining(actual::add);
+		}
+
+		if (!actual.equals(expected)) {
+			throw new IllegalStateException("Script " + quote(script) + " read one character at a time split into "
+					+ actual + ", expected " + expected);
+		}
+	}
+
+	private static String quote(String script) {
+		String shown = script.length() > 80 ? script.substring(0, 80) + "..." : script;
+		return "[" + shown.replace("\n", "\\n").replace("\t", "\\t") + "]";
+	}
+}
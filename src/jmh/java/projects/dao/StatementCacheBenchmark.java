@@ -0,0 +1,63 @@
+package projects.dao;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.benchmark.EmbeddedDatabase;
+import projects.entity.Project;
+
+/**
+ * Compares the DAO's hottest statements with the per-connection statement
+ * cache off ({@code statementCacheSize=0}) and on. Each parameter value runs in
+ * its own fork, since the pool reads its configuration once.
+ *
+ * The embedded H2 database runs in process, so this measures only the cost of
+ * parsing and planning each statement. It does not show the prepare and close
+ * round trips that a cache hit saves against a MySQL server.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatementCacheBenchmark {
+	private static final int PROJECTS = 2_000;
+	private static final int CHILDREN = 5;
+
+	@Param({ "0", "64" })
+	public int statementCacheSize;
+
+	private final ProjectDao projectDao = new ProjectDao();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		System.setProperty(DbConfig.PRIMARY_PREFIX + "pool.statementCacheSize", String.valueOf(statementCacheSize));
+		EmbeddedDatabase.configure();
+		EmbeddedDatabase.createAndSeed(PROJECTS, CHILDREN);
+	}
+
+	@Benchmark
+	public Optional<Project> fetchProjectById() {
+		return projectDao.fetchProjectById(ThreadLocalRandom.current().nextInt(PROJECTS) + 1);
+	}
+
+	@Benchmark
+	public Project insertProject() {
+		return projectDao.insertProject(EmbeddedDatabase.newProject(PROJECTS, 0));
+	}
+}
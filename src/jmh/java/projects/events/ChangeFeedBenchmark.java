@@ -0,0 +1,55 @@
+package projects.events;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost a {@link ChangeFeed} adds to the write path: one publish, with no
+ * subscribers and with one subscriber using each wait strategy that parks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChangeFeedBenchmark {
+	@Param({ "NONE", "SLEEPING", "BLOCKING" })
+	public String subscriber;
+
+	private ChangeFeed feed;
+	private int projectId;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		feed = new ChangeFeed(1 << 16);
+
+		if (!"NONE".equals(subscriber)) {
+			feed.subscribe("benchmark", event -> {
+			}, WaitStrategy.valueOf(subscriber));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		feed.close();
+	}
+
+	@Benchmark
+	public long publish() {
+		return feed.publish(ChangeType.UPDATE, ++projectId, null);
+	}
+}
@@ -0,0 +1,69 @@
+package projects.metrics;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.benchmark.EmbeddedDatabase;
+import projects.entity.Project;
+import projects.service.ProjectService;
+
+/**
+ * Measures what {@link Metrics} costs. Compare the {@code enabled=false} and
+ * {@code enabled=true} scores of the service benchmarks; the histogram
+ * benchmark shows the raw cost of one recording under contention.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+	private static final int PROJECTS = 2_000;
+	private static final int CHILDREN = 5;
+
+	@Param({ "false", "true" })
+	public boolean enabled;
+
+	private final ProjectService projectService = new ProjectService();
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		EmbeddedDatabase.configure();
+		EmbeddedDatabase.createAndSeed(PROJECTS, CHILDREN);
+		Metrics.setEnabled(enabled);
+	}
+
+	@Benchmark
+	public Project fetchProjectById() {
+		return projectService.fetchProjectById(ThreadLocalRandom.current().nextInt(PROJECTS) + 1);
+	}
+
+	@Benchmark
+	public List<Project> fetchProjectPage() {
+		return projectService.fetchProjectPage(null, 50).getProjects();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@Threads(4)
+	public void histogramRecord() {
+		histogram.record(ThreadLocalRandom.current().nextLong(1_000, 10_000_000));
+	}
+}
@@ -0,0 +1,91 @@
+package projects.search;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Query latency of {@link SearchIndex} over {@value #PROJECTS} projects of
+ * {@value #STEPS} steps each (one million steps). Words are drawn from a
+ * skewed synthetic vocabulary so that common terms have long posting lists.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class SearchIndexBenchmark {
+	private static final int PROJECTS = 100_000;
+	private static final int STEPS = 10;
+	private static final int WORDS_PER_STEP = 8;
+	private static final int VOCABULARY = 20_000;
+
+	private final SearchIndex index = new SearchIndex();
+	private String[] words;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		words = new String[VOCABULARY];
+
+		for (int word = 0; word < VOCABULARY; word++) {
+			StringBuilder text = new StringBuilder();
+
+			for (int letter = 4 + random.nextInt(6); letter > 0; letter--) {
+				text.append((char) ('a' + random.nextInt(26)));
+			}
+
+			words[word] = text.toString();
+		}
+
+		SearchIndex.Loader loader = index.startRebuild();
+
+		for (int projectId = 1; projectId <= PROJECTS; projectId++) {
+			loader.addName(projectId, "Project " + skewedWord(random));
+
+			for (int step = 0; step < STEPS; step++) {
+				StringBuilder text = new StringBuilder();
+
+				for (int word = 0; word < WORDS_PER_STEP; word++) {
+					text.append(skewedWord(random)).append(' ');
+				}
+
+				loader.addText(projectId, text.toString());
+			}
+		}
+
+		index.install(loader);
+	}
+
+	private String skewedWord(Random random) {
+		return words[(int) Math.min(VOCABULARY - 1, Math.abs(random.nextGaussian()) * VOCABULARY / 6)];
+	}
+
+	@Benchmark
+	public List<SearchHit> twoTermsAndPrefix() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String query = words[random.nextInt(3000)] + " " + words[random.nextInt(3000)] + " "
+				+ words[random.nextInt(3000)].substring(0, 3);
+
+		return index.search(query, 10);
+	}
+
+	@Benchmark
+	public List<SearchHit> singleRareTerm() {
+		return index.search(words[ThreadLocalRandom.current().nextInt(10_000, VOCABULARY)], 10);
+	}
+}
@@ -0,0 +1,56 @@
+package projects.service;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import projects.dao.SqlScriptReader;
+
+/**
+ * Benchmarks splitting a SQL script into statements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SqlScriptBenchmark {
+	/** The number of INSERT statements in the script. */
+	@Param({ "100", "2000" })
+	public int statements;
+
+	private String script;
+
+	@Setup
+	public void setUp() {
+		StringBuilder builder = new StringBuilder();
+
+		for (int index = 0; index < statements; index++) {
+			builder.append("-- Project ").append(index).append('\n');
+			builder.append("INSERT INTO project (project_name, estimated_hours, difficulty, notes)\n");
+			builder.append("    VALUES ('Project ").append(index).append("', 4.00, 3, 'Some notes; -- not a comment');\n\n");
+		}
+
+		script = builder.toString();
+	}
+
+	@Benchmark
+	public void sqlScriptReader(Blackhole blackhole) {
+		try (SqlScriptReader reader = new SqlScriptReader(new StringReader(script))) {
+			reader.forEachRemaining(blackhole::consume);
+		}
+	}
+}
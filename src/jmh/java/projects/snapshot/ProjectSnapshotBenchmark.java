@@ -0,0 +1,73 @@
+package projects.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.benchmark.EmbeddedDatabase;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+/**
+ * Compares loading a project from a {@link ProjectSnapshot} with loading it
+ * from the database, and measures how long opening the snapshot takes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectSnapshotBenchmark {
+	private static final int PROJECTS = 2_000;
+	private static final int CHILDREN = 5;
+
+	private final ProjectDao projectDao = new ProjectDao();
+	private Path path;
+	private ProjectSnapshot snapshot;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		EmbeddedDatabase.configure();
+		EmbeddedDatabase.createAndSeed(PROJECTS, CHILDREN);
+
+		path = Files.createTempFile("projects", ".snapshot");
+		snapshot = ProjectSnapshot.write(projectDao, path);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+	@Benchmark
+	public Optional<Project> snapshotFetchProjectById() {
+		return snapshot.fetchProjectById(ThreadLocalRandom.current().nextInt(PROJECTS) + 1);
+	}
+
+	@Benchmark
+	public Optional<Project> databaseFetchProjectById() {
+		return projectDao.fetchProjectById(ThreadLocalRandom.current().nextInt(PROJECTS) + 1);
+	}
+
+	@Benchmark
+	public ProjectSnapshot open() {
+		return ProjectSnapshot.open(path);
+	}
+}
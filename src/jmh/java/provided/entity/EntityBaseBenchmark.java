@@ -0,0 +1,44 @@
+package provided.entity;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link EntityBase#toFraction(BigDecimal)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntityBaseBenchmark {
+  private final EntityBase entity = new EntityBase() {};
+
+  @Param({ "0.5", "16.25", "2.6667", "7" })
+  public String amount;
+
+  private BigDecimal value;
+
+  @Setup
+  public void setUp() {
+    value = new BigDecimal(amount);
+  }
+
+  @Benchmark
+  public String toFraction() {
+    return entity.toFraction(value);
+  }
+}
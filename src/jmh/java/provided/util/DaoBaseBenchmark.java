@@ -0,0 +1,82 @@
+package provided.util;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.entity.Project;
+
+/**
+ * Benchmarks for the per-row and per-parameter helpers in {@link DaoBase}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DaoBaseBenchmark {
+  private final DaoBase dao = new DaoBase() {};
+  private SimpleResultSet projectRow;
+  private Connection conn;
+  private PreparedStatement stmt;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    projectRow = new SimpleResultSet();
+    projectRow.addColumn("project_id", Types.INTEGER, 10, 0);
+    projectRow.addColumn("project_name", Types.VARCHAR, 128, 0);
+    projectRow.addColumn("estimated_hours", Types.DECIMAL, 7, 2);
+    projectRow.addColumn("actual_hours", Types.DECIMAL, 7, 2);
+    projectRow.addColumn("difficulty", Types.INTEGER, 10, 0);
+    projectRow.addColumn("notes", Types.VARCHAR, 1024, 0);
+    projectRow.addRow(42, "Hang a door", new BigDecimal("4.00"), new BigDecimal("5.50"), 3, "Notes");
+    projectRow.next();
+
+    conn = DriverManager.getConnection("jdbc:h2:mem:", "sa", "");
+    stmt = conn.prepareStatement("SELECT ?, ?, ?, ?");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    stmt.close();
+    conn.close();
+  }
+
+  @Benchmark
+  public Project extract() {
+    return dao.extract(projectRow, Project.class);
+  }
+
+  @Benchmark
+  public PreparedStatement setParameter() throws SQLException {
+    dao.setParameter(stmt, 1, 42, Integer.class);
+    dao.setParameter(stmt, 2, "Hang a door", String.class);
+    dao.setParameter(stmt, 3, new BigDecimal("4.00"), BigDecimal.class);
+    dao.setParameter(stmt, 4, null, Integer.class);
+    return stmt;
+  }
+
+  @Benchmark
+  public String camelCaseToSnakeCase() {
+    return DaoBase.camelCaseToSnakeCase("estimatedHours");
+  }
+}
@@ -1,30 +1,55 @@
 package projects;
 
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
+import projects.dao.DbConfig;
 import projects.dao.DbConnection;
 import projects.entity.Project;
 import projects.exception.DbException;
+import projects.exception.ProjectConflictException;
+import projects.io.ExportSummary;
+import projects.io.ImportSummary;
+import projects.migration.Migration;
+import projects.search.SearchHit;
+import projects.search.SearchIndex;
 import projects.service.ProjectService;
+import projects.snapshot.ProjectSnapshot;
 
 public class ProjectsApp {
 	private Scanner scanner = new Scanner(System.in);
-	private ProjectService projectsService = new ProjectService();
+	private ProjectService projectsService = new ProjectService().setSearchIndex(new SearchIndex());
 	private Project curProject;
 
+	/* projects.snapshot.file names the snapshot to start warm from; maxAgeMinutes limits how old it may be. */
+	private DbConfig snapshotConfig = DbConfig.load("projects.snapshot.");
+
+	private static final int SEARCH_LIMIT = 20;
+
+	/* Conflicting updates are merged and retried this many times before giving up. */
+	private static final int UPDATE_ATTEMPTS = 3;
+
 	/* list of available options */
 	// @formatter:off
 	private List<String> operations = List.of(
-			"1) Create and populate all tables",
+			"1) Migrate the database schema",
 			"2) Add a project",
 			"3) List projects",
 			"4) Select a project",
 			"5) Update project details",
-			"6) Delete project"
-			
-			
+			"6) Delete project",
+			"7) Import projects from a file",
+			"8) Run a SQL script file",
+			"9) Search projects",
+			"10) Show project statistics",
+			"11) Rebuild project statistics",
+			"12) Export projects to a file",
+			"13) Refresh the project snapshot"
 	);
 	// @formatter:on
 	/**
@@ -33,7 +58,12 @@ public class ProjectsApp {
 	 * @param args Unused.
 	 */
 	public static void main(String[] args) {
-		new ProjectsApp().displayMenu();
+		ProjectsApp app = new ProjectsApp();
+
+		app.verifySchema();
+		app.openSnapshot();
+		app.buildSearchIndex();
+		app.displayMenu();
 
 	}
 
@@ -54,7 +84,7 @@ public class ProjectsApp {
 					break;
 
 				case 1:
-					createTables();
+					migrateSchema();
 					break;
 
 				case 2:
@@ -77,6 +107,34 @@ public class ProjectsApp {
 					deleteProject();
 					break;
 
+				case 7:
+					importProjects();
+					break;
+
+				case 8:
+					runSqlScript();
+					break;
+
+				case 9:
+					searchProjects();
+					break;
+
+				case 10:
+					showStatistics();
+					break;
+
+				case 11:
+					rebuildStatistics();
+					break;
+
+				case 12:
+					exportProjects();
+					break;
+
+				case 13:
+					refreshSnapshot();
+					break;
+
 				default:
 					System.out.println("\n" + operation + " is not valid. Try again.");
 					break;
@@ -87,6 +145,93 @@ public class ProjectsApp {
 		}
 	}
 
+	/**
+	 * Bulk-imports a CSV or JSON Lines file of project graphs.
+	 */
+	private void importProjects() {
+		String fileName = getStringInput("Enter the path of the .csv or .jsonl file to import");
+
+		if (Objects.nonNull(fileName)) {
+			ImportSummary summary = projectsService.importProjects(Path.of(fileName));
+			System.out.println("\nImport complete: " + summary);
+		}
+	}
+
+	/**
+	 * Exports all project graphs to a CSV or JSON Lines file.
+	 */
+	private void exportProjects() {
+		String fileName = getStringInput("Enter the path of the .csv or .jsonl file to write (add .gz to compress)");
+
+		if (Objects.nonNull(fileName)) {
+			ExportSummary summary = projectsService.exportProjects(Path.of(fileName));
+			System.out.println("\nExport complete: " + summary);
+		}
+	}
+
+	/**
+	 * Rebuilds the snapshot file from the database and starts serving projects
+	 * from it.
+	 */
+	private void refreshSnapshot() {
+		String fileName = snapshotConfig.get("file", null);
+
+		if (Objects.isNull(fileName)) {
+			fileName = getStringInput("Enter the path of the snapshot file to write");
+		}
+
+		if (Objects.nonNull(fileName)) {
+			long start = System.nanoTime();
+			ProjectSnapshot snapshot = projectsService.refreshSnapshot(Path.of(fileName));
+
+			System.out.println("\nWrote " + snapshot + " in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+		}
+	}
+
+	private void runSqlScript() {
+		String fileName = getStringInput("Enter the path of the SQL script to run");
+
+		if (Objects.nonNull(fileName)) {
+			projectsService.runSqlScript(Path.of(fileName));
+			System.out.println("\nScript complete! If it changed projects or materials, choose option 11 to rebuild the statistics.");
+		}
+	}
+
+	private void searchProjects() {
+		String query = getStringInput("Enter the words to search for");
+
+		if (Objects.nonNull(query)) {
+			List<SearchHit> hits = projectsService.searchProjects(query, SEARCH_LIMIT);
+
+			if (hits.isEmpty()) {
+				System.out.println("\nNo projects matched.");
+			} else {
+				System.out.println("\nMatching projects:");
+				hits.forEach(hit -> System.out.println("   " + hit));
+			}
+		}
+	}
+
+	/**
+	 * Prints the overall and per-category totals, and the current project's
+	 * totals if one is selected.
+	 */
+	private void showStatistics() {
+		System.out.println("\nAll projects: " + projectsService.fetchRollupTotals());
+
+		System.out.println("\nCategories:");
+		projectsService.fetchCategoryRollups().forEach(rollup -> System.out.println("   " + rollup));
+
+		if (Objects.nonNull(curProject)) {
+			System.out.println("\nCurrent project: " + projectsService.fetchProjectRollup(curProject.getProjectId()));
+		}
+	}
+
+	private void rebuildStatistics() {
+		int projects = projectsService.rebuildRollups();
+		System.out.println("\nRebuilt statistics for " + projects + " projects.");
+	}
+
 	private void deleteProject() {
 		listProjects();
 		Integer projectId = getIntInput("Enter the ID of the project to delete");
@@ -129,7 +274,11 @@ public class ProjectsApp {
 		project.setDifficulty(Objects.isNull(difficulty) ? curProject.getDifficulty() : difficulty);
 		project.setNotes(Objects.isNull(notes) ? curProject.getNotes() : notes);
 
-		projectsService.modifyProjectDetails(project);
+		try {
+			projectsService.modifyProjectDetails(curProject, project, UPDATE_ATTEMPTS);
+		} catch (ProjectConflictException e) {
+			System.out.println("\n" + e.getMessage() + " The project has been reloaded; please enter your changes again.");
+		}
 
 		curProject = projectsService.fetchProjectById(curProject.getProjectId());
 
@@ -202,9 +351,75 @@ public class ProjectsApp {
 		curProject = projectsService.fetchProjectById(dbProject.getProjectId());
 	}
 
-	private void createTables() {
-		projectsService.createAndPopulateTables();
-		System.out.println("\nTables created and populated!");
+	private void migrateSchema() {
+		List<Migration> applied = projectsService.migrateSchema();
+
+		if (applied.isEmpty()) {
+			System.out.println("\nThe schema is already up to date.");
+		} else {
+			applied.forEach(migration -> System.out.println("Applied migration " + migration));
+			System.out.println("\nThe schema is up to date!");
+		}
+	}
+
+	/**
+	 * Warns about pending migrations and missing indexes at startup. The menu
+	 * still runs if the database cannot be reached.
+	 */
+	private void verifySchema() {
+		try {
+			List<String> problems = projectsService.verifySchema();
+
+			if (!problems.isEmpty()) {
+				System.out.println("\nWarning: the database schema is not up to date. Choose option 1 to migrate it.");
+				problems.forEach(problem -> System.out.println("   " + problem));
+			}
+		} catch (DbException e) {
+			System.out.println("\nUnable to verify the database schema: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Starts warm from the configured snapshot file if there is one and it is not
+	 * too old.
+	 */
+	private void openSnapshot() {
+		String fileName = snapshotConfig.get("file", null);
+
+		if (Objects.isNull(fileName) || !Files.exists(Path.of(fileName))) {
+			return;
+		}
+
+		try {
+			long start = System.nanoTime();
+			ProjectSnapshot snapshot = ProjectSnapshot.open(Path.of(fileName));
+			long ageMinutes = Duration.between(snapshot.getCreatedAt(), Instant.now()).toMinutes();
+
+			if (ageMinutes >= snapshotConfig.getLong("maxAgeMinutes", 60)) {
+				System.out.println("\nThe project snapshot is " + ageMinutes
+						+ " minutes old and was not used. Choose option 13 to refresh it.");
+				return;
+			}
+
+			projectsService.setSnapshot(snapshot);
+			System.out.println("\nOpened " + snapshot + " in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+		} catch (DbException e) {
+			System.out.println("\nUnable to open the project snapshot: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Builds the search index up front, so no search waits for it. If the
+	 * database cannot be read yet, the first search builds it instead.
+	 */
+	private void buildSearchIndex() {
+		try {
+			long start = System.nanoTime();
+			projectsService.rebuildSearchIndex();
+			System.out.println("\nBuilt the search index in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+		} catch (DbException e) {
+			System.out.println("\nUnable to build the search index: " + e.getMessage());
+		}
 	}
 
 	private boolean exitMenu() {
@@ -0,0 +1,444 @@
+package projects.analytics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import projects.entity.Project;
+
+/**
+ * A read-only, column-oriented snapshot of the project table for analytic
+ * scans. Each column is a primitive array indexed by row number:
+ * <ul>
+ * <li>project IDs and difficulties as {@code int[]},</li>
+ * <li>estimated and actual hours as fixed-point {@code long[]} cents,</li>
+ * <li>names as {@code int[]} codes into a sorted dictionary, so that codes
+ * compare in name order.</li>
+ * </ul>
+ * Null difficulties and hours are stored as zero and tracked in a separate
+ * bitmap per column. Rows are in project ID order.
+ *
+ * Filters run a branch-free loop over one column and return a {@link RowSet};
+ * aggregates run over a column masked by a row set. Neither allocates anything
+ * per row. A snapshot never changes; build a new one to see later changes.
+ */
+public final class ProjectColumns {
+	private final int size;
+	private final int[] projectIds;
+	private final int[] difficulties;
+	private final long[] estimatedCents;
+	private final long[] actualCents;
+	private final int[] nameCodes;
+	private final String[] names;
+	private final RowSet withDifficulty;
+	private final RowSet withEstimatedHours;
+	private final RowSet withActualHours;
+	private final long builtAtMillis;
+
+	private ProjectColumns(Builder builder) {
+		size = builder.size;
+		projectIds = Arrays.copyOf(builder.projectIds, size);
+		difficulties = Arrays.copyOf(builder.difficulties, size);
+		estimatedCents = Arrays.copyOf(builder.estimatedCents, size);
+		actualCents = Arrays.copyOf(builder.actualCents, size);
+		withDifficulty = new RowSet(Arrays.copyOf(builder.hasDifficulty, RowSet.wordCount(size)), size);
+		withEstimatedHours = new RowSet(Arrays.copyOf(builder.hasEstimatedHours, RowSet.wordCount(size)), size);
+		withActualHours = new RowSet(Arrays.copyOf(builder.hasActualHours, RowSet.wordCount(size)), size);
+		builtAtMillis = System.currentTimeMillis();
+
+		/* Renumber the names so that code order is name order. */
+		names = builder.nameCodesByName.keySet().toArray(new String[0]);
+		Arrays.sort(names);
+
+		int[] sortedCode = new int[names.length];
+
+		for (int code = 0; code < names.length; code++) {
+			sortedCode[builder.nameCodesByName.get(names[code])] = code;
+		}
+
+		nameCodes = new int[size];
+
+		for (int row = 0; row < size; row++) {
+			nameCodes[row] = sortedCode[builder.nameCodes[row]];
+		}
+	}
+
+	/**
+	 * Builds a snapshot from a stream of project rows. Only the ID, name,
+	 * difficulty and hours are read.
+	 */
+	public static ProjectColumns from(Stream<Project> projects) {
+		Builder builder = new Builder();
+
+		projects.forEachOrdered(builder::add);
+		return builder.build();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/** The number of distinct project names. */
+	public int distinctNames() {
+		return names.length;
+	}
+
+	public long getBuiltAtMillis() {
+		return builtAtMillis;
+	}
+
+	public int getProjectId(int row) {
+		return projectIds[row];
+	}
+
+	public String getProjectName(int row) {
+		return names[nameCodes[row]];
+	}
+
+	/** Returns the difficulty, or zero if it is null. */
+	public int getDifficulty(int row) {
+		return difficulties[row];
+	}
+
+	/** Returns the estimated hours in cents, or zero if they are null. */
+	public long getEstimatedCents(int row) {
+		return estimatedCents[row];
+	}
+
+	/** Returns the actual hours in cents, or zero if they are null. */
+	public long getActualCents(int row) {
+		return actualCents[row];
+	}
+
+	/**
+	 * Copies one row into a new project (without notes or children).
+	 */
+	public Project getProject(int row) {
+		Project project = new Project();
+
+		project.setProjectId(projectIds[row]);
+		project.setProjectName(getProjectName(row));
+		project.setDifficulty(withDifficulty.contains(row) ? difficulties[row] : null);
+		project.setEstimatedHours(withEstimatedHours.contains(row) ? BigDecimal.valueOf(estimatedCents[row], 2) : null);
+		project.setActualHours(withActualHours.contains(row) ? BigDecimal.valueOf(actualCents[row], 2) : null);
+		return project;
+	}
+
+	public RowSet all() {
+		return RowSet.all(size);
+	}
+
+	public RowSet withDifficulty() {
+		return withDifficulty;
+	}
+
+	public RowSet withEstimatedHours() {
+		return withEstimatedHours;
+	}
+
+	public RowSet withActualHours() {
+		return withActualHours;
+	}
+
+	/**
+	 * Returns the rows whose difficulty is between min and max inclusive. Null
+	 * difficulties never match.
+	 */
+	public RowSet difficultyBetween(int min, int max) {
+		return between(difficulties, min, max, withDifficulty);
+	}
+
+	/**
+	 * Returns the rows whose estimated hours, in cents, are between min and max
+	 * inclusive. Null hours never match.
+	 */
+	public RowSet estimatedCentsBetween(long min, long max) {
+		return between(estimatedCents, min, max, withEstimatedHours);
+	}
+
+	/**
+	 * Returns the rows whose actual hours, in cents, are between min and max
+	 * inclusive. Null hours never match.
+	 */
+	public RowSet actualCentsBetween(long min, long max) {
+		return between(actualCents, min, max, withActualHours);
+	}
+
+	/**
+	 * Returns the rows whose actual hours exceed their estimated hours.
+	 */
+	public RowSet overEstimate() {
+		long[] words = new long[RowSet.wordCount(size)];
+
+		for (int word = 0, base = 0; word < words.length; word++, base += 64) {
+			int end = Math.min(64, size - base);
+			long bits = 0;
+
+			for (int bit = 0; bit < end; bit++) {
+				bits |= (actualCents[base + bit] > estimatedCents[base + bit] ? 1L : 0L) << bit;
+			}
+
+			words[word] = bits & withEstimatedHours.words[word] & withActualHours.words[word];
+		}
+
+		return new RowSet(words, size);
+	}
+
+	/**
+	 * Returns the rows whose name starts with the prefix. The names that match
+	 * are a contiguous range of the sorted dictionary, so this is a range filter
+	 * on the name codes.
+	 */
+	public RowSet nameStartsWith(String prefix) {
+		int from = lowerBound(prefix);
+		int to = lowerBound(prefix + Character.MAX_VALUE);
+
+		return from == to ? RowSet.none(size) : between(nameCodes, from, to - 1, null);
+	}
+
+	/**
+	 * Returns the sum of estimated hours, in cents, over the rows. Null hours
+	 * count as zero.
+	 */
+	public long sumEstimatedCents(RowSet rows) {
+		return sum(estimatedCents, rows);
+	}
+
+	/**
+	 * Returns the sum of actual hours, in cents, over the rows. Null hours count
+	 * as zero.
+	 */
+	public long sumActualCents(RowSet rows) {
+		return sum(actualCents, rows);
+	}
+
+	/**
+	 * Returns the sum of actual minus estimated hours, in cents, over the rows
+	 * that have both.
+	 */
+	public long sumVarianceCents(RowSet rows) {
+		RowSet both = rows.and(withEstimatedHours).and(withActualHours);
+		return sum(actualCents, both) - sum(estimatedCents, both);
+	}
+
+	/**
+	 * Returns the sum of difficulties over the rows. Null difficulties count as
+	 * zero.
+	 */
+	public long sumDifficulty(RowSet rows) {
+		checkSnapshot(rows);
+
+		long sum = 0;
+
+		for (int word = 0, base = 0; word < rows.words.length; word++, base += 64) {
+			long bits = rows.words[word];
+			int end = Math.min(64, size - base);
+
+			for (int bit = 0; bit < end; bit++) {
+				sum += difficulties[base + bit] & (int) -((bits >>> bit) & 1L);
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Returns the project IDs of the rows in ID order.
+	 */
+	public int[] projectIds(RowSet rows) {
+		checkSnapshot(rows);
+
+		int[] ids = new int[rows.count()];
+		int next = 0;
+
+		for (int word = 0, base = 0; word < rows.words.length; word++, base += 64) {
+			for (long bits = rows.words[word]; bits != 0; bits &= bits - 1) {
+				ids[next++] = projectIds[base + Long.numberOfTrailingZeros(bits)];
+			}
+		}
+
+		return ids;
+	}
+
+	/**
+	 * Returns the project IDs of the rows ordered by name, then ID. Since name
+	 * codes are already in name order this is a counting sort on the codes.
+	 */
+	public int[] projectIdsByName(RowSet rows) {
+		checkSnapshot(rows);
+
+		int[] starts = new int[names.length + 1];
+
+		for (int word = 0, base = 0; word < rows.words.length; word++, base += 64) {
+			for (long bits = rows.words[word]; bits != 0; bits &= bits - 1) {
+				starts[nameCodes[base + Long.numberOfTrailingZeros(bits)] + 1]++;
+			}
+		}
+
+		for (int code = 0; code < names.length; code++) {
+			starts[code + 1] += starts[code];
+		}
+
+		int[] ids = new int[starts[names.length]];
+
+		for (int word = 0, base = 0; word < rows.words.length; word++, base += 64) {
+			for (long bits = rows.words[word]; bits != 0; bits &= bits - 1) {
+				int row = base + Long.numberOfTrailingZeros(bits);
+				ids[starts[nameCodes[row]]++] = projectIds[row];
+			}
+		}
+
+		return ids;
+	}
+
+	private RowSet between(int[] values, int min, int max, RowSet present) {
+		long[] words = new long[RowSet.wordCount(size)];
+
+		for (int word = 0, base = 0; word < words.length; word++, base += 64) {
+			int end = Math.min(64, size - base);
+			long bits = 0;
+
+			for (int bit = 0; bit < end; bit++) {
+				int value = values[base + bit];
+				bits |= (value >= min & value <= max ? 1L : 0L) << bit;
+			}
+
+			words[word] = Objects.isNull(present) ? bits : bits & present.words[word];
+		}
+
+		return new RowSet(words, size);
+	}
+
+	private RowSet between(long[] values, long min, long max, RowSet present) {
+		long[] words = new long[RowSet.wordCount(size)];
+
+		for (int word = 0, base = 0; word < words.length; word++, base += 64) {
+			int end = Math.min(64, size - base);
+			long bits = 0;
+
+			for (int bit = 0; bit < end; bit++) {
+				long value = values[base + bit];
+				bits |= (value >= min & value <= max ? 1L : 0L) << bit;
+			}
+
+			words[word] = bits & present.words[word];
+		}
+
+		return new RowSet(words, size);
+	}
+
+	/* Masks each value with its row's bit rather than branching on it. */
+	private long sum(long[] values, RowSet rows) {
+		checkSnapshot(rows);
+
+		long sum = 0;
+
+		for (int word = 0, base = 0; word < rows.words.length; word++, base += 64) {
+			long bits = rows.words[word];
+			int end = Math.min(64, size - base);
+
+			for (int bit = 0; bit < end; bit++) {
+				sum += values[base + bit] & -((bits >>> bit) & 1L);
+			}
+		}
+
+		return sum;
+	}
+
+	private int lowerBound(String name) {
+		int index = Arrays.binarySearch(names, name);
+		return index < 0 ? -index - 1 : index;
+	}
+
+	private void checkSnapshot(RowSet rows) {
+		if (rows.size != size) {
+			throw new IllegalArgumentException("The row set is from a different snapshot.");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return size + " projects, " + names.length + " distinct names";
+	}
+
+	/**
+	 * Collects rows into growable columns. Names are dictionary-encoded as they
+	 * arrive.
+	 */
+	public static final class Builder {
+		private static final int INITIAL_CAPACITY = 1024;
+
+		private int size;
+		private int[] projectIds = new int[INITIAL_CAPACITY];
+		private int[] difficulties = new int[INITIAL_CAPACITY];
+		private long[] estimatedCents = new long[INITIAL_CAPACITY];
+		private long[] actualCents = new long[INITIAL_CAPACITY];
+		private int[] nameCodes = new int[INITIAL_CAPACITY];
+		private long[] hasDifficulty = new long[RowSet.wordCount(INITIAL_CAPACITY)];
+		private long[] hasEstimatedHours = new long[RowSet.wordCount(INITIAL_CAPACITY)];
+		private long[] hasActualHours = new long[RowSet.wordCount(INITIAL_CAPACITY)];
+		private final Map<String, Integer> nameCodesByName = new HashMap<>();
+
+		private Builder() {
+		}
+
+		public Builder add(Project project) {
+			if (size == projectIds.length) {
+				grow();
+			}
+
+			int row = size++;
+			long bit = 1L << row;
+
+			projectIds[row] = project.getProjectId();
+			nameCodes[row] = nameCodesByName.computeIfAbsent(Objects.toString(project.getProjectName(), ""),
+					name -> nameCodesByName.size());
+
+			if (Objects.nonNull(project.getDifficulty())) {
+				difficulties[row] = project.getDifficulty();
+				hasDifficulty[row >>> 6] |= bit;
+			}
+
+			if (Objects.nonNull(project.getEstimatedHours())) {
+				estimatedCents[row] = toCents(project.getEstimatedHours());
+				hasEstimatedHours[row >>> 6] |= bit;
+			}
+
+			if (Objects.nonNull(project.getActualHours())) {
+				actualCents[row] = toCents(project.getActualHours());
+				hasActualHours[row >>> 6] |= bit;
+			}
+
+			return this;
+		}
+
+		public ProjectColumns build() {
+			return new ProjectColumns(this);
+		}
+
+		private void grow() {
+			int capacity = projectIds.length * 2;
+
+			projectIds = Arrays.copyOf(projectIds, capacity);
+			difficulties = Arrays.copyOf(difficulties, capacity);
+			estimatedCents = Arrays.copyOf(estimatedCents, capacity);
+			actualCents = Arrays.copyOf(actualCents, capacity);
+			nameCodes = Arrays.copyOf(nameCodes, capacity);
+			hasDifficulty = Arrays.copyOf(hasDifficulty, RowSet.wordCount(capacity));
+			hasEstimatedHours = Arrays.copyOf(hasEstimatedHours, RowSet.wordCount(capacity));
+			hasActualHours = Arrays.copyOf(hasActualHours, RowSet.wordCount(capacity));
+		}
+
+		private static long toCents(BigDecimal hours) {
+			return hours.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package projects.analytics;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of row numbers in a {@link ProjectColumns} snapshot, held as
+ * a bitmap of 64 rows per word. Filters return row sets, and row sets combine
+ * with {@link #and(RowSet)}, {@link #or(RowSet)} and {@link #andNot(RowSet)}
+ * one word at a time.
+ */
+public final class RowSet {
+	final long[] words;
+	final int size;
+
+	RowSet(long[] words, int size) {
+		this.words = words;
+		this.size = size;
+	}
+
+	static RowSet none(int size) {
+		return new RowSet(new long[wordCount(size)], size);
+	}
+
+	static RowSet all(int size) {
+		long[] words = new long[wordCount(size)];
+
+		Arrays.fill(words, -1L);
+
+		if ((size & 63) != 0) {
+			words[words.length - 1] = (1L << size) - 1;
+		}
+
+		return new RowSet(words, size);
+	}
+
+	static int wordCount(int size) {
+		return (size + 63) >>> 6;
+	}
+
+	/**
+	 * Returns the number of rows in the set.
+	 */
+	public int count() {
+		int count = 0;
+
+		for (long word : words) {
+			count += Long.bitCount(word);
+		}
+
+		return count;
+	}
+
+	public boolean isEmpty() {
+		for (long word : words) {
+			if (word != 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public boolean contains(int row) {
+		return (words[row >>> 6] & (1L << row)) != 0;
+	}
+
+	public RowSet and(RowSet other) {
+		checkSameSnapshot(other);
+
+		long[] result = new long[words.length];
+
+		for (int index = 0; index < words.length; index++) {
+			result[index] = words[index] & other.words[index];
+		}
+
+		return new RowSet(result, size);
+	}
+
+	public RowSet or(RowSet other) {
+		checkSameSnapshot(other);
+
+		long[] result = new long[words.length];
+
+		for (int index = 0; index < words.length; index++) {
+			result[index] = words[index] | other.words[index];
+		}
+
+		return new RowSet(result, size);
+	}
+
+	public RowSet andNot(RowSet other) {
+		checkSameSnapshot(other);
+
+		long[] result = new long[words.length];
+
+		for (int index = 0; index < words.length; index++) {
+			result[index] = words[index] & ~other.words[index];
+		}
+
+		return new RowSet(result, size);
+	}
+
+	private void checkSameSnapshot(RowSet other) {
+		if (other.size != size) {
+			throw new IllegalArgumentException("Row sets from snapshots of different sizes cannot be combined.");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return count() + " of " + size + " rows";
+	}
+}
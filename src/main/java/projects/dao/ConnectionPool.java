@@ -0,0 +1,483 @@
+package projects.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import projects.metrics.LatencyHistogram;
+import projects.metrics.Metrics;
+
+/**
+ * A bounded JDBC connection pool. Connections are handed out as proxies whose
+ * {@link Connection#close()} returns the physical connection to the pool
+ * instead of closing it, so DAO code keeps using try-with-resources as before.
+ *
+ * Idle connections are kept in LIFO order so the most recently used (and most
+ * likely still alive) connection is reused first. A connection that has been
+ * idle longer than the validation window is checked with
+ * {@link Connection#isValid(int)} before it is handed out.
+ */
+public class ConnectionPool implements AutoCloseable {
+	private static final LatencyHistogram CONNECTION_ACQUIRE = Metrics.histogram("connection.acquire");
+	private static final LongAdder COMMITS = Metrics.counter("transaction.commit");
+	private static final LongAdder ROLLBACKS = Metrics.counter("transaction.rollback");
+
+	private final DbConfig config;
+	private final String url;
+	private final Runnable writeCommitListener;
+	private final Properties connectionProperties = new Properties();
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+
+	/* All of these are guarded by lock. */
+	private final Deque<PooledConnection> idle = new ArrayDeque<>();
+	private int total;
+	private int waiters;
+	private boolean closed;
+
+	private final LongAdder borrowCount = new LongAdder();
+	private final LongAdder totalWaitNanos = new LongAdder();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	private final LongAdder timeoutCount = new LongAdder();
+	private final LongAdder createdCount = new LongAdder();
+	private final LongAdder destroyedCount = new LongAdder();
+	private final LongAdder statementCacheHits = new LongAdder();
+	private final LongAdder statementCacheMisses = new LongAdder();
+
+	private final ScheduledExecutorService evictor;
+
+	public ConnectionPool(DbConfig config) {
+		this(config, null);
+	}
+
+	/**
+	 * @param writeCommitListener called in the committing thread after each
+	 *                            successful commit on a connection that is not
+	 *                            read-only, or null
+	 */
+	public ConnectionPool(DbConfig config, Runnable writeCommitListener) {
+		if (config.getMaxPoolSize() < 1 || config.getMinPoolSize() > config.getMaxPoolSize()) {
+			throw new IllegalArgumentException("Invalid pool size: min=" + config.getMinPoolSize() + ", max="
+					+ config.getMaxPoolSize());
+		}
+
+		this.config = config;
+		this.url = config.getUrl();
+		this.writeCommitListener = writeCommitListener;
+		connectionProperties.setProperty("user", config.getUser());
+		connectionProperties.setProperty("password", config.getPassword());
+
+		evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "connection-pool-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long interval = config.getEvictionIntervalMillis();
+		evictor.scheduleWithFixedDelay(this::maintain, 0, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Borrows a connection, waiting up to the configured borrow timeout if the
+	 * pool is exhausted. The caller must close the returned connection.
+	 *
+	 * @return a pooled connection
+	 * @throws SQLTimeoutException if no connection became available in time
+	 * @throws SQLException if a new connection could not be opened
+	 */
+	public Connection borrow() throws SQLException {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.getBorrowTimeoutMillis());
+
+		while (true) {
+			PooledConnection pooled = null;
+			boolean create = false;
+
+			lock.lock();
+			try {
+				while (!closed && idle.isEmpty() && total >= config.getMaxPoolSize()) {
+					long remaining = deadline - System.nanoTime();
+
+					if (remaining <= 0) {
+						timeoutCount.increment();
+						throw new SQLTimeoutException("Timed out after " + config.getBorrowTimeoutMillis()
+								+ "ms waiting for a database connection (" + getStatsLocked() + ")");
+					}
+
+					waiters++;
+					try {
+						available.awaitNanos(remaining);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new SQLException("Interrupted while waiting for a database connection", e);
+					} finally {
+						waiters--;
+					}
+				}
+
+				if (closed) {
+					throw new SQLException("Connection pool is closed");
+				}
+
+				pooled = idle.pollFirst();
+
+				if (Objects.isNull(pooled)) {
+					total++;
+					create = true;
+				}
+			} finally {
+				lock.unlock();
+			}
+
+			if (create) {
+				pooled = open();
+			} else if (!validate(pooled)) {
+				destroy(pooled);
+				continue;
+			}
+
+			recordBorrow(System.nanoTime() - start);
+			return pooled.lease();
+		}
+	}
+
+	/**
+	 * Returns a snapshot of the pool counters.
+	 */
+	public PoolStats getStats() {
+		lock.lock();
+		try {
+			return getStatsLocked();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes all idle connections and stops handing out new ones. Connections
+	 * currently borrowed are closed when they are returned.
+	 */
+	@Override
+	public void close() {
+		List<PooledConnection> toClose;
+
+		lock.lock();
+		try {
+			closed = true;
+			toClose = new ArrayList<>(idle);
+			idle.clear();
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+
+		evictor.shutdownNow();
+		toClose.forEach(this::destroy);
+	}
+
+	private PoolStats getStatsLocked() {
+		return new PoolStats(total - idle.size(), idle.size(), waiters, borrowCount.sum(), totalWaitNanos.sum(),
+				maxWaitNanos.get(), timeoutCount.sum(), createdCount.sum(), destroyedCount.sum(),
+				statementCacheHits.sum(), statementCacheMisses.sum());
+	}
+
+	private void recordBorrow(long waitNanos) {
+		borrowCount.increment();
+		totalWaitNanos.add(waitNanos);
+		maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+
+		if (Metrics.isEnabled()) {
+			CONNECTION_ACQUIRE.record(waitNanos);
+		}
+	}
+
+	/**
+	 * Opens a physical connection. The caller must already have reserved a slot by
+	 * incrementing total.
+	 */
+	private PooledConnection open() throws SQLException {
+		try {
+			Connection conn = DriverManager.getConnection(url, connectionProperties);
+			createdCount.increment();
+			return new PooledConnection(conn);
+		} catch (SQLException | RuntimeException e) {
+			releaseSlot();
+			throw e;
+		}
+	}
+
+	private boolean validate(PooledConnection pooled) {
+		long idleNanos = System.nanoTime() - pooled.lastReturnedNanos;
+
+		if (idleNanos < TimeUnit.MILLISECONDS.toNanos(config.getValidationIdleMillis())) {
+			return true;
+		}
+
+		try {
+			return pooled.connection.isValid(config.getValidationTimeoutSeconds());
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Called when a borrower closes its proxy. The connection is reset to
+	 * auto-commit and put back on the idle stack, or discarded if the reset fails.
+	 *
+	 * @param readOnly whether the borrower left the connection read-only
+	 */
+	private void release(PooledConnection pooled, boolean readOnly) {
+		if (Objects.nonNull(pooled.statementCache)) {
+			pooled.statementCache.closeLeaked();
+		}
+
+		if (!reset(pooled.connection, readOnly)) {
+			destroy(pooled);
+			return;
+		}
+
+		pooled.lastReturnedNanos = System.nanoTime();
+
+		lock.lock();
+		try {
+			if (!closed) {
+				idle.offerFirst(pooled);
+				available.signal();
+				return;
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		destroy(pooled);
+	}
+
+	/**
+	 * Rolls back anything the borrower left uncommitted so the next borrower
+	 * starts clean. The read-only flag comes from the lease rather than
+	 * {@link Connection#isReadOnly()}, which can cost a round trip to the server.
+	 */
+	private boolean reset(Connection conn, boolean readOnly) {
+		try {
+			if (conn.isClosed()) {
+				return false;
+			}
+
+			if (!conn.getAutoCommit()) {
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+
+			if (readOnly) {
+				conn.setReadOnly(false);
+			}
+
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void destroy(PooledConnection pooled) {
+		if (Objects.nonNull(pooled.statementCache)) {
+			pooled.statementCache.closeAll();
+		}
+
+		try {
+			pooled.connection.close();
+		} catch (SQLException e) {
+			/* The connection is being discarded anyway. */
+		}
+
+		destroyedCount.increment();
+		releaseSlot();
+	}
+
+	private void releaseSlot() {
+		lock.lock();
+		try {
+			total--;
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes connections that have been idle longer than the idle timeout, keeping
+	 * at least the minimum pool size, then opens connections until the minimum is
+	 * reached.
+	 */
+	private void maintain() {
+		long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+		List<PooledConnection> expired = new ArrayList<>();
+		int missing;
+
+		lock.lock();
+		try {
+			Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+
+			while (oldestFirst.hasNext() && total - expired.size() > config.getMinPoolSize()) {
+				PooledConnection pooled = oldestFirst.next();
+
+				if (pooled.lastReturnedNanos - cutoff < 0) {
+					oldestFirst.remove();
+					expired.add(pooled);
+				}
+			}
+
+			missing = closed ? 0 : config.getMinPoolSize() - (total - expired.size());
+			total += Math.max(missing, 0);
+		} finally {
+			lock.unlock();
+		}
+
+		expired.forEach(this::destroy);
+
+		for (int i = 0; i < missing; i++) {
+			try {
+				release(open(), false);
+			} catch (SQLException | RuntimeException e) {
+				/* The database may be down; try again on the next run. */
+				for (int j = i + 1; j < missing; j++) {
+					releaseSlot();
+				}
+
+				break;
+			}
+		}
+	}
+
+	/**
+	 * A physical connection owned by the pool.
+	 */
+	private class PooledConnection {
+		private final Connection connection;
+		private final StatementCache statementCache;
+		private volatile long lastReturnedNanos = System.nanoTime();
+
+		PooledConnection(Connection connection) {
+			this.connection = connection;
+
+			int cacheSize = config.getStatementCacheSize();
+			this.statementCache = cacheSize > 0
+					? new StatementCache(cacheSize, statementCacheHits, statementCacheMisses)
+					: null;
+		}
+
+		Connection lease() {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, new Lease(this));
+		}
+	}
+
+	/**
+	 * Handles calls on a borrowed connection. Each borrow gets its own lease, so
+	 * closing a connection twice does not return it to the pool twice.
+	 */
+	private class Lease implements InvocationHandler {
+		private PooledConnection pooled;
+
+		/* Tracked here so commits can be classified without asking the driver. */
+		private boolean readOnly;
+
+		Lease(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (Objects.nonNull(pooled)) {
+					PooledConnection returning = pooled;
+					pooled = null;
+					release(returning, readOnly);
+				}
+				return null;
+
+			case "isClosed":
+				return Objects.isNull(pooled) || pooled.connection.isClosed();
+
+			case "unwrap":
+				if (((Class<?>) args[0]).isInstance(proxy)) {
+					return proxy;
+				}
+				break;
+
+			case "equals":
+				return proxy == args[0];
+
+			case "hashCode":
+				return System.identityHashCode(proxy);
+
+			case "toString":
+				return "Pooled" + (Objects.isNull(pooled) ? "[closed]" : pooled.connection.toString());
+
+			default:
+				break;
+			}
+
+			if (Objects.isNull(pooled)) {
+				throw new SQLException("Connection has been returned to the pool");
+			}
+
+			Object result;
+
+			if ("prepareStatement".equals(method.getName()) && Objects.nonNull(pooled.statementCache)
+					&& StatementCache.isCacheable(args)) {
+				result = pooled.statementCache.prepare(pooled.connection, args);
+			} else {
+				try {
+					result = method.invoke(pooled.connection, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+
+			if (result instanceof Statement && TimedStatement.isNeeded()) {
+				String sql = Objects.nonNull(args) && args.length > 0 && args[0] instanceof String ? (String) args[0]
+						: null;
+
+				return TimedStatement.wrap(method.getReturnType(), (Statement) result, sql);
+			}
+
+			if ("setReadOnly".equals(method.getName())) {
+				readOnly = (Boolean) args[0];
+			} else if ("commit".equals(method.getName()) && !readOnly && Objects.nonNull(writeCommitListener)) {
+				writeCommitListener.run();
+			}
+
+			if (Metrics.isEnabled()) {
+				if ("commit".equals(method.getName())) {
+					COMMITS.increment();
+				} else if ("rollback".equals(method.getName())) {
+					ROLLBACKS.increment();
+				}
+			}
+
+			return result;
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package projects.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.Properties;
+
+import projects.exception.DbException;
+
+/**
+ * Connection and pool settings for the projects database. Values are read from
+ * {@code db.properties} on the classpath and may be overridden by system
+ * properties with the same name (for example,
+ * {@code -Dprojects.db.host=db.example.com}).
+ */
+public class DbConfig {
+	private static final String CONFIG_FILE = "db.properties";
+	public static final String PRIMARY_PREFIX = "projects.db.";
+
+	private final Properties properties;
+	private final String prefix;
+
+	private DbConfig(Properties properties, String prefix) {
+		this.properties = properties;
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Loads the primary database configuration.
+	 *
+	 * @return the configuration
+	 */
+	public static DbConfig load() {
+		return load(PRIMARY_PREFIX);
+	}
+
+	/**
+	 * Loads the configuration whose keys start with the given prefix. System
+	 * properties take precedence over the values in {@code db.properties}.
+	 *
+	 * @param prefix the key prefix, such as {@code projects.db.}
+	 * @return the configuration
+	 */
+	public static DbConfig load(String prefix) {
+		Properties properties = new Properties();
+
+		try (InputStream in = DbConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+			if (Objects.nonNull(in)) {
+				properties.load(in);
+			}
+		} catch (IOException e) {
+			throw new DbException("Unable to read " + CONFIG_FILE, e);
+		}
+
+		properties.putAll(System.getProperties());
+		return new DbConfig(properties, prefix);
+	}
+
+	/**
+	 * Builds a configuration from explicit properties. Keys must include the
+	 * prefix.
+	 */
+	public static DbConfig of(Properties properties, String prefix) {
+		return new DbConfig(properties, prefix);
+	}
+
+	/**
+	 * Returns true if any key with this configuration's prefix is present.
+	 */
+	public boolean isConfigured() {
+		return properties.stringPropertyNames().stream().anyMatch(key -> key.startsWith(prefix));
+	}
+
+	/**
+	 * Returns the JDBC URL. If {@code url} is set it is used as is, otherwise the
+	 * URL is built from the host, port and schema.
+	 */
+	public String getUrl() {
+		String url = get("url", null);
+
+		if (Objects.nonNull(url)) {
+			return url;
+		}
+
+		/*
+		 * useCursorFetch lets statements with a fetch size stream rows through a
+		 * server-side cursor, so several result sets can stream on one connection at
+		 * once. The driver only opens cursors for server-side prepared statements and
+		 * turns useServerPrepStmts on whenever useCursorFetch is set, so it is spelled
+		 * out here: every prepareStatement is parsed by the server, and one that the
+		 * pool's statement cache does not keep open costs a prepare and a close round
+		 * trip. rewriteBatchedStatements sends a batch of inserts as one multi-row
+		 * INSERT.
+		 */
+		return String.format(
+				"jdbc:mysql://%s:%d/%s?useSSL=false&useCursorFetch=true&useServerPrepStmts=true&rewriteBatchedStatements=true",
+				getHost(), getPort(), getSchema());
+	}
+
+	public String getHost() {
+		return get("host", "localhost");
+	}
+
+	public int getPort() {
+		return getInt("port", 3306);
+	}
+
+	public String getSchema() {
+		return get("schema", "projects");
+	}
+
+	public String getUser() {
+		return get("user", "projects");
+	}
+
+	/**
+	 * Unlike other settings, a password that is set but blank is an empty
+	 * password rather than unset, so accounts without one (such as an embedded
+	 * database's) can be configured.
+	 */
+	public String getPassword() {
+		String value = properties.getProperty(prefix + "password");
+		return Objects.isNull(value) ? "projects" : value.trim();
+	}
+
+	public int getMinPoolSize() {
+		return getInt("pool.minSize", 2);
+	}
+
+	public int getMaxPoolSize() {
+		return getInt("pool.maxSize", 10);
+	}
+
+	/** Idle connections older than this are closed, down to the minimum size. */
+	public long getIdleTimeoutMillis() {
+		return getLong("pool.idleTimeoutMillis", 300_000L);
+	}
+
+	/** How long a caller waits for a free connection before giving up. */
+	public long getBorrowTimeoutMillis() {
+		return getLong("pool.borrowTimeoutMillis", 5_000L);
+	}
+
+	/**
+	 * Connections idle for less than this are handed out without a validation
+	 * round trip.
+	 */
+	public long getValidationIdleMillis() {
+		return getLong("pool.validationIdleMillis", 500L);
+	}
+
+	public int getValidationTimeoutSeconds() {
+		return getInt("pool.validationTimeoutSeconds", 2);
+	}
+
+	/**
+	 * Prepared statements kept open per pooled connection. Zero turns the
+	 * statement cache off.
+	 */
+	public int getStatementCacheSize() {
+		return getInt("pool.statementCacheSize", 64);
+	}
+
+	public long getEvictionIntervalMillis() {
+		return getLong("pool.evictionIntervalMillis", 30_000L);
+	}
+
+	/**
+	 * Returns the raw value for the given key (without prefix) or the default if
+	 * it is not set.
+	 */
+	public String get(String key, String defaultValue) {
+		String value = properties.getProperty(prefix + key);
+		return Objects.isNull(value) || value.isBlank() ? defaultValue : value.trim();
+	}
+
+	public int getInt(String key, int defaultValue) {
+		String value = get(key, null);
+
+		try {
+			return Objects.isNull(value) ? defaultValue : Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new DbException(prefix + key + "=" + value + " is not a valid number.");
+		}
+	}
+
+	public long getLong(String key, long defaultValue) {
+		String value = get(key, null);
+
+		try {
+			return Objects.isNull(value) ? defaultValue : Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			throw new DbException(prefix + key + "=" + value + " is not a valid number.");
+		}
+	}
+
+	public boolean getBoolean(String key, boolean defaultValue) {
+		String value = get(key, null);
+		return Objects.isNull(value) ? defaultValue : Boolean.parseBoolean(value);
+	}
+}
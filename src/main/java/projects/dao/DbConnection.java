@@ -1,29 +1,228 @@
 package projects.dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 import projects.exception.DbException;
+import projects.metrics.Metrics;
 
+/**
+ * Hands out connections from a shared {@link ConnectionPool}. The pool is
+ * created on first use from {@link DbConfig#load()}.
+ *
+ * Writes always use the primary database. Reads use
+ * {@link #getReadConnection()}, which goes to a read replica when one is
+ * configured with {@code projects.db.replica.url} (or {@code host}) and the
+ * other {@code projects.db.replica.*} settings. A replica may lag behind the
+ * primary, so after a thread commits a write its reads stay on the primary for
+ * {@code projects.db.replica.readYourWritesMillis}, and
+ * {@link #readFromPrimary(Supplier)} pins reads that must see the latest data.
+ * The window belongs to a {@link ReadSession}. Each thread starts with its own,
+ * so a write made in one thread does not move another thread's reads, and work
+ * handed to another thread can carry its caller's session with
+ * {@link #withReadSession(ReadSession, Callable)}.
+ */
 public class DbConnection {
-	private static final String HOST = "localhost";
-	private static final String PASSWORD = "projects";
-	private static final int PORT = 3306;
-	private static final String SCHEMA = "projects";
-	private static final String USER = "projects";
-	
+	public static final String REPLICA_PREFIX = DbConfig.PRIMARY_PREFIX + "replica.";
+
+	private static final LongAdder PRIMARY_READS = Metrics.counter("read.primary");
+	private static final LongAdder REPLICA_READS = Metrics.counter("read.replica");
+
+	/* Run by shutdown() before the pools close. */
+	private static final List<Runnable> SHUTDOWN_TASKS = new CopyOnWriteArrayList<>();
+
+	/* Per thread: the read session in use, and how deep the thread is in readFromPrimary. */
+	private static final ThreadLocal<ReadRouting> ROUTING = ThreadLocal.withInitial(ReadRouting::new);
+
+	/* Lazy holder so the pool is only created when a connection is needed. */
+	private static class Holder {
+		private static final ConnectionPool POOL = new ConnectionPool(DbConfig.load(), DbConnection::recordWrite);
+	}
+
+	private static class ReplicaHolder {
+		private static final DbConfig CONFIG = DbConfig.load(REPLICA_PREFIX);
+
+		/* Null when no replica is configured. */
+		private static final ConnectionPool POOL = Objects.nonNull(CONFIG.get("url", null))
+				|| Objects.nonNull(CONFIG.get("host", null)) ? new ConnectionPool(CONFIG) : null;
+
+		private static final long READ_YOUR_WRITES_NANOS = TimeUnit.MILLISECONDS
+				.toNanos(CONFIG.getLong("readYourWritesMillis", 0L));
+	}
+
+	private static class ReadRouting {
+		private ReadSession session = new ReadSession();
+		private int primaryDepth;
+	}
+
+	/**
+	 * When a caller last committed a write, which decides whether its reads may
+	 * go to the replica. Safe to use from several threads at once.
+	 */
+	public static final class ReadSession {
+		private volatile long lastWriteNanos;
+		private volatile boolean written;
+
+		private ReadSession() {
+		}
+
+		private void recordWrite() {
+			lastWriteNanos = System.nanoTime();
+			written = true;
+		}
+
+		private boolean inReadYourWritesWindow() {
+			return written && System.nanoTime() - lastWriteNanos < ReplicaHolder.READ_YOUR_WRITES_NANOS;
+		}
+	}
+
+	/**
+	 * Returns a connection to the primary database. Use it for writes and for
+	 * reads that are part of a write.
+	 */
 	public static Connection getConnection() {
-		String url = String.format("jdbc:mysql://%s:%d/%s?user=%s&password=%s&useSSL=false", HOST, PORT, SCHEMA, USER, PASSWORD);
-				
 		try {
-			Connection conn = DriverManager.getConnection(url);
-			System.out.println("Connection is successful.");
-			return conn;
+			return Holder.POOL.borrow();
 		} catch (SQLException e) {
 			System.out.println("Error getting connection.");
 			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Returns a connection for reads: the replica if one is configured, unless
+	 * this thread is inside {@link #readFromPrimary(Supplier)} or committed a
+	 * write within the read-your-writes window, in which case it is the primary.
+	 */
+	public static Connection getReadConnection() {
+		if (!readsFromReplica()) {
+			Metrics.increment(PRIMARY_READS);
+			return getConnection();
+		}
+
+		try {
+			Metrics.increment(REPLICA_READS);
+			return ReplicaHolder.POOL.borrow();
+		} catch (SQLException e) {
+			System.out.println("Error getting replica connection.");
+			throw new DbException(e);
+		}
+	}
+
+	private static boolean readsFromReplica() {
+		if (Objects.isNull(ReplicaHolder.POOL)) {
+			return false;
+		}
+
+		ReadRouting routing = ROUTING.get();
+
+		return routing.primaryDepth == 0 && !routing.session.inReadYourWritesWindow();
+	}
+
+	/* Called by the primary pool after each write commit. */
+	private static void recordWrite() {
+		if (Objects.nonNull(ReplicaHolder.POOL) && ReplicaHolder.READ_YOUR_WRITES_NANOS > 0) {
+			ROUTING.get().session.recordWrite();
+		}
+	}
+
+	/**
+	 * Returns the read session of the calling thread, to be passed to
+	 * {@link #withReadSession(ReadSession, Callable)} on another thread.
+	 */
+	public static ReadSession currentReadSession() {
+		return ROUTING.get().session;
+	}
+
+	/**
+	 * Runs the call with the given read session, so its writes open that
+	 * session's read-your-writes window and its reads respect it.
+	 */
+	public static <T> T withReadSession(ReadSession session, Callable<T> call) throws Exception {
+		ReadRouting routing = ROUTING.get();
+		ReadSession previous = routing.session;
+
+		routing.session = session;
+		try {
+			return call.call();
+		} finally {
+			routing.session = previous;
+		}
+	}
+
+	/**
+	 * Runs the given reads against the primary database, whatever the
+	 * read-your-writes window says.
+	 */
+	public static <T> T readFromPrimary(Supplier<T> reads) {
+		ReadRouting routing = ROUTING.get();
+
+		routing.primaryDepth++;
+		try {
+			return reads.get();
+		} finally {
+			routing.primaryDepth--;
+		}
+	}
+
+	/**
+	 * Returns true if reads can go to a replica.
+	 */
+	public static boolean isReplicaConfigured() {
+		return Objects.nonNull(ReplicaHolder.POOL);
+	}
+
+	/**
+	 * Returns the current connection pool statistics.
+	 */
+	public static PoolStats getPoolStats() {
+		return Holder.POOL.getStats();
+	}
+
+	/**
+	 * Returns the replica pool statistics, if there is a replica.
+	 */
+	public static Optional<PoolStats> getReplicaPoolStats() {
+		return Optional.ofNullable(ReplicaHolder.POOL).map(ConnectionPool::getStats);
+	}
+
+	/**
+	 * Registers a task for {@link #shutdown()} to run while connections are still
+	 * available, such as writing out buffered updates.
+	 */
+	public static void addShutdownTask(Runnable task) {
+		SHUTDOWN_TASKS.add(task);
+	}
+
+	public static void removeShutdownTask(Runnable task) {
+		SHUTDOWN_TASKS.remove(task);
+	}
+
+	/**
+	 * Runs the registered shutdown tasks, then closes all pooled connections.
+	 * Call this when the application exits.
+	 */
+	public static void shutdown() {
+		for (Runnable task : SHUTDOWN_TASKS) {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				System.out.println("Shutdown task failed: " + e.getMessage());
+			}
+		}
+
+		Holder.POOL.close();
 
+		if (Objects.nonNull(ReplicaHolder.POOL)) {
+			ReplicaHolder.POOL.close();
 		}
 	}
 }
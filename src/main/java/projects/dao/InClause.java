@@ -0,0 +1,73 @@
+package projects.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds {@code IN (?, ...)} lists in a few fixed sizes. Each list size is a
+ * different SQL text, and every text costs a server-side prepare and a slot in
+ * the connection's {@link StatementCache}, so lists are padded up to the next
+ * size by repeating their last ID. A repeated ID matches the same rows, so the
+ * padding does not change the result.
+ */
+final class InClause {
+	/* The largest size is the most IDs a DAO puts in one list. */
+	private static final int[] SIZES = { 1, 8, 64, 1000 };
+	private static final String[] PLACEHOLDERS = new String[SIZES.length];
+
+	static {
+		for (int index = 0; index < SIZES.length; index++) {
+			PLACEHOLDERS[index] = placeholders(SIZES[index]);
+		}
+	}
+
+	private InClause() {
+	}
+
+	/**
+	 * Returns the placeholder list, with parentheses, for IDs padded by
+	 * {@link #pad(List)}.
+	 */
+	static String placeholders(List<Integer> ids) {
+		int index = sizeIndex(ids.size());
+		return index < 0 ? placeholders(ids.size()) : PLACEHOLDERS[index];
+	}
+
+	/**
+	 * Returns the IDs padded to the size of {@link #placeholders(List)} by
+	 * repeating the last one. The list must not be empty.
+	 */
+	static List<Integer> pad(List<Integer> ids) {
+		int index = sizeIndex(ids.size());
+
+		if (index < 0 || SIZES[index] == ids.size()) {
+			return ids;
+		}
+
+		List<Integer> padded = new ArrayList<>(SIZES[index]);
+		Integer last = ids.get(ids.size() - 1);
+
+		padded.addAll(ids);
+
+		while (padded.size() < SIZES[index]) {
+			padded.add(last);
+		}
+
+		return padded;
+	}
+
+	/* The smallest size that fits, or -1 if the list is larger than all of them. */
+	private static int sizeIndex(int count) {
+		for (int index = 0; index < SIZES.length; index++) {
+			if (count <= SIZES[index]) {
+				return index;
+			}
+		}
+
+		return -1;
+	}
+
+	private static String placeholders(int count) {
+		return "(" + "?, ".repeat(count - 1) + "?)";
+	}
+}
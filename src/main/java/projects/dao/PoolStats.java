@@ -0,0 +1,99 @@
+package projects.dao;
+
+/**
+ * A point-in-time view of the connection pool counters.
+ */
+public class PoolStats {
+	private final int active;
+	private final int idle;
+	private final int waiters;
+	private final long borrowCount;
+	private final long totalWaitNanos;
+	private final long maxWaitNanos;
+	private final long timeoutCount;
+	private final long createdCount;
+	private final long destroyedCount;
+	private final long statementCacheHits;
+	private final long statementCacheMisses;
+
+	PoolStats(int active, int idle, int waiters, long borrowCount, long totalWaitNanos, long maxWaitNanos,
+			long timeoutCount, long createdCount, long destroyedCount, long statementCacheHits,
+			long statementCacheMisses) {
+		this.active = active;
+		this.idle = idle;
+		this.waiters = waiters;
+		this.borrowCount = borrowCount;
+		this.totalWaitNanos = totalWaitNanos;
+		this.maxWaitNanos = maxWaitNanos;
+		this.timeoutCount = timeoutCount;
+		this.createdCount = createdCount;
+		this.destroyedCount = destroyedCount;
+		this.statementCacheHits = statementCacheHits;
+		this.statementCacheMisses = statementCacheMisses;
+	}
+
+	/** Connections currently handed out to callers. */
+	public int getActive() {
+		return active;
+	}
+
+	/** Open connections waiting in the pool. */
+	public int getIdle() {
+		return idle;
+	}
+
+	/** Callers currently blocked waiting for a connection. */
+	public int getWaiters() {
+		return waiters;
+	}
+
+	public long getBorrowCount() {
+		return borrowCount;
+	}
+
+	/** Total time callers have spent waiting to borrow a connection. */
+	public long getTotalWaitNanos() {
+		return totalWaitNanos;
+	}
+
+	public long getMaxWaitNanos() {
+		return maxWaitNanos;
+	}
+
+	/** Number of borrow attempts that gave up after the borrow timeout. */
+	public long getTimeoutCount() {
+		return timeoutCount;
+	}
+
+	public long getCreatedCount() {
+		return createdCount;
+	}
+
+	public long getDestroyedCount() {
+		return destroyedCount;
+	}
+
+	/** prepareStatement calls served by a connection's statement cache. */
+	public long getStatementCacheHits() {
+		return statementCacheHits;
+	}
+
+	/** Cacheable prepareStatement calls that had to prepare a new statement. */
+	public long getStatementCacheMisses() {
+		return statementCacheMisses;
+	}
+
+	/** The fraction of cacheable prepareStatement calls served from the cache. */
+	public double getStatementCacheHitRate() {
+		long lookups = statementCacheHits + statementCacheMisses;
+		return lookups == 0 ? 0 : (double) statementCacheHits / lookups;
+	}
+
+	@Override
+	public String toString() {
+		return "active=" + active + ", idle=" + idle + ", waiters=" + waiters + ", borrows=" + borrowCount
+				+ ", totalWaitMs=" + totalWaitNanos / 1_000_000 + ", maxWaitMs=" + maxWaitNanos / 1_000_000
+				+ ", timeouts=" + timeoutCount + ", created=" + createdCount + ", destroyed=" + destroyedCount
+				+ ", statementCacheHits=" + statementCacheHits + ", statementCacheMisses=" + statementCacheMisses;
+	}
+}
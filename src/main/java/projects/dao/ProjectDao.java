@@ -6,20 +6,41 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.mysql.cj.protocol.Resultset;
 
 import projects.entity.Category;
 import projects.entity.Material;
 import projects.entity.Project;
+import projects.entity.ProjectRollup;
 import projects.entity.Step;
 import projects.exception.DbException;
+import projects.events.ChangeFeed;
+import projects.events.ChangeType;
+import projects.exception.ProjectConflictException;
+import projects.metrics.Metrics;
 import provided.util.DaoBase;
+import provided.util.RowMapper;
 
 /**
  * This class uses JDBC to perform CRUD operations on the project tables.
@@ -30,12 +51,87 @@ public class ProjectDao extends DaoBase {
 	private static final String PROJECT_TABLE = "project";
 	private static final String PROJECT_CATEGORY_TABLE = "project_category";
 	private static final String STEP_TABLE = "step";
+	private static final String IMPORT_CHECKPOINT_TABLE = "import_checkpoint";
+
+	/**
+	 * The distance between the step_order values of consecutive new steps. Moving
+	 * a step gives it a value halfway between its new neighbors, so about ten
+	 * moves into the same spot fit before that project's steps are renumbered.
+	 */
+	public static final int STEP_ORDER_GAP = 1024;
+
+	/* Keeps IN lists well under the driver's limit on the number of parameters. */
+	private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+	/* Rows per executeBatch() call when inserting many rows. */
+	private static final int INSERT_BATCH_SIZE = 1000;
+
+	/* Rows per round trip when streaming. */
+	private static final int STREAM_FETCH_SIZE = 1000;
+
+	private static final LongAdder ROWS_MAPPED = Metrics.counter("rows.mapped");
+
+	/* Keeps the rollup tables in step with every change made here. */
+	private final RollupDao rollupDao = new RollupDao();
+
+	/* Receives an event after each committed change. Null when nobody listens. */
+	private ChangeFeed changeFeed;
+
+	// @formatter:off
+	private static final String INSERT_PROJECT_SQL = ""
+			+ "INSERT INTO " + PROJECT_TABLE + " "
+			+ "(project_name, estimated_hours, actual_hours, difficulty, notes) "
+			+ "VALUES "
+			+ "(?, ?, ?, ?, ?)";
+	// @formatter:on
+
+	// @formatter:off
+	private static final String UPDATE_PROJECT_DETAILS_SQL = ""
+			+ "UPDATE " + PROJECT_TABLE + " SET "
+			+ "project_name = ?, "
+			+ "estimated_hours = ?, "
+			+ "actual_hours = ?, "
+			+ "difficulty = ?, "
+			+ "notes = ?, "
+			+ "version = version + 1 "
+			+ "WHERE project_id = ?";
+	// @formatter:on
+
+	/* Only matches the row if nobody has updated it since the caller read it. */
+	private static final String UPDATE_PROJECT_DETAILS_IF_VERSION_SQL = UPDATE_PROJECT_DETAILS_SQL + " AND version = ?";
+
+	/* Everything but notes, for list views that should not drag TEXT columns along. */
+	private static final String PROJECT_SUMMARY_COLUMNS = "project_id, project_name, estimated_hours, actual_hours, difficulty, version";
+
+	/**
+	 * Publishes an event to the feed after every committed insert, update and
+	 * delete, and a {@link ChangeType#BULK} event after SQL batches and scripts.
+	 * 
+	 * @param changeFeed the feed, or null to stop publishing
+	 */
+	public void setChangeFeed(ChangeFeed changeFeed) {
+		this.changeFeed = changeFeed;
+	}
+
+	private void publish(ChangeType type, Integer projectId, Integer version) {
+		if (Objects.nonNull(changeFeed)) {
+			changeFeed.publish(type, projectId, version);
+		}
+	}
+
+	private void publishInserts(List<Project> projects) {
+		if (Objects.nonNull(changeFeed)) {
+			for (Project project : projects) {
+				changeFeed.publish(ChangeType.INSERT, project.getProjectId(), project.getVersion());
+			}
+		}
+	}
 
 	public Optional<Project> fetchProjectById(Integer projectId) {
 		String sql = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?";
 
-		try (Connection conn = DbConnection.getConnection()) {
-			startTransaction(conn);
+		try (Connection conn = DbConnection.getReadConnection()) {
+			startReadOnlyTransaction(conn);
 
 			try {
 				Project project = null;
@@ -56,6 +152,7 @@ public class ProjectDao extends DaoBase {
 					project.getCategories().addAll(fetchProjectCategories(conn, projectId));
 				}
 
+				commitTransaction(conn);
 				return Optional.ofNullable(project);
 
 			} catch (Exception e) {
@@ -78,31 +175,19 @@ public class ProjectDao extends DaoBase {
 			setParameter(stmt, 1, projectId, Integer.class);
 
 			try (ResultSet rs = stmt.executeQuery()) {
-				List<Category> categories = new LinkedList<>();
-
-				while (rs.next()) {
-					categories.add(extract(rs, Category.class));
-				}
-
-				return categories;
+				return extractAll(rs, Category.class);
 			}
 		}
 	}
 
 	private List<Step> fetchProjectSteps(Connection conn, Integer projectId) throws SQLException {
-		String sql = "SELECT * FROM " + STEP_TABLE + " WHERE project_id = ?";
+		String sql = "SELECT * FROM " + STEP_TABLE + " WHERE project_id = ? ORDER BY step_order";
 
 		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 			setParameter(stmt, 1, projectId, Integer.class);
 
 			try (ResultSet rs = stmt.executeQuery()) {
-				List<Step> steps = new LinkedList<>();
-
-				while (rs.next()) {
-					steps.add(extract(rs, Step.class));
-				}
-
-				return steps;
+				return extractAll(rs, Step.class);
 			}
 		}
 
@@ -115,13 +200,7 @@ public class ProjectDao extends DaoBase {
 			setParameter(stmt, 1, projectId, Integer.class);
 
 			try (ResultSet rs = stmt.executeQuery()) {
-				List<Material> materials = new LinkedList<Material>();
-
-				while (rs.next()) {
-					materials.add(extract(rs, Material.class));
-				}
-
-				return materials;
+				return extractAll(rs, Material.class);
 			}
 		}
 
@@ -135,17 +214,14 @@ public class ProjectDao extends DaoBase {
 	public List<Project> fetchAllProjects() {
 		String sql = "SELECT * FROM " + PROJECT_TABLE + " ORDER BY project_name";
 
-		try (Connection conn = DbConnection.getConnection()) {
-			startTransaction(conn);
+		try (Connection conn = DbConnection.getReadConnection()) {
+			startReadOnlyTransaction(conn);
 
 			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 				try (ResultSet rs = stmt.executeQuery()) {
-					List<Project> projects = new LinkedList<>();
-
-					while (rs.next()) {
-						projects.add(extract(rs, Project.class));
-					}
+					List<Project> projects = extractAll(rs, Project.class);
 
+					commitTransaction(conn);
 					return projects;
 				}
 			} catch (Exception e) {
@@ -157,32 +233,57 @@ public class ProjectDao extends DaoBase {
 		}
 	}
 
-	public Project insertProject(Project project) {
+	/**
+	 * Returns one page of projects ordered by name, then ID. Pages are found by
+	 * seeking past the last (name, ID) of the previous page rather than with an
+	 * OFFSET, so every page costs the same no matter how deep it is. Notes,
+	 * materials, steps and categories are not included.
+	 * 
+	 * @param pageToken the token from the previous page, or null for the first page
+	 * @param pageSize  the maximum number of projects to return
+	 * @return the page
+	 */
+	public ProjectPage fetchProjectPage(String pageToken, int pageSize) {
+		if (pageSize < 1) {
+			throw new DbException("Page size must be at least 1.");
+		}
+
 		// @formatter:off
 		String sql = ""
-			+ "INSERT INTO " + PROJECT_TABLE + " "
-			+ "(project_name, estimated_hours, actual_hours, difficulty, notes) "
-			+ "VALUES "
-			+ "(?, ?, ?, ?, ?)";
-		//@formatter:on
+				+ "SELECT " + PROJECT_SUMMARY_COLUMNS + " FROM " + PROJECT_TABLE + " "
+				+ (Objects.isNull(pageToken) ? "" : "WHERE project_name >= ? AND (project_name > ? OR project_id > ?) ")
+				+ "ORDER BY project_name, project_id LIMIT ?";
+		// @formatter:on
 
-		try (Connection conn = DbConnection.getConnection()) {
-			startTransaction(conn);
+		try (Connection conn = DbConnection.getReadConnection()) {
+			startReadOnlyTransaction(conn);
 
 			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-				setParameter(stmt, 1, project.getProjectName(), String.class);
-				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
-				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
-				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
-				setParameter(stmt, 5, project.getNotes(), String.class);
+				int index = 1;
 
-				stmt.executeUpdate();
+				if (Objects.nonNull(pageToken)) {
+					Project after = ProjectPage.decodeToken(pageToken);
 
-				Integer projectId = getLastInsertId(conn, PROJECT_TABLE);
-				commitTransaction(conn);
+					setParameter(stmt, index++, after.getProjectName(), String.class);
+					setParameter(stmt, index++, after.getProjectName(), String.class);
+					setParameter(stmt, index++, after.getProjectId(), Integer.class);
+				}
 
-				project.setProjectId(projectId);
-				return project;
+				/* Read one extra row to find out if there is another page. */
+				setParameter(stmt, index, pageSize + 1, Integer.class);
+
+				try (ResultSet rs = stmt.executeQuery()) {
+					List<Project> projects = extractAll(rs, Project.class);
+					String nextPageToken = null;
+
+					if (projects.size() > pageSize) {
+						projects.remove(pageSize);
+						nextPageToken = ProjectPage.encodeToken(projects.get(pageSize - 1));
+					}
+
+					commitTransaction(conn);
+					return new ProjectPage(projects, nextPageToken);
+				}
 			} catch (Exception e) {
 				rollbackTransaction(conn);
 				throw new DbException(e);
@@ -192,16 +293,116 @@ public class ProjectDao extends DaoBase {
 		}
 	}
 
-	public void executeBatch(List<String> sqlBatch) {
-		try (Connection conn = DbConnection.getConnection()) {
-			startTransaction(conn);
+	/**
+	 * Streams all project rows ordered by ID without holding the table in memory.
+	 * Rows are fetched from the server {@value #STREAM_FETCH_SIZE} at a time (the
+	 * MySQL URL enables cursor fetch for this). Materials, steps and categories are
+	 * not included.
+	 * 
+	 * The stream holds a database connection until it is closed, so it must be
+	 * used in a try-with-resources block.
+	 * 
+	 * @return the stream of projects
+	 */
+	public Stream<Project> streamAllProjects() {
+		return streamProjects("*");
+	}
 
-			try (Statement stmt = conn.createStatement()) {
-				for (String sql : sqlBatch) {
-					stmt.addBatch(sql);
+	/**
+	 * Streams every project row ordered by ID like {@link #streamAllProjects()},
+	 * but without the notes column. The stream must be closed.
+	 * 
+	 * @return the stream of projects
+	 */
+	public Stream<Project> streamProjectSummaries() {
+		return streamProjects(PROJECT_SUMMARY_COLUMNS);
+	}
+
+	private Stream<Project> streamProjects(String columns) {
+		String sql = "SELECT " + columns + " FROM " + PROJECT_TABLE + " ORDER BY project_id";
+
+		Connection conn = DbConnection.getReadConnection();
+		PreparedStatement stmt = null;
+
+		try {
+			/* Closing the connection ends the transaction. */
+			startReadOnlyTransaction(conn);
+
+			stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			stmt.setFetchSize(STREAM_FETCH_SIZE);
+
+			ResultSet rs = stmt.executeQuery();
+			RowMapper<Project> mapper = rowMapper(rs, Project.class);
+
+			Spliterator<Project> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+					Spliterator.ORDERED | Spliterator.NONNULL) {
+				@Override
+				public boolean tryAdvance(Consumer<? super Project> action) {
+					try {
+						if (!rs.next()) {
+							return false;
+						}
+
+						Metrics.increment(ROWS_MAPPED);
+						action.accept(mapper.map(rs));
+						return true;
+					} catch (SQLException e) {
+						throw new DbException(e);
+					}
+				}
+			};
+
+			return StreamSupport.stream(rows, false).onClose(closer(rs, stmt, conn));
+
+		} catch (Exception e) {
+			closer(stmt, conn).run();
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Reads every piece of searchable project text in one transaction, streaming
+	 * each table {@value #STREAM_FETCH_SIZE} rows at a time so that the full graphs
+	 * are never held in memory. Project names and notes each go to their own
+	 * consumer; step text, material names and category names go to the text
+	 * consumer. Null values are skipped.
+	 * 
+	 * @param names receives (project ID, project name)
+	 * @param notes receives (project ID, notes)
+	 * @param text  receives (project ID, text) for the searchable child columns
+	 */
+	public void forEachProjectText(BiConsumer<Integer, String> names, BiConsumer<Integer, String> notes,
+			BiConsumer<Integer, String> text) {
+		// @formatter:off
+		String projectSql = "SELECT project_id, project_name, notes FROM " + PROJECT_TABLE;
+		String stepSql = "SELECT project_id, step_text FROM " + STEP_TABLE;
+		String materialSql = "SELECT project_id, material_name FROM " + MATERIAL_TABLE;
+		String categorySql = ""
+				+ "SELECT pc.project_id, c.category_name "
+				+ "FROM " + PROJECT_CATEGORY_TABLE + " pc "
+				+ "JOIN " + CATEGORY_TABLE + " c USING (category_id)";
+		// @formatter:on
+
+		try (Connection conn = DbConnection.getReadConnection()) {
+			startReadOnlyTransaction(conn);
+
+			try {
+				try (PreparedStatement stmt = prepareForStreaming(conn, projectSql);
+						ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						accept(names, rs.getInt(1), rs.getString(2));
+						accept(notes, rs.getInt(1), rs.getString(3));
+					}
+				}
+
+				for (String sql : List.of(stepSql, materialSql, categorySql)) {
+					try (PreparedStatement stmt = prepareForStreaming(conn, sql); ResultSet rs = stmt.executeQuery()) {
+						while (rs.next()) {
+							accept(text, rs.getInt(1), rs.getString(2));
+						}
+					}
 				}
 
-				stmt.executeBatch();
 				commitTransaction(conn);
 			} catch (Exception e) {
 				rollbackTransaction(conn);
@@ -209,37 +410,64 @@ public class ProjectDao extends DaoBase {
 			}
 		} catch (SQLException e) {
 			throw new DbException(e);
-
 		}
 	}
 
-	public boolean modifyProjectDetails(Project project) {
+	/**
+	 * Passes every project graph, with materials, steps and categories, to the
+	 * action in project ID order, holding only one graph in memory at a time. The
+	 * four tables are each read with one query ordered by project ID, streamed
+	 * {@value #STREAM_FETCH_SIZE} rows at a time in the same read-only
+	 * transaction, and merged as they are read.
+	 * 
+	 * @param action receives each project
+	 * @return the number of projects read
+	 */
+	public long forEachProjectGraph(Consumer<Project> action) {
 		// @formatter:off
-		String sql = ""
-				+ "UPDATE " + PROJECT_TABLE + " SET "
-				+ "project_name = ?, "
-				+ "estimated_hours = ?, "
-				+ "actual_hours = ?, "
-				+ "difficulty = ?, "
-				+ "notes = ? "
-				+ "WHERE project_id = ?";
-		//@formatter:on
+		String projectSql = "SELECT * FROM " + PROJECT_TABLE + " ORDER BY project_id";
+		String materialSql = "SELECT * FROM " + MATERIAL_TABLE + " ORDER BY project_id, material_id";
+		String stepSql = "SELECT * FROM " + STEP_TABLE + " ORDER BY project_id, step_order";
+		String categorySql = ""
+				+ "SELECT pc.project_id, c.* FROM " + PROJECT_CATEGORY_TABLE + " pc "
+				+ "JOIN " + CATEGORY_TABLE + " c USING (category_id) "
+				+ "ORDER BY pc.project_id, c.category_id";
+		// @formatter:on
 
-		try (Connection conn = DbConnection.getConnection()) {
-			startTransaction(conn);
+		try (Connection conn = DbConnection.getReadConnection()) {
+			startReadOnlyTransaction(conn);
+
+			try (PreparedStatement projectStmt = prepareForStreaming(conn, projectSql);
+					PreparedStatement materialStmt = prepareForStreaming(conn, materialSql);
+					PreparedStatement stepStmt = prepareForStreaming(conn, stepSql);
+					PreparedStatement categoryStmt = prepareForStreaming(conn, categorySql);
+					ResultSet rs = projectStmt.executeQuery();
+					ResultSet materialRs = materialStmt.executeQuery();
+					ResultSet stepRs = stepStmt.executeQuery();
+					ResultSet categoryRs = categoryStmt.executeQuery()) {
+				RowMapper<Project> mapper = rowMapper(rs, Project.class);
+				ChildRows<Material> materials = new ChildRows<>(materialRs, Material.class);
+				ChildRows<Step> steps = new ChildRows<>(stepRs, Step.class);
+				ChildRows<Category> categories = new ChildRows<>(categoryRs, Category.class);
+				long count = 0;
+
+				while (rs.next()) {
+					Metrics.increment(ROWS_MAPPED);
+
+					Project project = mapper.map(rs);
+					int projectId = project.getProjectId();
+
+					materials.addTo(projectId, project.getMaterials());
+					steps.addTo(projectId, project.getSteps());
+					categories.addTo(projectId, project.getCategories());
+
+					action.accept(project);
+					count++;
+				}
 
-			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-				setParameter(stmt, 1, project.getProjectName(), String.class);
-				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
-				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
-				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
-				setParameter(stmt, 5, project.getNotes(), String.class);
-				setParameter(stmt, 6, project.getProjectId(), Integer.class);
-
-				boolean modified = stmt.executeUpdate() == 1;
 				commitTransaction(conn);
+				return count;
 
-				return modified;
 			} catch (Exception e) {
 				rollbackTransaction(conn);
 				throw new DbException(e);
@@ -249,27 +477,1056 @@ public class ProjectDao extends DaoBase {
 		}
 	}
 
-	public boolean deleteProject(Integer projectId) {
-		String sql = "DELETE FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+	/**
+	 * Child rows ordered by project ID, taken one project at a time.
+	 */
+	private class ChildRows<T> {
+		private final ResultSet rs;
+		private final RowMapper<T> mapper;
+		private boolean hasRow;
+
+		ChildRows(ResultSet rs, Class<T> classType) throws SQLException {
+			this.rs = rs;
+			this.mapper = rowMapper(rs, classType);
+			this.hasRow = rs.next();
+		}
+
+		/* Adds the rows of the project to the list, skipping any rows before it. */
+		void addTo(int projectId, List<T> children) throws SQLException {
+			int rowProjectId;
+
+			while (hasRow && (rowProjectId = rs.getInt("project_id")) <= projectId) {
+				if (rowProjectId == projectId) {
+					Metrics.increment(ROWS_MAPPED);
+					children.add(mapper.map(rs));
+				}
+
+				hasRow = rs.next();
+			}
+		}
+	}
+
+	private PreparedStatement prepareForStreaming(Connection conn, String sql) throws SQLException {
+		PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		stmt.setFetchSize(STREAM_FETCH_SIZE);
+		return stmt;
+	}
+
+	private static void accept(BiConsumer<Integer, String> consumer, int projectId, String value) {
+		if (Objects.nonNull(value)) {
+			consumer.accept(projectId, value);
+		}
+	}
+
+	/**
+	 * Returns a task that closes the given resources in order, ignoring nulls.
+	 */
+	private Runnable closer(AutoCloseable... resources) {
+		return () -> {
+			DbException failure = null;
+
+			for (AutoCloseable resource : resources) {
+				try {
+					if (Objects.nonNull(resource)) {
+						resource.close();
+					}
+				} catch (Exception e) {
+					failure = Objects.isNull(failure) ? new DbException(e) : failure;
+				}
+			}
+
+			if (Objects.nonNull(failure)) {
+				throw failure;
+			}
+		};
+	}
+
+	/**
+	 * Returns the projects with the given IDs, including materials, steps and
+	 * categories. Each table is read with one {@code WHERE project_id IN (...)}
+	 * query per chunk of {@value #IN_CLAUSE_CHUNK_SIZE} IDs, and the children are
+	 * attached to their projects in memory. Chunks are padded to a few fixed
+	 * sizes (see {@link InClause}) so the statements are reused. IDs that do not
+	 * exist are skipped.
+	 * 
+	 * @param projectIds the project IDs
+	 * @return the projects, in the order the IDs were given
+	 */
+	public List<Project> fetchProjectsByIds(Collection<Integer> projectIds) {
+		List<Integer> ids = projectIds.stream().filter(Objects::nonNull).distinct().toList();
+
+		try (Connection conn = DbConnection.getReadConnection()) {
+			startReadOnlyTransaction(conn);
+
+			try {
+				Map<Integer, Project> projects = new HashMap<>();
+
+				for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+					List<Integer> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size()));
+
+					fetchProjectGraphs(conn, InClause.placeholders(chunk), InClause.pad(chunk), projects);
+				}
+
+				commitTransaction(conn);
+				return ids.stream().map(projects::get).filter(Objects::nonNull)
+						.collect(Collectors.toCollection(ArrayList::new));
+
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Returns all projects including materials, steps and categories, using one
+	 * query per table.
+	 * 
+	 * @return the projects, ordered by name
+	 */
+	public List<Project> fetchAllProjectGraphs() {
+		try (Connection conn = DbConnection.getReadConnection()) {
+			startReadOnlyTransaction(conn);
+
+			try {
+				Map<Integer, Project> projects = new LinkedHashMap<>();
+
+				fetchProjectGraphs(conn, null, List.of(), projects);
+				commitTransaction(conn);
+				return new ArrayList<>(projects.values());
+
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Reads the projects whose IDs are in the ID list into the map, then reads the
+	 * children of those projects and attaches them. If the ID list is null, all
+	 * projects are read.
+	 */
+	private void fetchProjectGraphs(Connection conn, String idList, List<Integer> ids, Map<Integer, Project> projects)
+			throws SQLException {
+		String where = Objects.isNull(idList) ? "" : "WHERE project_id IN " + idList;
+		String pcWhere = Objects.isNull(idList) ? "" : "WHERE pc.project_id IN " + idList;
+
+		// @formatter:off
+		String projectSql = "SELECT * FROM " + PROJECT_TABLE + " " + where + " ORDER BY project_name";
+		String materialSql = "SELECT * FROM " + MATERIAL_TABLE + " " + where + " ORDER BY project_id, material_id";
+		String stepSql = "SELECT * FROM " + STEP_TABLE + " " + where + " ORDER BY project_id, step_order";
+		String categorySql = ""
+				+ "SELECT pc.project_id, c.* FROM " + PROJECT_CATEGORY_TABLE + " pc "
+				+ "JOIN " + CATEGORY_TABLE + " c USING (category_id) "
+				+ pcWhere + " "
+				+ "ORDER BY pc.project_id, c.category_id";
+		// @formatter:on
+
+		try (PreparedStatement stmt = prepareWithIds(conn, projectSql, ids); ResultSet rs = stmt.executeQuery()) {
+			for (Project project : extractAll(rs, Project.class)) {
+				projects.put(project.getProjectId(), project);
+			}
+		}
+
+		try (PreparedStatement stmt = prepareWithIds(conn, materialSql, ids); ResultSet rs = stmt.executeQuery()) {
+			for (Material material : extractAll(rs, Material.class)) {
+				Project project = projects.get(material.getProjectId());
+
+				if (Objects.nonNull(project)) {
+					project.getMaterials().add(material);
+				}
+			}
+		}
+
+		try (PreparedStatement stmt = prepareWithIds(conn, stepSql, ids); ResultSet rs = stmt.executeQuery()) {
+			for (Step step : extractAll(rs, Step.class)) {
+				Project project = projects.get(step.getProjectId());
+
+				if (Objects.nonNull(project)) {
+					project.getSteps().add(step);
+				}
+			}
+		}
+
+		try (PreparedStatement stmt = prepareWithIds(conn, categorySql, ids); ResultSet rs = stmt.executeQuery()) {
+			RowMapper<Category> mapper = rowMapper(rs, Category.class);
+
+			while (rs.next()) {
+				/* Category has no project ID, so read it from the first column. */
+				Project project = projects.get(rs.getInt(1));
+
+				if (Objects.nonNull(project)) {
+					Metrics.increment(ROWS_MAPPED);
+					project.getCategories().add(mapper.map(rs));
+				}
+			}
+		}
+	}
+
+	private PreparedStatement prepareWithIds(Connection conn, String sql, List<Integer> ids) throws SQLException {
+		PreparedStatement stmt = conn.prepareStatement(sql);
+
+		try {
+			for (int index = 0; index < ids.size(); index++) {
+				setParameter(stmt, index + 1, ids.get(index), Integer.class);
+			}
+
+			return stmt;
+		} catch (SQLException e) {
+			stmt.close();
+			throw e;
+		}
+	}
 
+	public Project insertProject(Project project) {
 		try (Connection conn = DbConnection.getConnection()) {
 			startTransaction(conn);
 
-			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-				setParameter(stmt, 1, projectId, Integer.class);
-				
-				boolean deleted = stmt.executeUpdate() == 1;
-				
+			try (PreparedStatement stmt = conn.prepareStatement(INSERT_PROJECT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+				setProjectParameters(stmt, project);
+
+				stmt.executeUpdate();
+
+				project.setProjectId(getGeneratedId(stmt));
+				project.setVersion(0);
+				rollupDao.addProjects(conn, List.of(project), List.of());
 				commitTransaction(conn);
-				return deleted;
-			} 
-			catch (Exception e) {
+				publish(ChangeType.INSERT, project.getProjectId(), project.getVersion());
+
+				return project;
+			} catch (Exception e) {
 				rollbackTransaction(conn);
 				throw new DbException(e);
 			}
 		} catch (SQLException e) {
 			throw new DbException(e);
-
 		}
 	}
+
+	/**
+	 * Inserts the projects (not their children) in JDBC batches of
+	 * {@value #INSERT_BATCH_SIZE} in a single transaction and sets the generated
+	 * project ID on each one. With {@code rewriteBatchedStatements} the MySQL
+	 * driver sends each batch as one multi-row INSERT.
+	 * 
+	 * @param projects the projects to insert
+	 * @return the same list, with IDs filled in
+	 */
+	public List<Project> insertProjects(List<Project> projects) {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(INSERT_PROJECT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+				insertProjects(stmt, projects);
+				rollupDao.addProjects(conn, projects, List.of());
+				commitTransaction(conn);
+				publishInserts(projects);
+
+				return projects;
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Batch-inserts the projects with the given statement, which must be prepared
+	 * from {@link #INSERT_PROJECT_SQL} with generated keys, and sets their IDs.
+	 */
+	private void insertProjects(PreparedStatement stmt, List<Project> projects) throws SQLException {
+		for (int from = 0; from < projects.size(); from += INSERT_BATCH_SIZE) {
+			List<Project> batch = projects.subList(from, Math.min(from + INSERT_BATCH_SIZE, projects.size()));
+
+			for (Project project : batch) {
+				setProjectParameters(stmt, project);
+				stmt.addBatch();
+			}
+
+			stmt.executeBatch();
+			List<Integer> ids = getGeneratedIds(stmt);
+
+			if (ids.size() != batch.size()) {
+				throw new SQLException("Expected " + batch.size() + " generated keys but got " + ids.size());
+			}
+
+			for (int index = 0; index < batch.size(); index++) {
+				batch.get(index).setProjectId(ids.get(index));
+				batch.get(index).setVersion(0);
+			}
+		}
+	}
+
+	private void setProjectParameters(PreparedStatement stmt, Project project) throws SQLException {
+		setParameter(stmt, 1, project.getProjectName(), String.class);
+		setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
+		setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
+		setParameter(stmt, 4, project.getDifficulty(), Integer.class);
+		setParameter(stmt, 5, project.getNotes(), String.class);
+	}
+
+	/**
+	 * Appends the steps to the end of the project's steps. The project row is
+	 * locked and the highest step_order is read in one statement, then all the
+	 * steps are inserted in one batch with step_order values
+	 * {@value #STEP_ORDER_GAP} apart. The step IDs, project IDs and orders are set
+	 * on the steps. An empty list is returned as is, without touching the
+	 * database.
+	 * 
+	 * @param projectId the project to add the steps to
+	 * @param steps     the steps, in the order they should appear
+	 * @return the steps
+	 * @throws DbException if the project does not exist, or if the steps do not
+	 *                     fit below the largest step_order even after renumbering
+	 */
+	public List<Step> insertSteps(Integer projectId, List<Step> steps) {
+		if (steps.isEmpty()) {
+			return steps;
+		}
+
+		// @formatter:off
+		String lastOrderSql = ""
+				+ "SELECT (SELECT COALESCE(MAX(step_order), 0) FROM " + STEP_TABLE + " WHERE project_id = ?) "
+				+ "FROM " + PROJECT_TABLE + " WHERE project_id = ? FOR UPDATE";
+		String insertSql = ""
+				+ "INSERT INTO " + STEP_TABLE + " "
+				+ "(project_id, step_text, step_order) "
+				+ "VALUES (?, ?, ?)";
+		// @formatter:on
+
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try {
+				long lastOrder;
+
+				try (PreparedStatement stmt = conn.prepareStatement(lastOrderSql)) {
+					setParameter(stmt, 1, projectId, Integer.class);
+					setParameter(stmt, 2, projectId, Integer.class);
+
+					try (ResultSet rs = stmt.executeQuery()) {
+						if (!rs.next()) {
+							throw new DbException("Project with ID=" + projectId + " does not exist.");
+						}
+
+						lastOrder = rs.getLong(1);
+					}
+				}
+
+				if (lastOrder + (long) STEP_ORDER_GAP * steps.size() > Integer.MAX_VALUE) {
+					lastOrder = renumberSteps(conn, projectId);
+
+					if (lastOrder + (long) STEP_ORDER_GAP * steps.size() > Integer.MAX_VALUE) {
+						throw new DbException("Project " + projectId + " has no room for " + steps.size() + " more steps.");
+					}
+				}
+
+				for (int index = 0; index < steps.size(); index++) {
+					Step step = steps.get(index);
+
+					step.setProjectId(projectId);
+					step.setStepOrder((int) (lastOrder + (long) STEP_ORDER_GAP * (index + 1)));
+				}
+
+				try (PreparedStatement stmt = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+					for (Step step : steps) {
+						setParameter(stmt, 1, step.getProjectId(), Integer.class);
+						setParameter(stmt, 2, step.getStepText(), String.class);
+						setParameter(stmt, 3, step.getStepOrder(), Integer.class);
+						stmt.addBatch();
+					}
+
+					stmt.executeBatch();
+					List<Integer> ids = getGeneratedIds(stmt);
+
+					if (ids.size() != steps.size()) {
+						throw new DbException("Expected " + steps.size() + " generated step IDs but got " + ids.size() + ".");
+					}
+
+					for (int index = 0; index < steps.size(); index++) {
+						steps.get(index).setStepId(ids.get(index));
+					}
+				}
+
+				commitTransaction(conn);
+				publish(ChangeType.UPDATE, projectId, null);
+				return steps;
+
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Moves a step so that it directly follows another step of the same project.
+	 * Only the moved step's row is updated: it gets a step_order halfway between
+	 * its new neighbors. If there is no room between them, the project's steps are
+	 * renumbered {@value #STEP_ORDER_GAP} apart first.
+	 * 
+	 * @param projectId   the project that owns the steps
+	 * @param stepId      the step to move
+	 * @param afterStepId the step it should follow, or null to make it the first
+	 *                    step
+	 * @return true if the step was moved, false if it does not belong to the
+	 *         project
+	 */
+	public boolean moveStep(Integer projectId, Integer stepId, Integer afterStepId) {
+		// @formatter:off
+		String lockSql = "SELECT project_id FROM " + PROJECT_TABLE + " WHERE project_id = ? FOR UPDATE";
+		String nextOrderSql = ""
+				+ "SELECT MIN(step_order) FROM " + STEP_TABLE + " "
+				+ "WHERE project_id = ? AND step_order > ? AND step_id <> ?";
+		String updateSql = "UPDATE " + STEP_TABLE + " SET step_order = ? WHERE step_id = ? AND project_id = ?";
+		// @formatter:on
+
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try {
+				try (PreparedStatement stmt = conn.prepareStatement(lockSql)) {
+					setParameter(stmt, 1, projectId, Integer.class);
+
+					try (ResultSet rs = stmt.executeQuery()) {
+						if (!rs.next()) {
+							throw new DbException("Project with ID=" + projectId + " does not exist.");
+						}
+					}
+				}
+
+				Integer newOrder = null;
+
+				for (int attempt = 0; attempt < 2 && Objects.isNull(newOrder); attempt++) {
+					int afterOrder = Objects.isNull(afterStepId) ? 0 : fetchStepOrder(conn, projectId, afterStepId);
+					Integer nextOrder = null;
+
+					try (PreparedStatement stmt = conn.prepareStatement(nextOrderSql)) {
+						setParameter(stmt, 1, projectId, Integer.class);
+						setParameter(stmt, 2, afterOrder, Integer.class);
+						setParameter(stmt, 3, stepId, Integer.class);
+
+						try (ResultSet rs = stmt.executeQuery()) {
+							if (rs.next()) {
+								nextOrder = rs.getObject(1, Integer.class);
+							}
+						}
+					}
+
+					/* Both branches leave room for a step_order strictly between the neighbors. */
+					if (Objects.isNull(nextOrder) && afterOrder < Integer.MAX_VALUE) {
+						newOrder = (int) Math.min((long) afterOrder + STEP_ORDER_GAP, Integer.MAX_VALUE);
+					} else if (Objects.nonNull(nextOrder) && nextOrder - afterOrder > 1) {
+						newOrder = afterOrder + (nextOrder - afterOrder) / 2;
+					} else {
+						renumberSteps(conn, projectId);
+					}
+				}
+
+				if (Objects.isNull(newOrder)) {
+					throw new DbException("No step_order is free after step " + afterStepId + " in project " + projectId
+							+ ", even after renumbering.");
+				}
+
+				try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+					setParameter(stmt, 1, newOrder, Integer.class);
+					setParameter(stmt, 2, stepId, Integer.class);
+					setParameter(stmt, 3, projectId, Integer.class);
+
+					boolean moved = stmt.executeUpdate() == 1;
+
+					commitTransaction(conn);
+
+					if (moved) {
+						publish(ChangeType.UPDATE, projectId, null);
+					}
+
+					return moved;
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	private int fetchStepOrder(Connection conn, Integer projectId, Integer stepId) throws SQLException {
+		String sql = "SELECT step_order FROM " + STEP_TABLE + " WHERE step_id = ? AND project_id = ?";
+
+		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+			setParameter(stmt, 1, stepId, Integer.class);
+			setParameter(stmt, 2, projectId, Integer.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				if (!rs.next()) {
+					throw new DbException("Step with ID=" + stepId + " does not belong to project " + projectId + ".");
+				}
+
+				return rs.getInt(1);
+			}
+		}
+	}
+
+	/**
+	 * Spaces the project's steps {@value #STEP_ORDER_GAP} apart, keeping their
+	 * order. The caller must hold the project row lock.
+	 * 
+	 * @return the new highest step_order
+	 */
+	private long renumberSteps(Connection conn, Integer projectId) throws SQLException {
+		String selectSql = "SELECT step_id FROM " + STEP_TABLE + " WHERE project_id = ? ORDER BY step_order, step_id";
+		String updateSql = "UPDATE " + STEP_TABLE + " SET step_order = ? WHERE step_id = ?";
+		List<Integer> stepIds = new ArrayList<>();
+
+		try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+			setParameter(stmt, 1, projectId, Integer.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					stepIds.add(rs.getInt(1));
+				}
+			}
+		}
+
+		if ((long) STEP_ORDER_GAP * (stepIds.size() + 1) > Integer.MAX_VALUE) {
+			throw new DbException("Project " + projectId + " has too many steps to renumber.");
+		}
+
+		try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+			for (int index = 0; index < stepIds.size(); index++) {
+				setParameter(stmt, 1, STEP_ORDER_GAP * (index + 1), Integer.class);
+				setParameter(stmt, 2, stepIds.get(index), Integer.class);
+				stmt.addBatch();
+			}
+
+			stmt.executeBatch();
+		}
+
+		return (long) STEP_ORDER_GAP * stepIds.size();
+	}
+
+	/**
+	 * Returns every category.
+	 */
+	public List<Category> fetchAllCategories() {
+		String sql = "SELECT * FROM " + CATEGORY_TABLE + " ORDER BY category_id";
+
+		try (Connection conn = DbConnection.getReadConnection()) {
+			startReadOnlyTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+				try (ResultSet rs = stmt.executeQuery()) {
+					List<Category> categories = extractAll(rs, Category.class);
+
+					commitTransaction(conn);
+					return categories;
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Returns the number of input records already committed by the import with
+	 * the given key, or zero if it has not committed anything.
+	 */
+	public long fetchImportCheckpoint(String importKey) {
+		String sql = "SELECT records_committed FROM " + IMPORT_CHECKPOINT_TABLE + " WHERE import_key = ?";
+
+		/* Always the primary: a lagging replica would make a resumed import repeat records. */
+		try (Connection conn = DbConnection.getConnection()) {
+			startReadOnlyTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+				setParameter(stmt, 1, importKey, String.class);
+
+				try (ResultSet rs = stmt.executeQuery()) {
+					long committed = rs.next() ? rs.getLong(1) : 0;
+
+					commitTransaction(conn);
+					return committed;
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Removes the checkpoint of a finished import.
+	 */
+	public void deleteImportCheckpoint(String importKey) {
+		String sql = "DELETE FROM " + IMPORT_CHECKPOINT_TABLE + " WHERE import_key = ?";
+
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+				setParameter(stmt, 1, importKey, String.class);
+
+				stmt.executeUpdate();
+				commitTransaction(conn);
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Returns the key that category names are matched by. Category names are
+	 * unique under the database collation, which ignores case, so "Woodworking"
+	 * and "woodworking" are the same category. Names that differ only in ways
+	 * the collation also ignores, such as accents, get different keys but are
+	 * matched to the same category by the database when they are imported.
+	 */
+	public static String categoryKey(String categoryName) {
+		return categoryName.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Inserts full project graphs in one transaction using batched statements
+	 * per table, and records the import checkpoint in the same transaction so a
+	 * resumed import never inserts a project twice. Project IDs are set on the
+	 * projects and their children.
+	 * 
+	 * Categories that are not in the map are inserted unless the database
+	 * already has them, possibly from a concurrent import, and their IDs are read
+	 * back, so a name never fails on the unique category name index.
+	 * 
+	 * @param projects         the projects with materials, steps and categories
+	 * @param categoryIds      category IDs by {@link #categoryKey(String)}.
+	 *                         Categories that are not in the map are created or
+	 *                         looked up, and the map is updated once the
+	 *                         transaction commits.
+	 * @param importKey        identifies the import
+	 * @param recordsCommitted the total number of input records committed once
+	 *                         this transaction commits
+	 */
+	public void importProjectGraphs(List<Project> projects, Map<String, Integer> categoryIds, String importKey,
+			long recordsCommitted) {
+		// @formatter:off
+		String materialSql = ""
+				+ "INSERT INTO " + MATERIAL_TABLE + " "
+				+ "(project_id, material_name, num_required, cost) "
+				+ "VALUES (?, ?, ?, ?)";
+		String stepSql = ""
+				+ "INSERT INTO " + STEP_TABLE + " "
+				+ "(project_id, step_text, step_order) "
+				+ "VALUES (?, ?, ?)";
+		String categorySql = "INSERT IGNORE INTO " + CATEGORY_TABLE + " (category_name) VALUES (?)";
+		String categoryIdSql = "SELECT category_id FROM " + CATEGORY_TABLE + " WHERE category_name = ? FOR UPDATE";
+		String projectCategorySql = "INSERT INTO " + PROJECT_CATEGORY_TABLE + " (project_id, category_id) VALUES (?, ?)";
+		String checkpointSql = ""
+				+ "INSERT INTO " + IMPORT_CHECKPOINT_TABLE + " (import_key, records_committed) VALUES (?, ?) "
+				+ "ON DUPLICATE KEY UPDATE records_committed = ?, updated_at = CURRENT_TIMESTAMP";
+		// @formatter:on
+
+		for (Project project : projects) {
+			for (Category category : project.getCategories()) {
+				if (Objects.isNull(category.getCategoryName())) {
+					throw new DbException("Project " + project.getProjectName() + " has a category without a name.");
+				}
+			}
+		}
+
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try {
+				try (PreparedStatement stmt = conn.prepareStatement(INSERT_PROJECT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+					insertProjects(stmt, projects);
+				}
+
+				List<Material> materials = new ArrayList<>();
+				List<Step> steps = new ArrayList<>();
+
+				/* Sorted, so concurrent imports lock new category names in the same order. */
+				Map<String, String> newCategoryNames = new TreeMap<>();
+				Map<String, Integer> newCategoryIds = new HashMap<>();
+
+				for (Project project : projects) {
+					project.getMaterials().forEach(material -> material.setProjectId(project.getProjectId()));
+					project.getSteps().forEach(step -> step.setProjectId(project.getProjectId()));
+					materials.addAll(project.getMaterials());
+					steps.addAll(project.getSteps());
+
+					for (Category category : project.getCategories()) {
+						String key = categoryKey(category.getCategoryName());
+
+						if (!categoryIds.containsKey(key)) {
+							newCategoryNames.putIfAbsent(key, category.getCategoryName());
+						}
+					}
+				}
+
+				try (PreparedStatement stmt = conn.prepareStatement(materialSql)) {
+					executeInBatches(stmt, materials, (batchStmt, material) -> {
+						setParameter(batchStmt, 1, material.getProjectId(), Integer.class);
+						setParameter(batchStmt, 2, material.getMaterialName(), String.class);
+						setParameter(batchStmt, 3, material.getNumRequired(), Integer.class);
+						setParameter(batchStmt, 4, material.getCost(), BigDecimal.class);
+					});
+				}
+
+				try (PreparedStatement stmt = conn.prepareStatement(stepSql)) {
+					executeInBatches(stmt, steps, (batchStmt, step) -> {
+						setParameter(batchStmt, 1, step.getProjectId(), Integer.class);
+						setParameter(batchStmt, 2, step.getStepText(), String.class);
+						setParameter(batchStmt, 3, step.getStepOrder(), Integer.class);
+					});
+				}
+
+				if (!newCategoryNames.isEmpty()) {
+					try (PreparedStatement stmt = conn.prepareStatement(categorySql)) {
+						for (String name : newCategoryNames.values()) {
+							setParameter(stmt, 1, name, String.class);
+							stmt.addBatch();
+						}
+
+						stmt.executeBatch();
+					}
+
+					/* A locking read sees rows committed by other imports since this transaction began. */
+					try (PreparedStatement stmt = conn.prepareStatement(categoryIdSql)) {
+						for (Map.Entry<String, String> entry : newCategoryNames.entrySet()) {
+							setParameter(stmt, 1, entry.getValue(), String.class);
+
+							try (ResultSet rs = stmt.executeQuery()) {
+								if (!rs.next()) {
+									throw new DbException("Category " + entry.getValue() + " could not be created.");
+								}
+
+								newCategoryIds.put(entry.getKey(), rs.getInt(1));
+							}
+						}
+					}
+				}
+
+				List<int[]> links = new ArrayList<>();
+
+				for (Project project : projects) {
+					project.getCategories().stream().map(category -> categoryKey(category.getCategoryName()))
+							.map(key -> categoryIds.getOrDefault(key, newCategoryIds.get(key))).distinct()
+							.forEach(categoryId -> links.add(new int[] { project.getProjectId(), categoryId }));
+				}
+
+				try (PreparedStatement stmt = conn.prepareStatement(projectCategorySql)) {
+					executeInBatches(stmt, links, (batchStmt, link) -> {
+						setParameter(batchStmt, 1, link[0], Integer.class);
+						setParameter(batchStmt, 2, link[1], Integer.class);
+					});
+				}
+
+				rollupDao.addProjects(conn, projects, links);
+
+				try (PreparedStatement stmt = conn.prepareStatement(checkpointSql)) {
+					setParameter(stmt, 1, importKey, String.class);
+					stmt.setLong(2, recordsCommitted);
+					stmt.setLong(3, recordsCommitted);
+					stmt.executeUpdate();
+				}
+
+				commitTransaction(conn);
+				categoryIds.putAll(newCategoryIds);
+				publishInserts(projects);
+
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Binds the parameters for one row of a batched statement.
+	 */
+	@FunctionalInterface
+	private interface ParameterBinder<T> {
+		void bind(PreparedStatement stmt, T row) throws SQLException;
+	}
+
+	/**
+	 * Adds each row to the statement's batch and executes it every
+	 * {@value #INSERT_BATCH_SIZE} rows.
+	 */
+	private <T> void executeInBatches(PreparedStatement stmt, List<T> rows, ParameterBinder<T> binder)
+			throws SQLException {
+		int pending = 0;
+
+		for (T row : rows) {
+			binder.bind(stmt, row);
+			stmt.addBatch();
+
+			if (++pending == INSERT_BATCH_SIZE) {
+				stmt.executeBatch();
+				pending = 0;
+			}
+		}
+
+		if (pending > 0) {
+			stmt.executeBatch();
+		}
+	}
+
+	public void executeBatch(List<String> sqlBatch) {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (Statement stmt = conn.createStatement()) {
+				for (String sql : sqlBatch) {
+					stmt.addBatch(sql);
+				}
+
+				stmt.executeBatch();
+				commitTransaction(conn);
+				publish(ChangeType.BULK, null, null);
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+
+		}
+	}
+
+	/**
+	 * Executes the statements on one connection, sending them in batches of the
+	 * given size and committing after each batch. Statements are pulled from the
+	 * iterator as they are needed, so a script of any length runs in constant
+	 * memory. If a batch fails it is rolled back, but earlier batches stay
+	 * committed (MySQL also commits DDL statements implicitly).
+	 * 
+	 * @param statements the statements to run
+	 * @param batchSize  the number of statements per batch and transaction
+	 */
+	public void executeScript(Iterator<String> statements, int batchSize) {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (Statement stmt = conn.createStatement()) {
+				int pending = 0;
+
+				while (statements.hasNext()) {
+					stmt.addBatch(statements.next());
+
+					if (++pending == batchSize) {
+						stmt.executeBatch();
+						commitTransaction(conn);
+						publish(ChangeType.BULK, null, null);
+						pending = 0;
+					}
+				}
+
+				if (pending > 0) {
+					stmt.executeBatch();
+					commitTransaction(conn);
+					publish(ChangeType.BULK, null, null);
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Updates a project's details and increments its version. If the project has
+	 * a version, the update is conditional: it only succeeds if the stored version
+	 * is still the same, so a concurrent change is detected instead of being
+	 * overwritten. No lock is held between reading the project and updating it.
+	 * On success the project's version is set to the new version.
+	 * 
+	 * @param project the new details, with the version that was read, or a null
+	 *                version to overwrite unconditionally
+	 * @return true if the project was updated, false if it does not exist
+	 * @throws ProjectConflictException if the stored version is different
+	 */
+	public boolean modifyProjectDetails(Project project) {
+		boolean conditional = Objects.nonNull(project.getVersion());
+		Integer currentVersion = null;
+
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(
+					conditional ? UPDATE_PROJECT_DETAILS_IF_VERSION_SQL : UPDATE_PROJECT_DETAILS_SQL)) {
+				ProjectRollup rollup = rollupDao.lockProjectRollup(conn, project.getProjectId());
+
+				setDetailParameters(stmt, project);
+
+				if (conditional) {
+					setParameter(stmt, 7, project.getVersion(), Integer.class);
+				}
+
+				if (stmt.executeUpdate() == 1) {
+					rollupDao.updateHours(conn, rollup, project);
+					commitTransaction(conn);
+
+					if (conditional) {
+						project.setVersion(project.getVersion() + 1);
+					}
+
+					publish(ChangeType.UPDATE, project.getProjectId(), project.getVersion());
+					return true;
+				}
+
+				currentVersion = conditional ? fetchVersion(conn, project.getProjectId()) : null;
+				rollbackTransaction(conn);
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+
+		if (Objects.nonNull(currentVersion)) {
+			throw new ProjectConflictException(project.getProjectId(), project.getVersion(), currentVersion);
+		}
+
+		return false;
+	}
+
+	/* Returns the project's version, or null if it does not exist. */
+	private Integer fetchVersion(Connection conn, Integer projectId) throws SQLException {
+		String sql = "SELECT version FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+
+		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+			setParameter(stmt, 1, projectId, Integer.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				return rs.next() ? rs.getInt(1) : null;
+			}
+		}
+	}
+
+	/**
+	 * Updates the details of many projects in one transaction with a single JDBC
+	 * batch. Rows are locked in project ID order, so concurrent batches cannot
+	 * deadlock on each other. Versions are not checked, but each one is
+	 * incremented. Projects that do not exist are skipped.
+	 * 
+	 * @param projects the projects, at most one per ID
+	 * @return the number of projects that were updated
+	 */
+	public int modifyProjectDetails(Collection<Project> projects) {
+		List<Project> sorted = projects.stream().sorted(Comparator.comparing(Project::getProjectId)).toList();
+
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(UPDATE_PROJECT_DETAILS_SQL)) {
+				Map<Integer, ProjectRollup> rollups = rollupDao.lockProjectRollups(conn,
+						sorted.stream().map(Project::getProjectId).toList());
+
+				for (Project project : sorted) {
+					setDetailParameters(stmt, project);
+					stmt.addBatch();
+				}
+
+				int[] counts = stmt.executeBatch();
+				List<Project> modified = new ArrayList<>();
+
+				for (int index = 0; index < counts.length; index++) {
+					if (counts[index] != 0) {
+						modified.add(sorted.get(index));
+					}
+				}
+
+				rollupDao.updateHours(conn, rollups, modified);
+				commitTransaction(conn);
+
+				for (Project project : modified) {
+					publish(ChangeType.UPDATE, project.getProjectId(), null);
+				}
+
+				return modified.size();
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	private void setDetailParameters(PreparedStatement stmt, Project project) throws SQLException {
+		setParameter(stmt, 1, project.getProjectName(), String.class);
+		setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
+		setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
+		setParameter(stmt, 4, project.getDifficulty(), Integer.class);
+		setParameter(stmt, 5, project.getNotes(), String.class);
+		setParameter(stmt, 6, project.getProjectId(), Integer.class);
+	}
+
+	public boolean deleteProject(Integer projectId) {
+		String sql = "DELETE FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+				rollupDao.removeProject(conn, rollupDao.lockProjectRollup(conn, projectId));
+				setParameter(stmt, 1, projectId, Integer.class);
+				
+				boolean deleted = stmt.executeUpdate() == 1;
+				
+				commitTransaction(conn);
+
+				if (deleted) {
+					publish(ChangeType.DELETE, projectId, null);
+				}
+
+				return deleted;
+			} 
+			catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+
+		}
+	}
+
+	/* Counts mapped rows when metrics are on. */
+	@Override
+	protected <T> T extract(ResultSet rs, Class<T> classType) {
+		Metrics.increment(ROWS_MAPPED);
+		return super.extract(rs, classType);
+	}
+
+	@Override
+	protected <T> List<T> extractAll(ResultSet rs, Class<T> classType) throws SQLException {
+		List<T> rows = super.extractAll(rs, classType);
+
+		Metrics.add(ROWS_MAPPED, rows.size());
+		return rows;
+	}
 }
@@ -0,0 +1,64 @@
+package projects.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+
+import projects.entity.Project;
+import projects.exception.DbException;
+
+/**
+ * One page of projects ordered by name and ID, plus the token to pass back to
+ * get the next page.
+ */
+public class ProjectPage {
+	private final List<Project> projects;
+	private final String nextPageToken;
+
+	ProjectPage(List<Project> projects, String nextPageToken) {
+		this.projects = projects;
+		this.nextPageToken = nextPageToken;
+	}
+
+	public List<Project> getProjects() {
+		return projects;
+	}
+
+	/**
+	 * Returns the token for the next page, or null if this is the last page.
+	 */
+	public String getNextPageToken() {
+		return nextPageToken;
+	}
+
+	public boolean hasNextPage() {
+		return Objects.nonNull(nextPageToken);
+	}
+
+	/**
+	 * Encodes the sort key of the last project on a page. The token is opaque to
+	 * callers.
+	 */
+	static String encodeToken(Project last) {
+		String key = last.getProjectId() + ":" + last.getProjectName();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodes a token into the project ID and project name it was built from.
+	 */
+	static Project decodeToken(String token) {
+		try {
+			String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int colon = key.indexOf(':');
+
+			Project project = new Project();
+			project.setProjectId(Integer.valueOf(key.substring(0, colon)));
+			project.setProjectName(key.substring(colon + 1));
+			return project;
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new DbException("Invalid page token: " + token, e);
+		}
+	}
+}
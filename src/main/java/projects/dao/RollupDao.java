@@ -0,0 +1,490 @@
+package projects.dao;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import projects.entity.CategoryRollup;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.ProjectRollup;
+import projects.exception.DbException;
+import provided.util.DaoBase;
+
+/**
+ * Reads and maintains the project_rollup and category_rollup summary tables.
+ *
+ * {@link ProjectDao} calls the package-private methods inside its own
+ * transactions, so a rollup always commits or rolls back with the change it
+ * describes. Each change costs one or two statements no matter how many
+ * materials the project has: the project's row is written directly and the
+ * rows of its categories are adjusted by the difference. Changes that bypass
+ * ProjectDao (such as SQL scripts) are repaired by {@link #rebuildRollups()}.
+ */
+public class RollupDao extends DaoBase {
+	private static final String PROJECT_ROLLUP_TABLE = "project_rollup";
+	private static final String CATEGORY_ROLLUP_TABLE = "category_rollup";
+
+	/* Keeps IN lists well under the driver's limit on the number of parameters. */
+	private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+	// @formatter:off
+	private static final String REBUILD_PROJECT_ROLLUPS_SQL = ""
+			+ "INSERT INTO " + PROJECT_ROLLUP_TABLE + " "
+			+ "(project_id, material_count, material_cost, estimated_hours, actual_hours) "
+			+ "SELECT p.project_id, COUNT(m.material_id), COALESCE(SUM(m.num_required * m.cost), 0), "
+			+ "p.estimated_hours, p.actual_hours "
+			+ "FROM project p "
+			+ "LEFT JOIN material m ON m.project_id = p.project_id "
+			+ "GROUP BY p.project_id, p.estimated_hours, p.actual_hours";
+	private static final String REBUILD_CATEGORY_ROLLUPS_SQL = ""
+			+ "INSERT INTO " + CATEGORY_ROLLUP_TABLE + " "
+			+ "(category_id, project_count, material_cost, estimated_hours, actual_hours, hours_variance) "
+			+ "SELECT pc.category_id, COUNT(*), SUM(r.material_cost), COALESCE(SUM(r.estimated_hours), 0), "
+			+ "COALESCE(SUM(r.actual_hours), 0), COALESCE(SUM(r.actual_hours - r.estimated_hours), 0) "
+			+ "FROM project_category pc "
+			+ "JOIN " + PROJECT_ROLLUP_TABLE + " r ON r.project_id = pc.project_id "
+			+ "GROUP BY pc.category_id";
+	private static final String ADJUST_CATEGORY_ROLLUPS_SQL = ""
+			+ "UPDATE " + CATEGORY_ROLLUP_TABLE + " SET "
+			+ "project_count = project_count + ?, "
+			+ "material_cost = material_cost + ?, "
+			+ "estimated_hours = estimated_hours + ?, "
+			+ "actual_hours = actual_hours + ?, "
+			+ "hours_variance = hours_variance + ? "
+			+ "WHERE category_id IN (SELECT category_id FROM project_category WHERE project_id = ?)";
+	// @formatter:on
+
+	/**
+	 * Returns the rollup for one project, or empty if there is no such project.
+	 */
+	public Optional<ProjectRollup> fetchProjectRollup(Integer projectId) {
+		// @formatter:off
+		String sql = ""
+				+ "SELECT r.*, p.project_name "
+				+ "FROM " + PROJECT_ROLLUP_TABLE + " r "
+				+ "JOIN project p ON p.project_id = r.project_id "
+				+ "WHERE r.project_id = ?";
+		// @formatter:on
+
+		try (Connection conn = DbConnection.getReadConnection()) {
+			startReadOnlyTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+				setParameter(stmt, 1, projectId, Integer.class);
+
+				try (ResultSet rs = stmt.executeQuery()) {
+					Optional<ProjectRollup> rollup = rs.next() ? Optional.of(extract(rs, ProjectRollup.class))
+							: Optional.empty();
+
+					commitTransaction(conn);
+					return rollup;
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Returns the rollup of every category ordered by name. Categories without
+	 * projects have zero totals.
+	 */
+	public List<CategoryRollup> fetchCategoryRollups() {
+		// @formatter:off
+		String sql = ""
+				+ "SELECT c.category_id, c.category_name, "
+				+ "COALESCE(r.project_count, 0) AS project_count, "
+				+ "COALESCE(r.material_cost, 0) AS material_cost, "
+				+ "COALESCE(r.estimated_hours, 0) AS estimated_hours, "
+				+ "COALESCE(r.actual_hours, 0) AS actual_hours, "
+				+ "COALESCE(r.hours_variance, 0) AS hours_variance "
+				+ "FROM category c "
+				+ "LEFT JOIN " + CATEGORY_ROLLUP_TABLE + " r ON r.category_id = c.category_id "
+				+ "ORDER BY c.category_name";
+		// @formatter:on
+
+		try (Connection conn = DbConnection.getReadConnection()) {
+			startReadOnlyTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+				try (ResultSet rs = stmt.executeQuery()) {
+					List<CategoryRollup> rollups = extractAll(rs, CategoryRollup.class);
+
+					commitTransaction(conn);
+					return rollups;
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Returns the totals over every project, summed from the narrow
+	 * project_rollup rows rather than the material table. The category ID and
+	 * name are null.
+	 */
+	public CategoryRollup fetchRollupTotals() {
+		// @formatter:off
+		String sql = ""
+				+ "SELECT COUNT(*) AS project_count, "
+				+ "COALESCE(SUM(material_cost), 0) AS material_cost, "
+				+ "COALESCE(SUM(estimated_hours), 0) AS estimated_hours, "
+				+ "COALESCE(SUM(actual_hours), 0) AS actual_hours, "
+				+ "COALESCE(SUM(actual_hours - estimated_hours), 0) AS hours_variance "
+				+ "FROM " + PROJECT_ROLLUP_TABLE;
+		// @formatter:on
+
+		try (Connection conn = DbConnection.getReadConnection()) {
+			startReadOnlyTransaction(conn);
+
+			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+				try (ResultSet rs = stmt.executeQuery()) {
+					rs.next();
+
+					CategoryRollup totals = extract(rs, CategoryRollup.class);
+
+					commitTransaction(conn);
+					return totals;
+				}
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Recomputes both rollup tables from the project, material and category rows
+	 * in one transaction. Use this to repair drift after changes made outside
+	 * ProjectDao. The aggregate reads every material row, and on MySQL it holds
+	 * locks that make concurrent writers wait until it commits.
+	 *
+	 * @return the number of project rollups written
+	 */
+	public int rebuildRollups() {
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			try (Statement stmt = conn.createStatement()) {
+				stmt.executeUpdate("DELETE FROM " + CATEGORY_ROLLUP_TABLE);
+				stmt.executeUpdate("DELETE FROM " + PROJECT_ROLLUP_TABLE);
+
+				int projects = stmt.executeUpdate(REBUILD_PROJECT_ROLLUPS_SQL);
+
+				stmt.executeUpdate(REBUILD_CATEGORY_ROLLUPS_SQL);
+				commitTransaction(conn);
+
+				return projects;
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Writes the rollups of newly inserted projects and adds them to their
+	 * categories' rollups. The projects must have their IDs set; their materials
+	 * are summed in memory.
+	 *
+	 * @param conn          the connection the projects were inserted on
+	 * @param projects      the new projects
+	 * @param categoryLinks the new (project ID, category ID) pairs
+	 */
+	void addProjects(Connection conn, List<Project> projects, List<int[]> categoryLinks) throws SQLException {
+		// @formatter:off
+		String projectSql = ""
+				+ "INSERT INTO " + PROJECT_ROLLUP_TABLE + " "
+				+ "(project_id, material_count, material_cost, estimated_hours, actual_hours) "
+				+ "VALUES (?, ?, ?, ?, ?)";
+		String categorySql = ""
+				+ "INSERT INTO " + CATEGORY_ROLLUP_TABLE + " "
+				+ "(category_id, project_count, material_cost, estimated_hours, actual_hours, hours_variance) "
+				+ "VALUES (?, ?, ?, ?, ?, ?) "
+				+ "ON DUPLICATE KEY UPDATE "
+				+ "project_count = project_count + ?, "
+				+ "material_cost = material_cost + ?, "
+				+ "estimated_hours = estimated_hours + ?, "
+				+ "actual_hours = actual_hours + ?, "
+				+ "hours_variance = hours_variance + ?";
+		// @formatter:on
+
+		Map<Integer, Totals> byProject = new TreeMap<>();
+
+		try (PreparedStatement stmt = conn.prepareStatement(projectSql)) {
+			for (Project project : projects) {
+				Totals totals = Totals.of(project);
+
+				setParameter(stmt, 1, project.getProjectId(), Integer.class);
+				setParameter(stmt, 2, project.getMaterials().size(), Integer.class);
+				setParameter(stmt, 3, totals.materialCost, BigDecimal.class);
+				setParameter(stmt, 4, project.getEstimatedHours(), BigDecimal.class);
+				setParameter(stmt, 5, project.getActualHours(), BigDecimal.class);
+				stmt.addBatch();
+
+				byProject.put(project.getProjectId(), totals);
+			}
+
+			stmt.executeBatch();
+		}
+
+		if (categoryLinks.isEmpty()) {
+			return;
+		}
+
+		/* Sorted by ID so concurrent imports lock shared category rows in the same order. */
+		Map<Integer, Totals> byCategory = new TreeMap<>();
+
+		for (int[] link : categoryLinks) {
+			byCategory.computeIfAbsent(link[1], id -> new Totals()).add(byProject.get(link[0]), 1);
+		}
+
+		try (PreparedStatement stmt = conn.prepareStatement(categorySql)) {
+			for (Map.Entry<Integer, Totals> entry : byCategory.entrySet()) {
+				Totals totals = entry.getValue();
+
+				setParameter(stmt, 1, entry.getKey(), Integer.class);
+				setTotals(stmt, 2, totals);
+				setTotals(stmt, 7, totals);
+				stmt.addBatch();
+			}
+
+			stmt.executeBatch();
+		}
+	}
+
+	/**
+	 * Locks and reads a project's rollup row. Callers lock it before the project
+	 * row so that updates and deletes of the same project take their locks in the
+	 * same order.
+	 *
+	 * @return the rollup, or null if the project has none
+	 */
+	ProjectRollup lockProjectRollup(Connection conn, Integer projectId) throws SQLException {
+		String sql = "SELECT * FROM " + PROJECT_ROLLUP_TABLE + " WHERE project_id = ? FOR UPDATE";
+
+		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+			setParameter(stmt, 1, projectId, Integer.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				return rs.next() ? extract(rs, ProjectRollup.class) : null;
+			}
+		}
+	}
+
+	/**
+	 * Locks and reads the rollup rows of many projects, {@value #IN_CLAUSE_CHUNK_SIZE}
+	 * IDs per query, padded to a few fixed sizes (see {@link InClause}). Pass the
+	 * IDs in ascending order so that concurrent callers lock rows in the same
+	 * order.
+	 *
+	 * @return the rollups by project ID; projects without one are left out
+	 */
+	Map<Integer, ProjectRollup> lockProjectRollups(Connection conn, List<Integer> projectIds) throws SQLException {
+		Map<Integer, ProjectRollup> rollups = new HashMap<>();
+
+		for (int from = 0; from < projectIds.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+			List<Integer> chunk = InClause.pad(
+					projectIds.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, projectIds.size())));
+
+			// @formatter:off
+			String sql = ""
+					+ "SELECT * FROM " + PROJECT_ROLLUP_TABLE + " "
+					+ "WHERE project_id IN " + InClause.placeholders(chunk) + " "
+					+ "ORDER BY project_id FOR UPDATE";
+			// @formatter:on
+
+			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+				for (int index = 0; index < chunk.size(); index++) {
+					setParameter(stmt, index + 1, chunk.get(index), Integer.class);
+				}
+
+				try (ResultSet rs = stmt.executeQuery()) {
+					for (ProjectRollup rollup : extractAll(rs, ProjectRollup.class)) {
+						rollups.put(rollup.getProjectId(), rollup);
+					}
+				}
+			}
+		}
+
+		return rollups;
+	}
+
+	/**
+	 * Records a project's new hours and moves its categories' totals by the
+	 * difference.
+	 *
+	 * @param old     the rollup read by {@link #lockProjectRollup}, or null
+	 * @param project the project with its new hours
+	 */
+	void updateHours(Connection conn, ProjectRollup old, Project project) throws SQLException {
+		if (Objects.nonNull(old)) {
+			updateHours(conn, Map.of(project.getProjectId(), old), List.of(project));
+		}
+	}
+
+	/**
+	 * Records the new hours of many projects with one batch per table. Projects
+	 * without an old rollup are skipped.
+	 *
+	 * @param old      the rollups read by {@link #lockProjectRollups}
+	 * @param projects the projects with their new hours
+	 */
+	void updateHours(Connection conn, Map<Integer, ProjectRollup> old, List<Project> projects) throws SQLException {
+		String sql = "UPDATE " + PROJECT_ROLLUP_TABLE + " SET estimated_hours = ?, actual_hours = ? WHERE project_id = ?";
+
+		try (PreparedStatement rollupStmt = conn.prepareStatement(sql);
+				PreparedStatement categoryStmt = conn.prepareStatement(ADJUST_CATEGORY_ROLLUPS_SQL)) {
+			int categoryBatch = 0;
+
+			for (Project project : projects) {
+				ProjectRollup rollup = old.get(project.getProjectId());
+
+				if (Objects.isNull(rollup)) {
+					continue;
+				}
+
+				setParameter(rollupStmt, 1, project.getEstimatedHours(), BigDecimal.class);
+				setParameter(rollupStmt, 2, project.getActualHours(), BigDecimal.class);
+				setParameter(rollupStmt, 3, project.getProjectId(), Integer.class);
+				rollupStmt.addBatch();
+
+				Totals delta = new Totals();
+
+				delta.addHours(project.getEstimatedHours(), project.getActualHours(), 1);
+				delta.addHours(rollup.getEstimatedHours(), rollup.getActualHours(), -1);
+
+				if (!delta.isZero()) {
+					setTotals(categoryStmt, 1, delta);
+					setParameter(categoryStmt, 6, project.getProjectId(), Integer.class);
+					categoryStmt.addBatch();
+					categoryBatch++;
+				}
+			}
+
+			rollupStmt.executeBatch();
+
+			if (categoryBatch > 0) {
+				categoryStmt.executeBatch();
+			}
+		}
+	}
+
+	/**
+	 * Takes a project out of its categories' totals. Call this before deleting the
+	 * project; the delete then cascades to its rollup row.
+	 *
+	 * @param old the rollup read by {@link #lockProjectRollup}, or null
+	 */
+	void removeProject(Connection conn, ProjectRollup old) throws SQLException {
+		if (Objects.nonNull(old)) {
+			Totals delta = new Totals();
+
+			delta.add(Totals.of(old), -1);
+			adjustCategories(conn, old.getProjectId(), delta);
+		}
+	}
+
+	private void adjustCategories(Connection conn, Integer projectId, Totals delta) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement(ADJUST_CATEGORY_ROLLUPS_SQL)) {
+			setTotals(stmt, 1, delta);
+			setParameter(stmt, 6, projectId, Integer.class);
+			stmt.executeUpdate();
+		}
+	}
+
+	private void setTotals(PreparedStatement stmt, int index, Totals totals) throws SQLException {
+		stmt.setLong(index, totals.projectCount);
+		setParameter(stmt, index + 1, totals.materialCost, BigDecimal.class);
+		setParameter(stmt, index + 2, totals.estimatedHours, BigDecimal.class);
+		setParameter(stmt, index + 3, totals.actualHours, BigDecimal.class);
+		setParameter(stmt, index + 4, totals.hoursVariance, BigDecimal.class);
+	}
+
+	/**
+	 * Running totals, or the difference to apply to a category rollup row.
+	 */
+	private static class Totals {
+		private long projectCount;
+		private BigDecimal materialCost = BigDecimal.ZERO;
+		private BigDecimal estimatedHours = BigDecimal.ZERO;
+		private BigDecimal actualHours = BigDecimal.ZERO;
+		private BigDecimal hoursVariance = BigDecimal.ZERO;
+
+		/* One project: its material cost is the sum of num_required * cost, skipping nulls as SUM() does. */
+		static Totals of(Project project) {
+			Totals totals = new Totals();
+
+			for (Material material : project.getMaterials()) {
+				if (Objects.nonNull(material.getNumRequired()) && Objects.nonNull(material.getCost())) {
+					totals.materialCost = totals.materialCost
+							.add(material.getCost().multiply(BigDecimal.valueOf(material.getNumRequired())));
+				}
+			}
+
+			totals.projectCount = 1;
+			totals.addHours(project.getEstimatedHours(), project.getActualHours(), 1);
+			return totals;
+		}
+
+		static Totals of(ProjectRollup rollup) {
+			Totals totals = new Totals();
+
+			totals.projectCount = 1;
+			totals.materialCost = rollup.getMaterialCost();
+			totals.addHours(rollup.getEstimatedHours(), rollup.getActualHours(), 1);
+			return totals;
+		}
+
+		void add(Totals other, int sign) {
+			projectCount += sign * other.projectCount;
+			materialCost = materialCost.add(signed(other.materialCost, sign));
+			estimatedHours = estimatedHours.add(signed(other.estimatedHours, sign));
+			actualHours = actualHours.add(signed(other.actualHours, sign));
+			hoursVariance = hoursVariance.add(signed(other.hoursVariance, sign));
+		}
+
+		void addHours(BigDecimal estimated, BigDecimal actual, int sign) {
+			estimatedHours = estimatedHours.add(signed(estimated, sign));
+			actualHours = actualHours.add(signed(actual, sign));
+
+			if (Objects.nonNull(estimated) && Objects.nonNull(actual)) {
+				hoursVariance = hoursVariance.add(signed(actual.subtract(estimated), sign));
+			}
+		}
+
+		boolean isZero() {
+			return projectCount == 0 && materialCost.signum() == 0 && estimatedHours.signum() == 0
+					&& actualHours.signum() == 0 && hoursVariance.signum() == 0;
+		}
+
+		private static BigDecimal signed(BigDecimal value, int sign) {
+			if (Objects.isNull(value)) {
+				return BigDecimal.ZERO;
+			}
+
+			return sign < 0 ? value.negate() : value;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package projects.dao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logs statements that take longer than a threshold, with their SQL, bound
+ * parameters, row count and elapsed time. Statements are handed to a background
+ * thread through a bounded queue, so logging never blocks the caller; if the
+ * queue is full the entry is dropped and counted.
+ * 
+ * <p>
+ * The settings share the {@code projects.db.} prefix:
+ * <ul>
+ * <li>{@code slowQuery.thresholdMillis} statements at least this slow are
+ * logged. A negative value (the default) turns the log off.</li>
+ * <li>{@code slowQuery.explain} also runs {@code EXPLAIN} on each logged
+ * statement with the same parameters and logs the plan.</li>
+ * <li>{@code slowQuery.logFile} appends to this file instead of printing.</li>
+ * <li>{@code slowQuery.queueCapacity} entries waiting to be written.</li>
+ * </ul>
+ */
+public class SlowQueryLog {
+	private static final SlowQueryLog INSTANCE = new SlowQueryLog(DbConfig.load());
+	private static final int MAX_PARAMETER_LENGTH = 200;
+
+	private final long thresholdNanos;
+	private final boolean explain;
+	private final String logFile;
+	private final BlockingQueue<Entry> queue;
+	private final LongAdder dropped = new LongAdder();
+	private final Thread writer;
+
+	private SlowQueryLog(DbConfig config) {
+		long thresholdMillis = config.getLong("slowQuery.thresholdMillis", -1);
+
+		this.thresholdNanos = thresholdMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		this.explain = config.getBoolean("slowQuery.explain", false);
+		this.logFile = config.get("slowQuery.logFile", null);
+		this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getInt("slowQuery.queueCapacity", 1000)));
+
+		if (thresholdNanos >= 0) {
+			writer = new Thread(this::drain, "slow-query-log");
+			writer.setDaemon(true);
+			writer.start();
+		} else {
+			writer = null;
+		}
+	}
+
+	static SlowQueryLog get() {
+		return INSTANCE;
+	}
+
+	boolean isEnabled() {
+		return thresholdNanos >= 0 && Thread.currentThread() != writer;
+	}
+
+	boolean isSlow(long elapsedNanos) {
+		return thresholdNanos >= 0 && elapsedNanos >= thresholdNanos;
+	}
+
+	/**
+	 * Returns the number of entries dropped because the queue was full.
+	 */
+	public static long getDroppedCount() {
+		return INSTANCE.dropped.sum();
+	}
+
+	/**
+	 * Queues a slow statement for logging without waiting.
+	 * 
+	 * @param sql          the statement text
+	 * @param parameters   the bound parameters by index, starting at 1
+	 * @param batchSize    the number of batched parameter sets, or zero
+	 * @param rows         rows read or affected
+	 * @param elapsedNanos the execution time
+	 */
+	void log(String sql, List<Object> parameters, int batchSize, long rows, long elapsedNanos) {
+		if (!queue.offer(new Entry(Instant.now(), sql, parameters, batchSize, rows, elapsedNanos))) {
+			dropped.increment();
+		}
+	}
+
+	private void drain() {
+		while (true) {
+			try {
+				write(format(queue.take()));
+			} catch (InterruptedException e) {
+				return;
+			} catch (RuntimeException e) {
+				System.out.println("Unable to write the slow query log: " + e.getMessage());
+			}
+		}
+	}
+
+	private String format(Entry entry) {
+		StringBuilder line = new StringBuilder();
+
+		line.append(entry.time).append(" slow query ")
+				.append(String.format(Locale.ROOT, "%.3f", entry.elapsedNanos / 1_000_000.0)).append(" ms, rows=")
+				.append(entry.rows);
+
+		if (entry.batchSize > 0) {
+			line.append(", batch=").append(entry.batchSize);
+		}
+
+		line.append(": ").append(entry.sql);
+		line.append(System.lineSeparator()).append("  parameters: ").append(formatParameters(entry.parameters));
+
+		if (entry.batchSize > 0) {
+			line.append(" (last in batch)");
+		}
+
+		line.append(System.lineSeparator());
+
+		if (explain && entry.batchSize == 0 && isExplainable(entry.sql)) {
+			line.append(explain(entry));
+		}
+
+		return line.toString();
+	}
+
+	private static String formatParameters(List<Object> parameters) {
+		StringBuilder text = new StringBuilder("[");
+
+		for (int index = 0; index < parameters.size(); index++) {
+			Object value = parameters.get(index);
+			String shown = value instanceof String ? "'" + value + "'" : String.valueOf(value);
+
+			if (shown.length() > MAX_PARAMETER_LENGTH) {
+				shown = shown.substring(0, MAX_PARAMETER_LENGTH) + "...";
+			}
+
+			text.append(index == 0 ? "" : ", ").append(shown);
+		}
+
+		return text.append(']').toString();
+	}
+
+	private static boolean isExplainable(String sql) {
+		String verb = sql.stripLeading().split("\\s", 2)[0].toUpperCase(Locale.ROOT);
+		return List.of("SELECT", "INSERT", "UPDATE", "DELETE", "REPLACE").contains(verb);
+	}
+
+	/*
+	 * Runs on the writer thread, whose own statements are never logged, so this
+	 * cannot feed back into the queue.
+	 */
+	private String explain(Entry entry) {
+		StringBuilder plan = new StringBuilder("  plan:").append(System.lineSeparator());
+
+		try (Connection conn = DbConnection.getConnection();
+				PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + entry.sql)) {
+			for (int index = 0; index < entry.parameters.size(); index++) {
+				stmt.setObject(index + 1, entry.parameters.get(index));
+			}
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				ResultSetMetaData meta = rs.getMetaData();
+
+				while (rs.next()) {
+					plan.append("   ");
+
+					for (int column = 1; column <= meta.getColumnCount(); column++) {
+						plan.append(' ').append(meta.getColumnLabel(column)).append('=').append(rs.getString(column));
+					}
+
+					plan.append(System.lineSeparator());
+				}
+			}
+		} catch (SQLException | RuntimeException e) {
+			plan.append("    unavailable: ").append(e.getMessage()).append(System.lineSeparator());
+		}
+
+		return plan.toString();
+	}
+
+	private void write(String text) {
+		if (Objects.isNull(logFile)) {
+			System.out.print(text);
+			return;
+		}
+
+		try {
+			Files.writeString(Path.of(logFile), text, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			System.out.println("Unable to write to " + logFile + ": " + e.getMessage());
+		}
+	}
+
+	private static class Entry {
+		private final Instant time;
+		private final String sql;
+		private final List<Object> parameters;
+		private final int batchSize;
+		private final long rows;
+		private final long elapsedNanos;
+
+		Entry(Instant time, String sql, List<Object> parameters, int batchSize, long rows, long elapsedNanos) {
+			this.time = time;
+			this.sql = sql;
+			this.parameters = parameters;
+			this.batchSize = batchSize;
+			this.rows = rows;
+			this.elapsedNanos = elapsedNanos;
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package projects.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import projects.exception.DbException;
+
+/**
+ * Reads SQL statements from a script one at a time, in a single pass and
+ * without holding more than the current statement in memory. It understands:
+ * <ul>
+ * <li>{@code ;} as the end of a statement.</li>
+ * <li>Quoted strings and identifiers ({@code '...'}, {@code "..."} and
+ * {@code `...`}), including backslash escapes and doubled quotes. Semicolons
+ * and comment markers inside quotes are kept as text.</li>
+ * <li>{@code -- } and {@code #} comments to the end of the line, and
+ * {@code /* ... *}{@code /} comments. Comments are dropped.</li>
+ * <li>MySQL executable comments ({@code /*!40014 ... *}{@code /}, as written by
+ * mysqldump) and optimizer hints ({@code /*+ ... *}{@code /}). These are kept
+ * as statement text, as written, since the server runs or reads them.</li>
+ * </ul>
+ * Runs of whitespace outside quotes are collapsed to a single space, and empty
+ * statements are skipped.
+ */
+public class SqlScriptReader implements Iterator<String>, AutoCloseable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final Reader reader;
+	private final StringBuilder statement = new StringBuilder();
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int pos;
+	private int limit;
+	private String next;
+
+	public SqlScriptReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Opens a script file for reading.
+	 */
+	public static SqlScriptReader forFile(Path path) {
+		try {
+			return new SqlScriptReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Opens a script on the classpath for reading.
+	 */
+	public static SqlScriptReader forResource(String name) {
+		InputStream in = SqlScriptReader.class.getClassLoader().getResourceAsStream(name);
+
+		if (Objects.isNull(in)) {
+			throw new DbException("Resource " + name + " was not found.");
+		}
+
+		return new SqlScriptReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (Objects.isNull(next)) {
+			try {
+				next = readStatement();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		return Objects.nonNull(next);
+	}
+
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		String result = next;
+		next = null;
+		return result;
+	}
+
+	@Override
+	public void close() {
+		try {
+			reader.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads up to the end of the next non-empty statement.
+	 *
+	 * @return the statement without the trailing semicolon, or null at end of
+	 *         input
+	 */
+	private String readStatement() throws IOException {
+		int ch;
+
+		while ((ch = read()) != -1) {
+			switch (ch) {
+			case ';':
+				if (!isBlankStatement()) {
+					return takeStatement();
+				}
+
+				statement.setLength(0);
+				break;
+
+			case '\'':
+			case '"':
+			case '`':
+				readQuoted(ch);
+				break;
+
+			case '#':
+				skipLineComment();
+				break;
+
+			case '-':
+				if (peek() == '-') {
+					read();
+
+					int after = peek();
+
+					/* MySQL only treats "--" as a comment if whitespace follows. */
+					if (after == -1 || Character.isWhitespace(after)) {
+						skipLineComment();
+					} else {
+						statement.append("--");
+					}
+				} else {
+					statement.append('-');
+				}
+				break;
+
+			case '/':
+				if (peek() == '*') {
+					read();
+
+					int marker = peek();
+
+					if (marker == '!' || marker == '+') {
+						readKeptComment();
+					} else {
+						skipBlockComment();
+					}
+				} else {
+					statement.append('/');
+				}
+				break;
+
+			default:
+				if (Character.isWhitespace(ch)) {
+					appendSpace();
+				} else {
+					statement.append((char) ch);
+				}
+				break;
+			}
+		}
+
+		return isBlankStatement() ? null : takeStatement();
+	}
+
+	private void readQuoted(int quote) throws IOException {
+		statement.append((char) quote);
+
+		int ch;
+
+		while ((ch = read()) != -1) {
+			statement.append((char) ch);
+
+			if (ch == '\\' && quote != '`') {
+				int escaped = read();
+
+				if (escaped != -1) {
+					statement.append((char) escaped);
+				}
+			} else if (ch == quote) {
+				/* A doubled quote is the next quoted section starting right away. */
+				return;
+			}
+		}
+	}
+
+	private void skipLineComment() throws IOException {
+		int ch;
+
+		while ((ch = read()) != -1 && ch != '\n') {
+			/* Skip the comment. */
+		}
+
+		appendSpace();
+	}
+
+	private void skipBlockComment() throws IOException {
+		int ch;
+
+		while ((ch = read()) != -1) {
+			if (ch == '*' && peek() == '/') {
+				read();
+				break;
+			}
+		}
+
+		appendSpace();
+	}
+
+	/* Copies an executable comment or hint, including its markers, up to the closing marker. */
+	private void readKeptComment() throws IOException {
+		statement.append("/*");
+
+		int ch;
+
+		while ((ch = read()) != -1) {
+			statement.append((char) ch);
+
+			if (ch == '*' && peek() == '/') {
+				statement.append((char) read());
+				return;
+			}
+		}
+	}
+
+	private void appendSpace() {
+		int length = statement.length();
+
+		if (length > 0 && statement.charAt(length - 1) != ' ') {
+			statement.append(' ');
+		}
+	}
+
+	private boolean isBlankStatement() {
+		return statement.isEmpty() || (statement.length() == 1 && statement.charAt(0) == ' ');
+	}
+
+	private String takeStatement() {
+		int start = statement.charAt(0) == ' ' ? 1 : 0;
+		int end = statement.length();
+
+		if (statement.charAt(end - 1) == ' ') {
+			end--;
+		}
+
+		String result = statement.substring(start, end);
+		statement.setLength(0);
+		return result;
+	}
+
+	private int read() throws IOException {
+		if (pos == limit && !fill()) {
+			return -1;
+		}
+
+		return buffer[pos++];
+	}
+
+	private int peek() throws IOException {
+		if (pos == limit && !fill()) {
+			return -1;
+		}
+
+		return buffer[pos];
+	}
+
+	/* Reading through our own buffer avoids a lock per character in Reader.read(). */
+	private boolean fill() throws IOException {
+		int count;
+
+		while ((count = reader.read(buffer)) == 0) {
+			/* Try again. */
+		}
+
+		pos = 0;
+		limit = Math.max(count, 0);
+		return count > 0;
+	}
+}
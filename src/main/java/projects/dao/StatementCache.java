@@ -0,0 +1,231 @@
+package projects.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The prepared statements of one pooled connection, kept open across borrows
+ * and keyed by SQL text. Closing a statement handed out by the cache clears its
+ * parameters and batch and keeps it for the next {@code prepareStatement} call
+ * with the same SQL. The least recently used statement is closed when the cache
+ * is full.
+ * 
+ * <p>
+ * A connection is only used by one borrower at a time, so the cache is not
+ * thread-safe. If a statement is already checked out when its SQL is prepared
+ * again, the second caller gets an ordinary uncached statement.
+ */
+class StatementCache {
+	private static final String GENERATED_KEYS_SUFFIX = "\u0000RETURN_GENERATED_KEYS";
+
+	private final int capacity;
+	private final LongAdder hits;
+	private final LongAdder misses;
+	private final Map<String, Entry> entries;
+
+	StatementCache(int capacity, LongAdder hits, LongAdder misses) {
+		this.capacity = capacity;
+		this.hits = hits;
+		this.misses = misses;
+		this.entries = new LinkedHashMap<>(capacity * 2, 0.75f, true);
+	}
+
+	/**
+	 * Returns true if this {@code prepareStatement} call can be served from the
+	 * cache: either the SQL alone, or the SQL and an auto-generated keys flag.
+	 */
+	static boolean isCacheable(Object[] args) {
+		return args.length == 1
+				|| (args.length == 2 && args[1] instanceof Integer && isGeneratedKeysFlag((Integer) args[1]));
+	}
+
+	private static boolean isGeneratedKeysFlag(int flag) {
+		return flag == Statement.RETURN_GENERATED_KEYS || flag == Statement.NO_GENERATED_KEYS;
+	}
+
+	/**
+	 * Returns a cached statement for the SQL, preparing and caching it on a miss.
+	 * 
+	 * @param args the arguments of the {@code prepareStatement} call
+	 */
+	PreparedStatement prepare(Connection conn, Object[] args) throws SQLException {
+		String sql = (String) args[0];
+		boolean generatedKeys = args.length == 2 && (Integer) args[1] == Statement.RETURN_GENERATED_KEYS;
+		String key = generatedKeys ? sql + GENERATED_KEYS_SUFFIX : sql;
+		Entry entry = entries.get(key);
+
+		if (Objects.nonNull(entry)) {
+			if (entry.inUse) {
+				misses.increment();
+				return prepareUncached(conn, sql, generatedKeys);
+			}
+
+			hits.increment();
+		} else {
+			misses.increment();
+			entry = new Entry(key, prepareUncached(conn, sql, generatedKeys));
+			entries.put(key, entry);
+			evictOverflow();
+		}
+
+		entry.inUse = true;
+		return (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, new Checkout(entry));
+	}
+
+	/**
+	 * Closes and forgets statements a borrower left checked out, so the next
+	 * borrower cannot see their state. Called when the connection is returned.
+	 */
+	void closeLeaked() {
+		for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+			Entry entry = it.next();
+
+			if (entry.inUse) {
+				it.remove();
+				closeQuietly(entry.statement);
+			}
+		}
+	}
+
+	/**
+	 * Closes every cached statement. Called before the connection is closed.
+	 */
+	void closeAll() {
+		entries.values().forEach(entry -> closeQuietly(entry.statement));
+		entries.clear();
+	}
+
+	private static PreparedStatement prepareUncached(Connection conn, String sql, boolean generatedKeys)
+			throws SQLException {
+		return generatedKeys ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+				: conn.prepareStatement(sql);
+	}
+
+	/* Statements still checked out are closed when they are returned instead. */
+	private void evictOverflow() {
+		if (entries.size() <= capacity) {
+			return;
+		}
+
+		List<Entry> evicted = new ArrayList<>();
+
+		for (Iterator<Entry> it = entries.values().iterator(); it.hasNext() && entries.size() > capacity;) {
+			Entry entry = it.next();
+
+			it.remove();
+			entry.evicted = true;
+			evicted.add(entry);
+		}
+
+		for (Entry entry : evicted) {
+			if (!entry.inUse) {
+				closeQuietly(entry.statement);
+			}
+		}
+	}
+
+	private static void closeQuietly(Statement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			/* The statement is being discarded anyway. */
+		}
+	}
+
+	private static class Entry {
+		private final String key;
+		private final PreparedStatement statement;
+		private boolean inUse;
+		private boolean evicted;
+
+		Entry(String key, PreparedStatement statement) {
+			this.key = key;
+			this.statement = statement;
+		}
+	}
+
+	/**
+	 * One borrower's use of a cached statement, from prepareStatement to close.
+	 */
+	private class Checkout implements InvocationHandler {
+		private Entry entry;
+
+		Checkout(Entry entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (Objects.nonNull(entry)) {
+					checkIn();
+				}
+				return null;
+
+			case "isClosed":
+				return Objects.isNull(entry);
+
+			case "equals":
+				return proxy == args[0];
+
+			case "hashCode":
+				return System.identityHashCode(proxy);
+
+			default:
+				break;
+			}
+
+			if (Objects.isNull(entry)) {
+				throw new SQLException("Statement is closed");
+			}
+
+			try {
+				return method.invoke(entry.statement, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+		private void checkIn() {
+			Entry returning = entry;
+			entry = null;
+			returning.inUse = false;
+
+			if (returning.evicted) {
+				closeQuietly(returning.statement);
+				return;
+			}
+
+			try {
+				ResultSet rs = returning.statement.getResultSet();
+
+				if (Objects.nonNull(rs)) {
+					rs.close();
+				}
+
+				returning.statement.clearParameters();
+				returning.statement.clearBatch();
+				returning.statement.clearWarnings();
+			} catch (SQLException e) {
+				entries.remove(returning.key);
+				closeQuietly(returning.statement);
+			}
+		}
+	}
+}
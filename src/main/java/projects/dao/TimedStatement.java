@@ -0,0 +1,244 @@
+package projects.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import projects.metrics.LatencyHistogram;
+import projects.metrics.Metrics;
+
+/**
+ * Wraps a statement so that each {@code execute...} call is timed into the
+ * {@code statement.execute} histogram and, if the {@link SlowQueryLog} is on,
+ * slow executions are logged with their bound parameters and row count. Other
+ * calls go straight through.
+ * 
+ * <p>
+ * The row count of a slow query is only known once its result set has been
+ * read, so the result set is wrapped to count rows and the entry is logged when
+ * the result set or statement is closed. Fast queries are not wrapped.
+ */
+class TimedStatement implements InvocationHandler {
+	private static final LatencyHistogram STATEMENT_EXECUTE = Metrics.histogram("statement.execute");
+
+	private final Statement statement;
+	private final String sql;
+	private final SlowQueryLog slowQueryLog;
+
+	/* Only tracked while the slow query log is on. */
+	private final List<Object> parameters = new ArrayList<>();
+	private int batchSize;
+	private SlowResult pending;
+
+	private TimedStatement(Statement statement, String sql, SlowQueryLog slowQueryLog) {
+		this.statement = statement;
+		this.sql = sql;
+		this.slowQueryLog = slowQueryLog;
+	}
+
+	/**
+	 * Returns true if statements need wrapping at all.
+	 */
+	static boolean isNeeded() {
+		return Metrics.isEnabled() || SlowQueryLog.get().isEnabled();
+	}
+
+	/**
+	 * Wraps the statement in a proxy of the given interface, which is
+	 * {@link Statement} or one of its subinterfaces.
+	 * 
+	 * @param sql the SQL the statement was prepared with, or null for a plain
+	 *            statement
+	 */
+	static Object wrap(Class<?> type, Statement statement, String sql) {
+		SlowQueryLog slowQueryLog = SlowQueryLog.get().isEnabled() ? SlowQueryLog.get() : null;
+
+		return Proxy.newProxyInstance(TimedStatement.class.getClassLoader(), new Class<?>[] { type },
+				new TimedStatement(statement, sql, slowQueryLog));
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+
+		if (!name.startsWith("execute")) {
+			if (Objects.nonNull(slowQueryLog)) {
+				track(name, args);
+			}
+
+			return call(method, args);
+		}
+
+		flushPending();
+
+		long start = System.nanoTime();
+		Object result;
+
+		try {
+			result = call(method, args);
+		} catch (Throwable e) {
+			finish(name, args, null, System.nanoTime() - start);
+			throw e;
+		}
+
+		return finish(name, args, result, System.nanoTime() - start);
+	}
+
+	private Object call(Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(statement, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Keeps track of the bound parameters and batch size for the slow query log.
+	 */
+	private void track(String name, Object[] args) {
+		if (name.startsWith("set") && Objects.nonNull(args) && args.length >= 2 && args[0] instanceof Integer) {
+			int index = (Integer) args[0];
+
+			while (parameters.size() < index) {
+				parameters.add(null);
+			}
+
+			parameters.set(index - 1, "setNull".equals(name) ? null : args[1]);
+		} else if ("clearParameters".equals(name)) {
+			parameters.clear();
+		} else if ("addBatch".equals(name)) {
+			batchSize++;
+		} else if ("clearBatch".equals(name)) {
+			batchSize = 0;
+		} else if ("close".equals(name)) {
+			flushPending();
+		}
+	}
+
+	/**
+	 * Records an execution. A slow one is logged now, or when its result set is
+	 * closed if it returned one.
+	 * 
+	 * @param result the result of the call, or null if it failed
+	 */
+	private Object finish(String name, Object[] args, Object result, long elapsedNanos) {
+		if (Metrics.isEnabled()) {
+			STATEMENT_EXECUTE.record(elapsedNanos);
+		}
+
+		if (Objects.isNull(slowQueryLog)) {
+			return result;
+		}
+
+		int batch = name.contains("Batch") ? batchSize : 0;
+
+		if (batch > 0) {
+			batchSize = 0;
+		}
+
+		if (!slowQueryLog.isSlow(elapsedNanos)) {
+			return result;
+		}
+
+		/* Statement.execute(sql) and friends pass the SQL with the call. */
+		String text = Objects.nonNull(args) && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+
+		if (result instanceof ResultSet) {
+			pending = new SlowResult((ResultSet) result, text, new ArrayList<>(parameters), elapsedNanos);
+			return Proxy.newProxyInstance(TimedStatement.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+					pending);
+		}
+
+		slowQueryLog.log(text, new ArrayList<>(parameters), batch, rowsAffected(result), elapsedNanos);
+		return result;
+	}
+
+	private void flushPending() {
+		if (Objects.nonNull(pending)) {
+			pending.log();
+			pending = null;
+		}
+	}
+
+	/**
+	 * Returns the update count of an executeUpdate or executeBatch result, or -1
+	 * if it is unknown.
+	 */
+	private static long rowsAffected(Object result) {
+		if (result instanceof Number) {
+			return ((Number) result).longValue();
+		}
+
+		long rows = 0;
+
+		if (result instanceof int[]) {
+			for (int count : (int[]) result) {
+				rows += Math.max(count, 0);
+			}
+
+			return rows;
+		}
+
+		if (result instanceof long[]) {
+			for (long count : (long[]) result) {
+				rows += Math.max(count, 0);
+			}
+
+			return rows;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Counts the rows read from a slow query's result set and logs the query when
+	 * the result set is closed.
+	 */
+	private class SlowResult implements InvocationHandler {
+		private final ResultSet rs;
+		private final String text;
+		private final List<Object> boundParameters;
+		private final long elapsedNanos;
+		private long rows;
+		private boolean logged;
+
+		SlowResult(ResultSet rs, String text, List<Object> boundParameters, long elapsedNanos) {
+			this.rs = rs;
+			this.text = text;
+			this.boundParameters = boundParameters;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result;
+
+			try {
+				result = method.invoke(rs, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+
+			if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+				rows++;
+			} else if ("close".equals(method.getName())) {
+				log();
+			}
+
+			return result;
+		}
+
+		void log() {
+			if (!logged) {
+				logged = true;
+				slowQueryLog.log(text, boundParameters, 0, rows, elapsedNanos);
+			}
+		}
+	}
+}
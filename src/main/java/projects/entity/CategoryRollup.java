@@ -0,0 +1,84 @@
+package projects.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * The maintained totals over a group of projects: every project in one
+ * category, or every project when the category ID is null.
+ */
+public class CategoryRollup {
+	private Integer categoryId;
+	private String categoryName;
+	private Long projectCount;
+	private BigDecimal materialCost;
+	private BigDecimal estimatedHours;
+	private BigDecimal actualHours;
+	private BigDecimal hoursVariance;
+
+	public Integer getCategoryId() {
+		return categoryId;
+	}
+
+	public void setCategoryId(Integer categoryId) {
+		this.categoryId = categoryId;
+	}
+
+	public String getCategoryName() {
+		return categoryName;
+	}
+
+	public void setCategoryName(String categoryName) {
+		this.categoryName = categoryName;
+	}
+
+	public Long getProjectCount() {
+		return projectCount;
+	}
+
+	public void setProjectCount(Long projectCount) {
+		this.projectCount = projectCount;
+	}
+
+	public BigDecimal getMaterialCost() {
+		return materialCost;
+	}
+
+	public void setMaterialCost(BigDecimal materialCost) {
+		this.materialCost = materialCost;
+	}
+
+	public BigDecimal getEstimatedHours() {
+		return estimatedHours;
+	}
+
+	public void setEstimatedHours(BigDecimal estimatedHours) {
+		this.estimatedHours = estimatedHours;
+	}
+
+	public BigDecimal getActualHours() {
+		return actualHours;
+	}
+
+	public void setActualHours(BigDecimal actualHours) {
+		this.actualHours = actualHours;
+	}
+
+	/**
+	 * Returns the sum of actual minus estimated hours over the projects that have
+	 * both.
+	 */
+	public BigDecimal getHoursVariance() {
+		return hoursVariance;
+	}
+
+	public void setHoursVariance(BigDecimal hoursVariance) {
+		this.hoursVariance = hoursVariance;
+	}
+
+	@Override
+	public String toString() {
+		return "ID=" + categoryId + ", categoryName=" + categoryName + ", projects=" + projectCount
+				+ ", materialCost=" + materialCost + ", estimatedHours=" + estimatedHours + ", actualHours="
+				+ actualHours + ", hoursVariance=" + hoursVariance;
+	}
+}
@@ -11,6 +11,7 @@ public class Project {
 	private BigDecimal actualHours;
 	private Integer difficulty;
 	private String notes;
+	private Integer version;
 	
 	private List<Material> materials = new LinkedList<>();
 	private List<Step> steps = new LinkedList<>();
@@ -51,6 +52,16 @@ public class Project {
 	public void setNotes(String notes) {
 		this.notes = notes;
 	}
+	/**
+	 * The row version, incremented by every update. Null on projects that have not
+	 * been stored.
+	 */
+	public Integer getVersion() {
+		return version;
+	}
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
 
 	  public List<Material> getMaterials() {
 	    return materials;
@@ -73,6 +84,7 @@ public class Project {
 	    result += "\n   actualHours=" + actualHours;
 	    result += "\n   difficulty=" + difficulty;
 	    result += "\n   notes=" + notes;
+	    result += "\n   version=" + version;
 	    result += "\n   Materials:";
 	    
 	    for(Material material : materials) {
@@ -0,0 +1,80 @@
+package projects.entity;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * The maintained totals for one project: its material count and cost (the sum
+ * of num_required * cost) and its hours.
+ */
+public class ProjectRollup {
+	private Integer projectId;
+	private String projectName;
+	private Integer materialCount;
+	private BigDecimal materialCost;
+	private BigDecimal estimatedHours;
+	private BigDecimal actualHours;
+
+	public Integer getProjectId() {
+		return projectId;
+	}
+
+	public void setProjectId(Integer projectId) {
+		this.projectId = projectId;
+	}
+
+	public String getProjectName() {
+		return projectName;
+	}
+
+	public void setProjectName(String projectName) {
+		this.projectName = projectName;
+	}
+
+	public Integer getMaterialCount() {
+		return materialCount;
+	}
+
+	public void setMaterialCount(Integer materialCount) {
+		this.materialCount = materialCount;
+	}
+
+	public BigDecimal getMaterialCost() {
+		return materialCost;
+	}
+
+	public void setMaterialCost(BigDecimal materialCost) {
+		this.materialCost = materialCost;
+	}
+
+	public BigDecimal getEstimatedHours() {
+		return estimatedHours;
+	}
+
+	public void setEstimatedHours(BigDecimal estimatedHours) {
+		this.estimatedHours = estimatedHours;
+	}
+
+	public BigDecimal getActualHours() {
+		return actualHours;
+	}
+
+	public void setActualHours(BigDecimal actualHours) {
+		this.actualHours = actualHours;
+	}
+
+	/**
+	 * Returns actual minus estimated hours, or null unless both are known.
+	 */
+	public BigDecimal getHoursVariance() {
+		return Objects.isNull(estimatedHours) || Objects.isNull(actualHours) ? null
+				: actualHours.subtract(estimatedHours);
+	}
+
+	@Override
+	public String toString() {
+		return "ID=" + projectId + ", projectName=" + projectName + ", materials=" + materialCount + ", materialCost="
+				+ materialCost + ", estimatedHours=" + estimatedHours + ", actualHours=" + actualHours
+				+ ", hoursVariance=" + getHoursVariance();
+	}
+}
@@ -0,0 +1,54 @@
+package projects.events;
+
+import java.util.Objects;
+
+/**
+ * One committed change to a project, as published on a {@link ChangeFeed}.
+ * Events carry IDs rather than project data; a consumer that needs the data
+ * reads it again.
+ */
+public class ChangeEvent {
+	private final long sequence;
+	private final ChangeType type;
+	private final Integer projectId;
+	private final Integer version;
+	private final long timestampMillis;
+
+	ChangeEvent(long sequence, ChangeType type, Integer projectId, Integer version, long timestampMillis) {
+		this.sequence = sequence;
+		this.type = type;
+		this.projectId = projectId;
+		this.version = version;
+		this.timestampMillis = timestampMillis;
+	}
+
+	/** The position of the event in the feed, starting at zero. */
+	public long getSequence() {
+		return sequence;
+	}
+
+	public ChangeType getType() {
+		return type;
+	}
+
+	/** The project that changed, or null for {@link ChangeType#BULK}. */
+	public Integer getProjectId() {
+		return projectId;
+	}
+
+	/** The project's version after the change, or null if it is not known. */
+	public Integer getVersion() {
+		return version;
+	}
+
+	/** When the event was published. */
+	public long getTimestampMillis() {
+		return timestampMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "#" + sequence + " " + type + (Objects.isNull(projectId) ? "" : " project=" + projectId)
+				+ (Objects.isNull(version) ? "" : " version=" + version);
+	}
+}
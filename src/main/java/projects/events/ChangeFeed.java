@@ -0,0 +1,342 @@
+package projects.events;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import projects.metrics.Metrics;
+
+/**
+ * An in-process feed of committed project changes, kept in a lock-free ring
+ * buffer. Any number of threads publish; each subscriber reads the feed on its
+ * own thread and keeps its own sequence, so subscribers do not hold each other
+ * up.
+ *
+ * Publishing claims a sequence with one atomic increment and writes the event
+ * into its slot; it never waits. A subscriber that falls more than the
+ * capacity behind therefore loses the overwritten events and is told how many
+ * through {@link ChangeListener#onMissed(long)}.
+ *
+ * Each slot also carries the sequence of the newest event published into it.
+ * Publishers only replace an older event and only move a slot's sequence
+ * forward, both by compare-and-set, so a publisher that stalls after claiming
+ * its sequence cannot overwrite an event from a later lap of the ring; its own
+ * event is dropped instead and counts as missed. A subscriber waits for the
+ * slot's sequence to reach the one it expects, and only delivers the event if
+ * the event's own sequence matches.
+ */
+public class ChangeFeed implements AutoCloseable {
+	static final long SLEEP_NANOS = 100_000L;
+
+	private static final LongAdder PUBLISHED = Metrics.counter("changeFeed.published");
+	private static final LongAdder MISSED = Metrics.counter("changeFeed.missed");
+
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 200;
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	/* Slot sequence before the first event is published into it. */
+	private static final long EMPTY = -1L;
+
+	private final int mask;
+	private final AtomicReferenceArray<ChangeEvent> events;
+	private final AtomicLongArray slotSequences;
+
+	/* The next sequence to claim. */
+	private final AtomicLong next = new AtomicLong();
+
+	/* Copied on write, so publishers iterate without locking. */
+	private volatile Subscription[] subscriptions = new Subscription[0];
+
+	/**
+	 * @param capacity the number of events kept for slow subscribers, a power of
+	 *                 two
+	 */
+	public ChangeFeed(int capacity) {
+		if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a power of two of at least 2");
+		}
+
+		mask = capacity - 1;
+		events = new AtomicReferenceArray<>(capacity);
+		slotSequences = new AtomicLongArray(capacity);
+
+		for (int slot = 0; slot < capacity; slot++) {
+			slotSequences.set(slot, EMPTY);
+		}
+	}
+
+	/**
+	 * Publishes an event. Call it after the change has committed.
+	 *
+	 * @param type      the kind of change
+	 * @param projectId the project, or null for {@link ChangeType#BULK}
+	 * @param version   the project's new version, or null if it is not known
+	 * @return the event's sequence
+	 */
+	public long publish(ChangeType type, Integer projectId, Integer version) {
+		long sequence = next.getAndIncrement();
+
+		store(new ChangeEvent(sequence, type, projectId, version, System.currentTimeMillis()));
+		Metrics.increment(PUBLISHED);
+
+		for (Subscription subscription : subscriptions) {
+			Thread parked = subscription.parked;
+
+			if (Objects.nonNull(parked)) {
+				LockSupport.unpark(parked);
+			}
+		}
+
+		return sequence;
+	}
+
+	/*
+	 * Puts the event in its slot unless an event from a later lap is already
+	 * there, then moves the slot's sequence up to it. The event goes in first, so
+	 * a subscriber that sees the slot's sequence also sees an event at least that
+	 * new.
+	 */
+	private void store(ChangeEvent event) {
+		long sequence = event.getSequence();
+		int slot = (int) sequence & mask;
+
+		while (true) {
+			ChangeEvent current = events.get(slot);
+
+			if (Objects.nonNull(current) && current.getSequence() > sequence) {
+				return;
+			}
+
+			if (events.compareAndSet(slot, current, event)) {
+				break;
+			}
+		}
+
+		while (true) {
+			long current = slotSequences.get(slot);
+
+			if (current >= sequence || slotSequences.compareAndSet(slot, current, sequence)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the sequence the next event will get, which is also the number of
+	 * events published so far.
+	 */
+	public long getCursor() {
+		return next.get();
+	}
+
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Starts a subscriber thread that receives every event published from now
+	 * on.
+	 *
+	 * @param name         names the subscriber's thread
+	 * @param listener     receives the events
+	 * @param waitStrategy what the thread does while there are no new events
+	 * @return the subscription, which must be closed
+	 */
+	public synchronized Subscription subscribe(String name, ChangeListener listener, WaitStrategy waitStrategy) {
+		Subscription subscription = new Subscription(name, listener, waitStrategy, next.get());
+
+		Subscription[] current = subscriptions;
+		Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+
+		updated[current.length] = subscription;
+		subscriptions = updated;
+
+		subscription.thread.start();
+		return subscription;
+	}
+
+	private synchronized void unsubscribe(Subscription subscription) {
+		subscriptions = Arrays.stream(subscriptions).filter(other -> other != subscription)
+				.toArray(Subscription[]::new);
+	}
+
+	/**
+	 * Closes every subscription. Events already read are delivered; the rest are
+	 * dropped.
+	 */
+	@Override
+	public void close() {
+		for (Subscription subscription : subscriptions) {
+			subscription.close();
+		}
+	}
+
+	/**
+	 * One subscriber's position in the feed and the thread that reads it.
+	 */
+	public class Subscription implements AutoCloseable {
+		private final String name;
+		private final ChangeListener listener;
+		private final WaitStrategy waitStrategy;
+		private final Thread thread;
+
+		/* The next sequence to read. Written only by the subscriber thread. */
+		private volatile long sequence;
+		private volatile long missed;
+		private volatile boolean running = true;
+
+		/* Set while the subscriber thread is parked, so publishers know to unpark it. */
+		private volatile Thread parked;
+
+		private Subscription(String name, ChangeListener listener, WaitStrategy waitStrategy, long start) {
+			this.name = name;
+			this.listener = listener;
+			this.waitStrategy = waitStrategy;
+			this.sequence = start;
+
+			thread = new Thread(this::run, "change-feed-" + name);
+			thread.setDaemon(true);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the sequence of the next event this subscriber will read.
+		 */
+		public long getSequence() {
+			return sequence;
+		}
+
+		/**
+		 * Returns the number of published events this subscriber has not read yet.
+		 */
+		public long getLag() {
+			return Math.max(next.get() - sequence, 0);
+		}
+
+		/**
+		 * Returns the number of events this subscriber lost because it fell behind.
+		 */
+		public long getMissed() {
+			return missed;
+		}
+
+		private void run() {
+			long expected = sequence;
+			int idleCount = 0;
+
+			while (running) {
+				int slot = (int) expected & mask;
+				long slotSequence = slotSequences.get(slot);
+
+				if (slotSequence >= expected) {
+					ChangeEvent event = events.get(slot);
+
+					if (event.getSequence() == expected) {
+						deliver(event);
+						sequence = ++expected;
+						idleCount = 0;
+						continue;
+					}
+
+					/* Overwritten: skip to the oldest event that may still be in the buffer. */
+					long resume = Math.max(expected + 1, next.get() - mask);
+
+					missed(resume - expected);
+					sequence = expected = resume;
+					continue;
+				}
+
+				idle(idleCount++, slot, expected);
+			}
+		}
+
+		private void deliver(ChangeEvent event) {
+			try {
+				listener.onEvent(event);
+			} catch (RuntimeException e) {
+				System.out.println("Change listener " + name + " failed on " + event + ": " + e.getMessage());
+			}
+		}
+
+		private void missed(long count) {
+			missed += count;
+			Metrics.add(MISSED, count);
+
+			try {
+				listener.onMissed(count);
+			} catch (RuntimeException e) {
+				System.out.println("Change listener " + name + " failed after missing events: " + e.getMessage());
+			}
+		}
+
+		private void idle(int idleCount, int slot, long expected) {
+			switch (waitStrategy) {
+			case BUSY_SPIN:
+				Thread.onSpinWait();
+				break;
+
+			case YIELDING:
+				if (idleCount < SPIN_TRIES) {
+					Thread.onSpinWait();
+				} else {
+					Thread.yield();
+				}
+				break;
+
+			case SLEEPING:
+				if (idleCount < SPIN_TRIES) {
+					Thread.onSpinWait();
+				} else if (idleCount < YIELD_TRIES) {
+					Thread.yield();
+				} else {
+					LockSupport.parkNanos(SLEEP_NANOS);
+				}
+				break;
+
+			case BLOCKING:
+				if (idleCount < SPIN_TRIES) {
+					Thread.onSpinWait();
+					break;
+				}
+
+				/* Announce the park before the last check, so a publish in between unparks us. */
+				parked = thread;
+
+				if (running && slotSequences.get(slot) < expected) {
+					LockSupport.parkNanos(this, MAX_PARK_NANOS);
+				}
+
+				parked = null;
+				break;
+			}
+		}
+
+		/**
+		 * Stops the subscriber thread and waits for it to finish the event it is
+		 * delivering.
+		 */
+		@Override
+		public void close() {
+			running = false;
+			unsubscribe(this);
+			LockSupport.unpark(thread);
+
+			if (Thread.currentThread() != thread) {
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+}
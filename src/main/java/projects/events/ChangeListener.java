@@ -0,0 +1,20 @@
+package projects.events;
+
+/**
+ * Receives the events of a {@link ChangeFeed} subscription, in sequence order,
+ * on the subscription's own thread.
+ */
+@FunctionalInterface
+public interface ChangeListener {
+	void onEvent(ChangeEvent event);
+
+	/**
+	 * Called when the listener fell so far behind that the feed overwrote events
+	 * it had not read yet. Listeners that keep state derived from the events,
+	 * such as a cache, should rebuild it.
+	 *
+	 * @param count the number of events that were lost
+	 */
+	default void onMissed(long count) {
+	}
+}
@@ -0,0 +1,21 @@
+package projects.events;
+
+/**
+ * The kind of change a {@link ChangeEvent} reports.
+ */
+public enum ChangeType {
+	/** A project was inserted. */
+	INSERT,
+
+	/** A project's details, steps or other children changed. */
+	UPDATE,
+
+	/** A project was deleted. */
+	DELETE,
+
+	/**
+	 * A batch of SQL statements ran. Any project may have changed, so the event
+	 * has no project ID.
+	 */
+	BULK
+}
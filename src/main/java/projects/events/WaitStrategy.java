@@ -0,0 +1,22 @@
+package projects.events;
+
+/**
+ * What a {@link ChangeFeed} subscription does while it waits for the next
+ * event. The strategies trade CPU for latency, from busy spinning to parking.
+ */
+public enum WaitStrategy {
+	/** Spins on the CPU. Lowest latency, but keeps a core busy. */
+	BUSY_SPIN,
+
+	/** Spins briefly, then yields the CPU between checks. */
+	YIELDING,
+
+	/** Spins, yields, then sleeps {@value ChangeFeed#SLEEP_NANOS} ns between checks. */
+	SLEEPING,
+
+	/**
+	 * Spins briefly, then parks until an event is published. Uses no CPU while
+	 * idle; the publisher pays for an unpark only when the subscriber is parked.
+	 */
+	BLOCKING
+}
@@ -0,0 +1,55 @@
+package projects.exception;
+
+/**
+ * Thrown when a conditional update finds that the project was changed since
+ * the caller read it.
+ */
+@SuppressWarnings("serial")
+public class ProjectConflictException extends DbException {
+	private final Integer projectId;
+	private final Integer expectedVersion;
+	private final Integer currentVersion;
+	private final String field;
+
+	public ProjectConflictException(Integer projectId, Integer expectedVersion, Integer currentVersion) {
+		super("Project with ID=" + projectId + " was changed by someone else (expected version " + expectedVersion
+				+ ", found " + currentVersion + ").");
+		this.projectId = projectId;
+		this.expectedVersion = expectedVersion;
+		this.currentVersion = currentVersion;
+		this.field = null;
+	}
+
+	/**
+	 * A conflict that could not be merged because both sides changed the same
+	 * field to different values.
+	 */
+	public ProjectConflictException(Integer projectId, Integer expectedVersion, Integer currentVersion,
+			String field) {
+		super("Project with ID=" + projectId + " was changed by someone else (expected version " + expectedVersion
+				+ ", found " + currentVersion + ") and both changed " + field + ".");
+		this.projectId = projectId;
+		this.expectedVersion = expectedVersion;
+		this.currentVersion = currentVersion;
+		this.field = field;
+	}
+
+	public Integer getProjectId() {
+		return projectId;
+	}
+
+	/** The version the caller read. */
+	public Integer getExpectedVersion() {
+		return expectedVersion;
+	}
+
+	/** The version in the database when the update was tried. */
+	public Integer getCurrentVersion() {
+		return currentVersion;
+	}
+
+	/** The field both sides changed, or null if no merge was tried. */
+	public String getField() {
+		return field;
+	}
+}
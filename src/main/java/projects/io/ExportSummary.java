@@ -0,0 +1,46 @@
+package projects.io;
+
+/**
+ * The outcome of an export.
+ */
+public class ExportSummary {
+	private final long projectsExported;
+	private final long rowsExported;
+	private final long bytesWritten;
+	private final long elapsedMillis;
+
+	ExportSummary(long projectsExported, long rowsExported, long bytesWritten, long elapsedMillis) {
+		this.projectsExported = projectsExported;
+		this.rowsExported = rowsExported;
+		this.bytesWritten = bytesWritten;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public long getProjectsExported() {
+		return projectsExported;
+	}
+
+	/** Rows read from all tables: projects, materials, steps and category links. */
+	public long getRowsExported() {
+		return rowsExported;
+	}
+
+	/** The size of the file, after compression if it is gzipped. */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public double getProjectsPerMinute() {
+		return elapsedMillis == 0 ? 0 : projectsExported * 60_000.0 / elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("projects=%d, rows=%d, bytes=%d, elapsed=%.1fs, projects/min=%.0f", projectsExported,
+				rowsExported, bytesWritten, elapsedMillis / 1000.0, getProjectsPerMinute());
+	}
+}
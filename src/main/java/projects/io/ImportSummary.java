@@ -0,0 +1,46 @@
+package projects.io;
+
+/**
+ * The outcome of a bulk import.
+ */
+public class ImportSummary {
+	private final long projectsImported;
+	private final long rowsImported;
+	private final long recordsSkipped;
+	private final long elapsedMillis;
+
+	ImportSummary(long projectsImported, long rowsImported, long recordsSkipped, long elapsedMillis) {
+		this.projectsImported = projectsImported;
+		this.rowsImported = rowsImported;
+		this.recordsSkipped = recordsSkipped;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public long getProjectsImported() {
+		return projectsImported;
+	}
+
+	/** Rows written to all tables: projects, materials, steps and category links. */
+	public long getRowsImported() {
+		return rowsImported;
+	}
+
+	/** Records skipped because an earlier run had already committed them. */
+	public long getRecordsSkipped() {
+		return recordsSkipped;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public double getRowsPerSecond() {
+		return elapsedMillis == 0 ? 0 : rowsImported * 1000.0 / elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("projects=%d, rows=%d, skipped=%d, elapsed=%.1fs, rows/sec=%.0f", projectsImported,
+				rowsImported, recordsSkipped, elapsedMillis / 1000.0, getRowsPerSecond());
+	}
+}
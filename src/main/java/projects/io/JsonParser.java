@@ -0,0 +1,243 @@
+package projects.io;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small JSON parser for one JSON value per line. Objects become
+ * {@link Map}s, arrays become {@link List}s, numbers become {@link BigDecimal}s
+ * and {@code null} becomes {@code null}.
+ */
+class JsonParser {
+	private final String text;
+	private int pos;
+
+	private JsonParser(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * Parses the text, which must hold exactly one JSON value.
+	 *
+	 * @throws IllegalArgumentException if the text is not valid JSON
+	 */
+	static Object parse(String text) {
+		JsonParser parser = new JsonParser(text);
+		Object value = parser.readValue();
+
+		parser.skipWhitespace();
+
+		if (parser.pos != text.length()) {
+			throw parser.error("Unexpected trailing content");
+		}
+
+		return value;
+	}
+
+	private Object readValue() {
+		skipWhitespace();
+
+		if (pos >= text.length()) {
+			throw error("Unexpected end of input");
+		}
+
+		char ch = text.charAt(pos);
+
+		switch (ch) {
+		case '{':
+			return readObject();
+
+		case '[':
+			return readArray();
+
+		case '"':
+			return readString();
+
+		case 't':
+			return readLiteral("true", Boolean.TRUE);
+
+		case 'f':
+			return readLiteral("false", Boolean.FALSE);
+
+		case 'n':
+			return readLiteral("null", null);
+
+		default:
+			if (ch == '-' || (ch >= '0' && ch <= '9')) {
+				return readNumber();
+			}
+
+			throw error("Unexpected character '" + ch + "'");
+		}
+	}
+
+	private Map<String, Object> readObject() {
+		Map<String, Object> object = new LinkedHashMap<>();
+		pos++;
+		skipWhitespace();
+
+		if (peek() == '}') {
+			pos++;
+			return object;
+		}
+
+		while (true) {
+			skipWhitespace();
+
+			if (peek() != '"') {
+				throw error("Expected a field name");
+			}
+
+			String name = readString();
+
+			skipWhitespace();
+			expect(':');
+			object.put(name, readValue());
+			skipWhitespace();
+
+			if (peek() == ',') {
+				pos++;
+			} else {
+				expect('}');
+				return object;
+			}
+		}
+	}
+
+	private List<Object> readArray() {
+		List<Object> array = new ArrayList<>();
+		pos++;
+		skipWhitespace();
+
+		if (peek() == ']') {
+			pos++;
+			return array;
+		}
+
+		while (true) {
+			array.add(readValue());
+			skipWhitespace();
+
+			if (peek() == ',') {
+				pos++;
+			} else {
+				expect(']');
+				return array;
+			}
+		}
+	}
+
+	private String readString() {
+		StringBuilder builder = new StringBuilder();
+		pos++;
+
+		while (pos < text.length()) {
+			char ch = text.charAt(pos++);
+
+			if (ch == '"') {
+				return builder.toString();
+			}
+
+			if (ch != '\\') {
+				builder.append(ch);
+				continue;
+			}
+
+			if (pos >= text.length()) {
+				break;
+			}
+
+			char escaped = text.charAt(pos++);
+
+			switch (escaped) {
+			case 'b':
+				builder.append('\b');
+				break;
+
+			case 'f':
+				builder.append('\f');
+				break;
+
+			case 'n':
+				builder.append('\n');
+				break;
+
+			case 'r':
+				builder.append('\r');
+				break;
+
+			case 't':
+				builder.append('\t');
+				break;
+
+			case 'u':
+				if (pos + 4 > text.length()) {
+					throw error("Invalid unicode escape");
+				}
+
+				try {
+					builder.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+				} catch (NumberFormatException e) {
+					throw error("Invalid unicode escape");
+				}
+
+				pos += 4;
+				break;
+
+			default:
+				builder.append(escaped);
+				break;
+			}
+		}
+
+		throw error("Unterminated string");
+	}
+
+	private BigDecimal readNumber() {
+		int start = pos;
+
+		while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) != -1) {
+			pos++;
+		}
+
+		try {
+			return new BigDecimal(text.substring(start, pos));
+		} catch (NumberFormatException e) {
+			throw error("Invalid number");
+		}
+	}
+
+	private Object readLiteral(String literal, Object value) {
+		if (!text.startsWith(literal, pos)) {
+			throw error("Unexpected token");
+		}
+
+		pos += literal.length();
+		return value;
+	}
+
+	private void expect(char ch) {
+		if (peek() != ch) {
+			throw error("Expected '" + ch + "'");
+		}
+
+		pos++;
+	}
+
+	private char peek() {
+		return pos < text.length() ? text.charAt(pos) : '\0';
+	}
+
+	private void skipWhitespace() {
+		while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+			pos++;
+		}
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at position " + pos);
+	}
+}
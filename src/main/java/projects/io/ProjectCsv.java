@@ -0,0 +1,145 @@
+package projects.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads and writes the comma-separated rows of the CSV project format. Fields
+ * follow RFC 4180: a field holding a comma, quote or line break is enclosed in
+ * double quotes, and quotes inside it are doubled. A null value is written as
+ * an empty field.
+ */
+class ProjectCsv {
+	static final String PROJECT = "project";
+	static final String MATERIAL = "material";
+	static final String STEP = "step";
+	static final String CATEGORY = "category";
+
+	private ProjectCsv() {
+	}
+
+	/**
+	 * Reads one logical CSV row, joining physical lines while a quoted field is
+	 * open.
+	 * 
+	 * @return the row, or null at end of input
+	 */
+	static String readRow(BufferedReader reader) throws IOException {
+		String line = reader.readLine();
+
+		if (Objects.isNull(line) || !hasOpenQuote(line)) {
+			return line;
+		}
+
+		StringBuilder row = new StringBuilder(line);
+
+		while (hasOpenQuote(row)) {
+			String next = reader.readLine();
+
+			if (Objects.isNull(next)) {
+				throw new IOException("Unterminated quoted field in CSV row: " + row);
+			}
+
+			row.append('\n').append(next);
+		}
+
+		return row.toString();
+	}
+
+	/**
+	 * Splits a row into its fields. Empty fields are returned as null.
+	 */
+	static List<String> split(String row) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		boolean wasQuoted = false;
+
+		for (int pos = 0; pos < row.length(); pos++) {
+			char ch = row.charAt(pos);
+
+			if (quoted) {
+				if (ch != '"') {
+					field.append(ch);
+				} else if (pos + 1 < row.length() && row.charAt(pos + 1) == '"') {
+					field.append('"');
+					pos++;
+				} else {
+					quoted = false;
+				}
+			} else if (ch == '"') {
+				quoted = true;
+				wasQuoted = true;
+			} else if (ch == ',') {
+				fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+				field.setLength(0);
+				wasQuoted = false;
+			} else {
+				field.append(ch);
+			}
+		}
+
+		fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+		return fields;
+	}
+
+	/**
+	 * Appends the fields to the builder as one CSV row followed by a newline.
+	 */
+	static void appendRow(StringBuilder builder, Object... fields) {
+		for (int index = 0; index < fields.length; index++) {
+			if (index > 0) {
+				builder.append(',');
+			}
+
+			if (Objects.nonNull(fields[index])) {
+				appendField(builder, fields[index].toString());
+			}
+		}
+
+		builder.append('\n');
+	}
+
+	private static void appendField(StringBuilder builder, String value) {
+		boolean quote = value.isEmpty();
+
+		for (int pos = 0; pos < value.length() && !quote; pos++) {
+			char ch = value.charAt(pos);
+			quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+		}
+
+		if (!quote) {
+			builder.append(value);
+			return;
+		}
+
+		builder.append('"');
+
+		for (int pos = 0; pos < value.length(); pos++) {
+			char ch = value.charAt(pos);
+
+			if (ch == '"') {
+				builder.append('"');
+			}
+
+			builder.append(ch);
+		}
+
+		builder.append('"');
+	}
+
+	private static boolean hasOpenQuote(CharSequence text) {
+		int quotes = 0;
+
+		for (int pos = 0; pos < text.length(); pos++) {
+			if (text.charAt(pos) == '"') {
+				quotes++;
+			}
+		}
+
+		return quotes % 2 != 0;
+	}
+}
@@ -0,0 +1,166 @@
+package projects.io;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+import projects.exception.DbException;
+
+/**
+ * Exports every project graph to a CSV or JSON Lines file (see
+ * {@link ProjectFileFormat}) that {@link ProjectImporter} can read back.
+ *
+ * Projects are streamed from the database in project ID order and each one is
+ * written as soon as its children have been read, so memory use does not grow
+ * with the number of projects. The file is written through a buffered
+ * {@link FileChannel}, gzip-compressed if its name ends in {@code .gz}.
+ *
+ * The export goes to a temporary file next to the target, which replaces the
+ * target only once it is complete, so readers never see a half-written file.
+ */
+public class ProjectExporter {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final ProjectDao projectDao;
+	private long progressIntervalMillis = 5_000;
+
+	public ProjectExporter(ProjectDao projectDao) {
+		this.projectDao = projectDao;
+	}
+
+	public ProjectExporter setProgressIntervalMillis(long progressIntervalMillis) {
+		this.progressIntervalMillis = progressIntervalMillis;
+		return this;
+	}
+
+	/**
+	 * Exports all projects, replacing the file if it exists.
+	 *
+	 * @param path the CSV or JSON Lines file, optionally ending in {@code .gz}
+	 * @return what was exported
+	 */
+	public ExportSummary exportFile(Path path) {
+		ProjectFileFormat format = ProjectFileFormat.forPath(path);
+		Path partial = path.resolveSibling(path.getFileName() + ".part");
+		RecordSink sink = null;
+
+		try {
+			ExportSummary summary;
+
+			try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				sink = new RecordSink(format, channel, ProjectFileFormat.isGzip(path));
+				projectDao.forEachProjectGraph(sink::write);
+				summary = sink.finish();
+			}
+
+			Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return summary;
+
+		} catch (IOException | RuntimeException e) {
+			deleteQuietly(partial);
+
+			String progress = Objects.isNull(sink) ? "" : " after " + sink.projects + " projects";
+			Throwable cause = e instanceof DbException && e.getCause() instanceof UncheckedIOException
+					? e.getCause().getCause()
+					: e;
+
+			throw new DbException("Export to " + path + " failed" + progress + ": " + cause.getMessage(), cause);
+		}
+	}
+
+	private static void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			/* The export has failed anyway. */
+		}
+	}
+
+	/**
+	 * Formats projects and writes them to the channel, reusing one builder for
+	 * every record.
+	 */
+	private class RecordSink {
+		private final ProjectFileFormat format;
+		private final FileChannel channel;
+		private final GZIPOutputStream gzip;
+		private final OutputStream out;
+		private final StringBuilder record = new StringBuilder(1024);
+		private final long start = System.nanoTime();
+		private long lastReport = start;
+		private long projects;
+		private long rows;
+
+		RecordSink(ProjectFileFormat format, FileChannel channel, boolean compress) throws IOException {
+			OutputStream channelOut = Channels.newOutputStream(channel);
+
+			this.format = format;
+			this.channel = channel;
+			this.gzip = compress ? new GZIPOutputStream(channelOut, BUFFER_SIZE) : null;
+			this.out = new BufferedOutputStream(compress ? gzip : channelOut, BUFFER_SIZE);
+		}
+
+		void write(Project project) {
+			record.setLength(0);
+			ProjectRecordWriter.append(format, project, record);
+
+			try {
+				out.write(record.toString().getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+
+			projects++;
+			rows += 1 + project.getMaterials().size() + project.getSteps().size() + project.getCategories().size();
+
+			long now = System.nanoTime();
+
+			if (now - lastReport >= TimeUnit.MILLISECONDS.toNanos(progressIntervalMillis)) {
+				lastReport = now;
+				System.out.println("Export progress: " + summary());
+			}
+		}
+
+		/* Writes out what is buffered and the gzip trailer, syncs the file and closes it. */
+		ExportSummary finish() throws IOException {
+			out.flush();
+
+			if (Objects.nonNull(gzip)) {
+				gzip.finish();
+			}
+
+			channel.force(false);
+
+			ExportSummary summary = summary();
+
+			out.close();
+			return summary;
+		}
+
+		ExportSummary summary() {
+			long bytes;
+
+			try {
+				bytes = channel.size();
+			} catch (IOException e) {
+				bytes = -1;
+			}
+
+			return new ExportSummary(projects, rows, bytes, (System.nanoTime() - start) / 1_000_000);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package projects.io;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+import projects.exception.DbException;
+
+/**
+ * The file formats used to import and export project graphs. Either format may
+ * be gzip-compressed, which is indicated by a {@code .gz} suffix.
+ * 
+ * <p>
+ * JSON Lines holds one project per line:
+ * 
+ * <pre>
+ * {"projectName":"Hang a door","estimatedHours":4,"actualHours":null,"difficulty":3,"notes":"...",
+ *  "materials":[{"materialName":"Hinge","numRequired":3,"cost":2.50}],
+ *  "steps":[{"stepText":"Mark the hinge locations"}],
+ *  "categories":[{"categoryName":"Doors and Windows"}]}
+ * </pre>
+ * 
+ * <p>
+ * CSV holds one row per entity. Each project row is followed by the rows of its
+ * children, and lines starting with {@code #} are ignored:
+ * 
+ * <pre>
+ * project,Hang a door,4.00,,3,...
+ * material,Hinge,3,2.50
+ * step,Mark the hinge locations
+ * category,Doors and Windows
+ * </pre>
+ */
+public enum ProjectFileFormat {
+	CSV, JSON_LINES;
+
+	/**
+	 * Picks the format from the file name: {@code .csv}, or {@code .jsonl} /
+	 * {@code .ndjson} / {@code .json}, optionally followed by {@code .gz}.
+	 */
+	public static ProjectFileFormat forPath(Path path) {
+		String name = baseName(path);
+
+		if (name.endsWith(".csv")) {
+			return CSV;
+		}
+
+		if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) {
+			return JSON_LINES;
+		}
+
+		throw new DbException("Unable to tell the file format of " + path
+				+ ". Use a .csv or .jsonl file name, optionally ending in .gz.");
+	}
+
+	public static boolean isGzip(Path path) {
+		return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+	}
+
+	private static String baseName(Path path) {
+		String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+		return isGzip(path) ? name.substring(0, name.length() - 3) : name;
+	}
+}
@@ -0,0 +1,230 @@
+package projects.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import projects.dao.ProjectDao;
+import projects.entity.Category;
+import projects.entity.Project;
+import projects.exception.DbException;
+import projects.io.ProjectRecordReader.RawRecord;
+
+/**
+ * Imports project graphs from a CSV or JSON Lines file (see
+ * {@link ProjectFileFormat}).
+ * 
+ * The work is split into a pipeline:
+ * <ol>
+ * <li>A reader thread streams the file and cuts it into chunks of raw
+ * records.</li>
+ * <li>Parser threads turn each chunk into {@link Project} graphs.</li>
+ * <li>The calling thread writes each chunk in one batched transaction, in file
+ * order.</li>
+ * </ol>
+ * The reader hands chunks to the writer through a bounded queue, so it stops
+ * reading when the database falls behind and memory use stays flat.
+ * 
+ * Each transaction also records how many input records have been committed. If
+ * an import fails, running it again on the same file skips the committed
+ * records and carries on from there.
+ */
+public class ProjectImporter {
+	private final ProjectDao projectDao;
+	private int batchSize = 500;
+	private int parserThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+	private int queueCapacity = 2 * parserThreads + 2;
+	private long progressIntervalMillis = 5_000;
+	private Consumer<Project> commitListener = project -> {
+	};
+
+	public ProjectImporter(ProjectDao projectDao) {
+		this.projectDao = projectDao;
+	}
+
+	/** Sets the number of projects written per transaction. */
+	public ProjectImporter setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	public ProjectImporter setParserThreads(int parserThreads) {
+		this.parserThreads = parserThreads;
+		return this;
+	}
+
+	/** Sets the number of parsed or in-progress chunks allowed ahead of the writer. */
+	public ProjectImporter setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+		return this;
+	}
+
+	public ProjectImporter setProgressIntervalMillis(long progressIntervalMillis) {
+		this.progressIntervalMillis = progressIntervalMillis;
+		return this;
+	}
+
+	/**
+	 * Sets what to do with each imported project once its chunk has committed.
+	 * It runs on the calling thread and gets the project graph with its ID filled
+	 * in.
+	 */
+	public ProjectImporter setCommitListener(Consumer<Project> commitListener) {
+		this.commitListener = commitListener;
+		return this;
+	}
+
+	/**
+	 * Imports the file, resuming after the last committed chunk if an earlier
+	 * import of the same file failed.
+	 * 
+	 * @param path the CSV or JSON Lines file
+	 * @return what was imported
+	 */
+	public ImportSummary importFile(Path path) {
+		String importKey = path.toAbsolutePath().normalize().toString();
+		long skipped = projectDao.fetchImportCheckpoint(importKey);
+		Map<String, Integer> categoryIds = new HashMap<>();
+
+		for (Category category : projectDao.fetchAllCategories()) {
+			if (Objects.nonNull(category.getCategoryName())) {
+				categoryIds.putIfAbsent(ProjectDao.categoryKey(category.getCategoryName()), category.getCategoryId());
+			}
+		}
+
+		if (skipped > 0) {
+			System.out.println("Resuming import of " + path + " after " + skipped + " records.");
+		}
+
+		ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, daemon("project-import-parser"));
+		BlockingQueue<Future<List<Project>>> chunks = new ArrayBlockingQueue<>(queueCapacity);
+		Thread reader = daemon("project-import-reader").newThread(() -> read(path, skipped, parsers, chunks));
+
+		long start = System.nanoTime();
+		long lastReport = start;
+		long committed = skipped;
+		long projectsImported = 0;
+		long rowsImported = 0;
+
+		reader.start();
+
+		try {
+			List<Project> projects;
+
+			while (Objects.nonNull(projects = chunks.take().get())) {
+				projectDao.importProjectGraphs(projects, categoryIds, importKey, committed + projects.size());
+				projects.forEach(commitListener);
+
+				committed += projects.size();
+				projectsImported += projects.size();
+				rowsImported += countRows(projects);
+
+				long now = System.nanoTime();
+
+				if (now - lastReport >= TimeUnit.MILLISECONDS.toNanos(progressIntervalMillis)) {
+					lastReport = now;
+					System.out.println("Import progress: "
+							+ new ImportSummary(projectsImported, rowsImported, skipped, (now - start) / 1_000_000));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Import of " + path + " was interrupted after " + committed + " records.", e);
+		} catch (ExecutionException e) {
+			throw new DbException("Import of " + path + " failed after " + committed + " records: "
+					+ e.getCause().getMessage(), e.getCause());
+		} finally {
+			reader.interrupt();
+			parsers.shutdownNow();
+		}
+
+		projectDao.deleteImportCheckpoint(importKey);
+		return new ImportSummary(projectsImported, rowsImported, skipped, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	/**
+	 * Runs on the reader thread. Skips records committed by an earlier run, then
+	 * hands out chunks for parsing. A null result marks the end of the file and a
+	 * failed future reports a read error.
+	 */
+	private void read(Path path, long skip, ExecutorService parsers, BlockingQueue<Future<List<Project>>> chunks) {
+		try {
+			Future<List<Project>> end = CompletableFuture.completedFuture(null);
+
+			try (ProjectRecordReader in = new ProjectRecordReader(path)) {
+				ProjectFileFormat format = in.getFormat();
+				List<RawRecord> chunk = new ArrayList<>(batchSize);
+				RawRecord record;
+
+				for (long skipped = 0; skipped < skip && Objects.nonNull(in.next()); skipped++) {
+					/* Already committed. */
+				}
+
+				while (Objects.nonNull(record = in.next())) {
+					chunk.add(record);
+
+					if (chunk.size() == batchSize) {
+						chunks.put(parsers.submit(parse(format, chunk)));
+						chunk = new ArrayList<>(batchSize);
+					}
+				}
+
+				if (!chunk.isEmpty()) {
+					chunks.put(parsers.submit(parse(format, chunk)));
+				}
+			} catch (IOException | RuntimeException e) {
+				end = CompletableFuture.failedFuture(e);
+			}
+
+			chunks.put(end);
+
+		} catch (InterruptedException e) {
+			/* The writer has stopped. */
+		}
+	}
+
+	private Callable<List<Project>> parse(ProjectFileFormat format, List<RawRecord> chunk) {
+		return () -> {
+			List<Project> projects = new ArrayList<>(chunk.size());
+
+			for (RawRecord record : chunk) {
+				projects.add(ProjectRecordParser.parse(format, record));
+			}
+
+			return projects;
+		};
+	}
+
+	private long countRows(List<Project> projects) {
+		long rows = 0;
+
+		for (Project project : projects) {
+			rows += 1 + project.getMaterials().size() + project.getSteps().size() + project.getCategories().size();
+		}
+
+		return rows;
+	}
+
+	private static ThreadFactory daemon(String name) {
+		return runnable -> {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,159 @@
+package projects.io;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import projects.dao.ProjectDao;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.io.ProjectRecordReader.RawRecord;
+
+/**
+ * Turns raw records into {@link Project} graphs. Steps are numbered in the
+ * order they appear in the record, {@link ProjectDao#STEP_ORDER_GAP} apart.
+ */
+class ProjectRecordParser {
+	private ProjectRecordParser() {
+	}
+
+	/**
+	 * Parses one record.
+	 * 
+	 * @throws IllegalArgumentException with the record's line number if the record
+	 *                                  is malformed
+	 */
+	static Project parse(ProjectFileFormat format, RawRecord record) {
+		try {
+			Project project = format == ProjectFileFormat.CSV ? parseCsv(record.rows) : parseJson(record.rows.get(0));
+
+			if (Objects.isNull(project.getProjectName()) || project.getProjectName().isBlank()) {
+				throw new IllegalArgumentException("project name is required");
+			}
+
+			for (int index = 0; index < project.getSteps().size(); index++) {
+				project.getSteps().get(index).setStepOrder((index + 1) * ProjectDao.STEP_ORDER_GAP);
+			}
+
+			return project;
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Line " + record.lineNumber + ": " + e.getMessage(), e);
+		}
+	}
+
+	private static Project parseCsv(List<String> rows) {
+		Project project = new Project();
+
+		for (String row : rows) {
+			List<String> fields = ProjectCsv.split(row);
+
+			switch (fields.get(0)) {
+			case ProjectCsv.PROJECT:
+				project.setProjectName(field(fields, 1));
+				project.setEstimatedHours(toDecimal(field(fields, 2)));
+				project.setActualHours(toDecimal(field(fields, 3)));
+				project.setDifficulty(toInteger(field(fields, 4)));
+				project.setNotes(field(fields, 5));
+				break;
+
+			case ProjectCsv.MATERIAL:
+				Material material = new Material();
+				material.setMaterialName(field(fields, 1));
+				material.setNumRequired(toInteger(field(fields, 2)));
+				material.setCost(toDecimal(field(fields, 3)));
+				project.getMaterials().add(material);
+				break;
+
+			case ProjectCsv.STEP:
+				Step step = new Step();
+				step.setStepText(field(fields, 1));
+				project.getSteps().add(step);
+				break;
+
+			case ProjectCsv.CATEGORY:
+				Category category = new Category();
+				category.setCategoryName(field(fields, 1));
+				project.getCategories().add(category);
+				break;
+
+			default:
+				throw new IllegalArgumentException("unknown row type '" + fields.get(0) + "'");
+			}
+		}
+
+		return project;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Project parseJson(String line) {
+		Object value = JsonParser.parse(line);
+
+		if (!(value instanceof Map)) {
+			throw new IllegalArgumentException("expected a JSON object");
+		}
+
+		Map<String, Object> json = (Map<String, Object>) value;
+		Project project = new Project();
+
+		project.setProjectName((String) json.get("projectName"));
+		project.setEstimatedHours((BigDecimal) json.get("estimatedHours"));
+		project.setActualHours((BigDecimal) json.get("actualHours"));
+		project.setDifficulty(toInteger((BigDecimal) json.get("difficulty")));
+		project.setNotes((String) json.get("notes"));
+
+		for (Map<String, Object> item : objects(json, "materials")) {
+			Material material = new Material();
+			material.setMaterialName((String) item.get("materialName"));
+			material.setNumRequired(toInteger((BigDecimal) item.get("numRequired")));
+			material.setCost((BigDecimal) item.get("cost"));
+			project.getMaterials().add(material);
+		}
+
+		for (Map<String, Object> item : objects(json, "steps")) {
+			Step step = new Step();
+			step.setStepText((String) item.get("stepText"));
+			project.getSteps().add(step);
+		}
+
+		for (Object item : list(json, "categories")) {
+			Category category = new Category();
+
+			/* Categories may be given as plain names or as objects. */
+			category.setCategoryName(item instanceof Map ? (String) ((Map<String, Object>) item).get("categoryName")
+					: (String) item);
+			project.getCategories().add(category);
+		}
+
+		return project;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Map<String, Object>> objects(Map<String, Object> json, String name) {
+		return (List<Map<String, Object>>) (List<?>) list(json, name);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> list(Map<String, Object> json, String name) {
+		Object value = json.get(name);
+		return Objects.isNull(value) ? List.of() : (List<Object>) value;
+	}
+
+	private static String field(List<String> fields, int index) {
+		return index < fields.size() ? fields.get(index) : null;
+	}
+
+	private static BigDecimal toDecimal(String value) {
+		return Objects.isNull(value) ? null : new BigDecimal(value.trim());
+	}
+
+	private static Integer toInteger(String value) {
+		return Objects.isNull(value) ? null : Integer.valueOf(value.trim());
+	}
+
+	private static Integer toInteger(BigDecimal value) {
+		return Objects.isNull(value) ? null : value.intValueExact();
+	}
+}
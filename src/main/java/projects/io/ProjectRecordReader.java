@@ -0,0 +1,130 @@
+package projects.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads an import file one project record at a time without parsing it. A
+ * record is the raw text of one project and its children: a single line for
+ * JSON Lines, or a project row and the child rows after it for CSV. Parsing is
+ * left to {@link ProjectRecordParser} so it can run on other threads.
+ */
+class ProjectRecordReader implements AutoCloseable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final ProjectFileFormat format;
+	private final BufferedReader reader;
+	private long lineNumber;
+	private String pendingRow;
+	private long pendingLineNumber;
+
+	ProjectRecordReader(Path path) throws IOException {
+		this.format = ProjectFileFormat.forPath(path);
+
+		InputStream in = Files.newInputStream(path);
+
+		if (ProjectFileFormat.isGzip(path)) {
+			in = new GZIPInputStream(in, BUFFER_SIZE);
+		}
+
+		this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+	}
+
+	ProjectFileFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * Returns the next record, or null at end of input.
+	 */
+	RawRecord next() throws IOException {
+		return format == ProjectFileFormat.CSV ? nextCsv() : nextJson();
+	}
+
+	private RawRecord nextJson() throws IOException {
+		String line;
+
+		while (Objects.nonNull(line = reader.readLine())) {
+			lineNumber++;
+
+			if (!line.isBlank()) {
+				return new RawRecord(lineNumber, List.of(line));
+			}
+		}
+
+		return null;
+	}
+
+	private RawRecord nextCsv() throws IOException {
+		String row = Objects.nonNull(pendingRow) ? pendingRow : nextCsvRow();
+		long startLine = Objects.nonNull(pendingRow) ? pendingLineNumber : lineNumber;
+		pendingRow = null;
+
+		if (Objects.isNull(row)) {
+			return null;
+		}
+
+		if (!row.startsWith(ProjectCsv.PROJECT + ",")) {
+			throw new IOException("Line " + startLine + ": expected a project row but found: " + row);
+		}
+
+		List<String> rows = new ArrayList<>();
+		rows.add(row);
+
+		while (Objects.nonNull(row = nextCsvRow())) {
+			if (row.startsWith(ProjectCsv.PROJECT + ",")) {
+				pendingRow = row;
+				pendingLineNumber = lineNumber;
+				break;
+			}
+
+			rows.add(row);
+		}
+
+		return new RawRecord(startLine, rows);
+	}
+
+	/**
+	 * Returns the next CSV row that is not blank or a comment.
+	 */
+	private String nextCsvRow() throws IOException {
+		String row;
+
+		while (Objects.nonNull(row = ProjectCsv.readRow(reader))) {
+			lineNumber += row.chars().filter(ch -> ch == '\n').count() + 1;
+
+			if (!row.isBlank() && !row.startsWith("#")) {
+				return row;
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	/**
+	 * The unparsed text of one project record and the line it started on.
+	 */
+	static class RawRecord {
+		final long lineNumber;
+		final List<String> rows;
+
+		RawRecord(long lineNumber, List<String> rows) {
+			this.lineNumber = lineNumber;
+			this.rows = rows;
+		}
+	}
+}
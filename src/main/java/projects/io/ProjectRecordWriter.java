@@ -0,0 +1,143 @@
+package projects.io;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+/**
+ * Turns {@link Project} graphs into records of a {@link ProjectFileFormat},
+ * the reverse of {@link ProjectRecordParser}. Steps are written in the order
+ * they are in the project. IDs and step orders are not written, so an exported
+ * file imports as new projects.
+ */
+class ProjectRecordWriter {
+	private ProjectRecordWriter() {
+	}
+
+	/**
+	 * Appends the project's record, ending in a newline, to the builder.
+	 */
+	static void append(ProjectFileFormat format, Project project, StringBuilder builder) {
+		if (format == ProjectFileFormat.CSV) {
+			appendCsv(project, builder);
+		} else {
+			appendJson(project, builder);
+		}
+	}
+
+	private static void appendCsv(Project project, StringBuilder builder) {
+		ProjectCsv.appendRow(builder, ProjectCsv.PROJECT, project.getProjectName(), plain(project.getEstimatedHours()),
+				plain(project.getActualHours()), project.getDifficulty(), project.getNotes());
+
+		for (Material material : project.getMaterials()) {
+			ProjectCsv.appendRow(builder, ProjectCsv.MATERIAL, material.getMaterialName(), material.getNumRequired(),
+					plain(material.getCost()));
+		}
+
+		for (Step step : project.getSteps()) {
+			ProjectCsv.appendRow(builder, ProjectCsv.STEP, step.getStepText());
+		}
+
+		for (Category category : project.getCategories()) {
+			ProjectCsv.appendRow(builder, ProjectCsv.CATEGORY, category.getCategoryName());
+		}
+	}
+
+	private static void appendJson(Project project, StringBuilder builder) {
+		builder.append("{\"projectName\":");
+		appendString(builder, project.getProjectName());
+		builder.append(",\"estimatedHours\":").append(plain(project.getEstimatedHours()));
+		builder.append(",\"actualHours\":").append(plain(project.getActualHours()));
+		builder.append(",\"difficulty\":").append(project.getDifficulty());
+		builder.append(",\"notes\":");
+		appendString(builder, project.getNotes());
+
+		builder.append(",\"materials\":[");
+		List<Material> materials = project.getMaterials();
+
+		for (int index = 0; index < materials.size(); index++) {
+			Material material = materials.get(index);
+
+			builder.append(index == 0 ? "{" : ",{").append("\"materialName\":");
+			appendString(builder, material.getMaterialName());
+			builder.append(",\"numRequired\":").append(material.getNumRequired());
+			builder.append(",\"cost\":").append(plain(material.getCost())).append('}');
+		}
+
+		builder.append("],\"steps\":[");
+		List<Step> steps = project.getSteps();
+
+		for (int index = 0; index < steps.size(); index++) {
+			builder.append(index == 0 ? "{" : ",{").append("\"stepText\":");
+			appendString(builder, steps.get(index).getStepText());
+			builder.append('}');
+		}
+
+		builder.append("],\"categories\":[");
+		List<Category> categories = project.getCategories();
+
+		for (int index = 0; index < categories.size(); index++) {
+			builder.append(index == 0 ? "{" : ",{").append("\"categoryName\":");
+			appendString(builder, categories.get(index).getCategoryName());
+			builder.append('}');
+		}
+
+		builder.append("]}\n");
+	}
+
+	/* Writes a JSON string, or null. */
+	private static void appendString(StringBuilder builder, String value) {
+		if (Objects.isNull(value)) {
+			builder.append("null");
+			return;
+		}
+
+		builder.append('"');
+
+		for (int pos = 0; pos < value.length(); pos++) {
+			char ch = value.charAt(pos);
+
+			switch (ch) {
+			case '"':
+				builder.append("\\\"");
+				break;
+
+			case '\\':
+				builder.append("\\\\");
+				break;
+
+			case '\n':
+				builder.append("\\n");
+				break;
+
+			case '\r':
+				builder.append("\\r");
+				break;
+
+			case '\t':
+				builder.append("\\t");
+				break;
+
+			default:
+				if (ch < 0x20) {
+					builder.append(String.format("\\u%04x", (int) ch));
+				} else {
+					builder.append(ch);
+				}
+				break;
+			}
+		}
+
+		builder.append('"');
+	}
+
+	/* Avoids exponent notation, which the CSV reader would still parse but people would not. */
+	private static String plain(BigDecimal value) {
+		return Objects.isNull(value) ? null : value.toPlainString();
+	}
+}
@@ -0,0 +1,422 @@
+package projects.loadgen;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import projects.dao.DbConnection;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.exception.DbException;
+import projects.metrics.LatencyHistogram;
+import projects.service.ProjectService;
+
+/**
+ * A headless load generator for the projects workload. It seeds a dataset, runs
+ * a weighted mix of operations against {@link ProjectService} from a number of
+ * worker threads for a warmup period and then a measured period, and reports
+ * the throughput and latency percentiles of each operation. The results are
+ * also written to a JSON file so that runs can be compared.
+ * 
+ * <p>
+ * With a target rate, each worker sends operations on a fixed schedule and
+ * latency is measured from when an operation was due rather than when it was
+ * sent, so a stall shows up in the percentiles instead of silently lowering the
+ * rate. See {@link LoadOptions} for the arguments. For example:
+ * 
+ * <pre>
+ * mvn -q compile exec:java -Dexec.mainClass=projects.loadgen.LoadGenerator \
+ *     -Dexec.args="--threads=32 --virtual=true --rate=2000 --duration=120"
+ * </pre>
+ */
+public class LoadGenerator {
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+	private final LoadOptions options;
+	private final ProjectService projectService = new ProjectService();
+	private final IdPool projectIds = new IdPool();
+	private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+	private final Operation[] weightedOperations;
+
+	public LoadGenerator(LoadOptions options) {
+		this.options = options;
+
+		List<Operation> weighted = new ArrayList<>();
+
+		for (Operation operation : Operation.values()) {
+			stats.put(operation, new OperationStats());
+
+			for (int weight = options.getMix().getOrDefault(operation, 0); weight > 0; weight--) {
+				weighted.add(operation);
+			}
+		}
+
+		this.weightedOperations = weighted.toArray(new Operation[0]);
+	}
+
+	public static void main(String[] args) {
+		try {
+			new LoadGenerator(LoadOptions.parse(args)).run();
+		} catch (DbException e) {
+			System.out.println("\nError: " + e.getMessage());
+			System.exit(1);
+		} finally {
+			DbConnection.shutdown();
+		}
+	}
+
+	public void run() {
+		if (options.isCreateTables()) {
+			System.out.println("Recreating the tables...");
+			projectService.createAndPopulateTables();
+		}
+
+		seed();
+
+		long warmupNanos = options.getWarmupSeconds() * NANOS_PER_SECOND;
+		long measureNanos = options.getDurationSeconds() * NANOS_PER_SECOND;
+		long start = System.nanoTime();
+		long measureStart = start + warmupNanos;
+		long end = measureStart + measureNanos;
+
+		System.out.printf("Running %d %s workers for %ds warmup + %ds...%n", options.getThreads(),
+				options.isVirtualThreads() ? "virtual-thread" : "platform-thread", options.getWarmupSeconds(),
+				options.getDurationSeconds());
+
+		try (ExecutorService workers = options.isVirtualThreads() ? Executors.newVirtualThreadPerTaskExecutor()
+				: Executors.newFixedThreadPool(options.getThreads())) {
+			List<Future<?>> running = new ArrayList<>();
+
+			for (int worker = 0; worker < options.getThreads(); worker++) {
+				int offset = worker;
+				running.add(workers.submit(() -> work(offset, start, measureStart, end)));
+			}
+
+			for (Future<?> future : running) {
+				future.get();
+			}
+		} catch (Exception e) {
+			throw new DbException("A load generator worker failed.", e);
+		}
+
+		/*
+		 * Operations due before the end may finish after it, so throughput is taken
+		 * over the time actually spent.
+		 */
+		report((System.nanoTime() - measureStart) / (double) NANOS_PER_SECOND);
+	}
+
+	/**
+	 * Runs operations until the end time, recording those that were due after
+	 * measuring started.
+	 */
+	private void work(int worker, long start, long measureStart, long end) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long interval = options.getTargetRate() > 0
+				? (long) (NANOS_PER_SECOND * options.getThreads() / options.getTargetRate())
+				: 0;
+
+		/* Stagger the workers so that they do not all fire at once. */
+		long due = start + interval * worker / options.getThreads();
+
+		while (true) {
+			if (interval > 0) {
+				long wait;
+
+				while ((wait = due - System.nanoTime()) > 0) {
+					LockSupport.parkNanos(wait);
+				}
+			} else {
+				due = System.nanoTime();
+			}
+
+			if (due >= end) {
+				return;
+			}
+
+			Operation operation = weightedOperations[random.nextInt(weightedOperations.length)];
+			OperationStats operationStats = stats.get(operation);
+			boolean ok = perform(operation, random);
+
+			if (due >= measureStart) {
+				operationStats.latency.recordSince(due);
+
+				if (!ok) {
+					operationStats.errors.increment();
+				}
+			}
+
+			due += interval;
+		}
+	}
+
+	private boolean perform(Operation operation, ThreadLocalRandom random) {
+		try {
+			switch (operation) {
+			case CREATE:
+				create(random.nextInt(Integer.MAX_VALUE));
+				break;
+
+			case LIST:
+				projectService.fetchAllProjects();
+				break;
+
+			case SELECT:
+				projectService.fetchProjectById(projectIds.random(random));
+				break;
+
+			case UPDATE:
+				Project project = newProject(random.nextInt(Integer.MAX_VALUE));
+				project.setProjectId(projectIds.random(random));
+				project.setNotes("Updated by the load generator");
+				projectService.modifyProjectDetails(project);
+				break;
+
+			case DELETE:
+				projectService.deleteProject(projectIds.removeRandom(random));
+				break;
+			}
+
+			return true;
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private void create(int index) {
+		Project project = projectService.addProject(newProject(index));
+
+		if (options.getChildCount() > 0) {
+			List<Step> steps = new ArrayList<>();
+
+			for (int child = 1; child <= options.getChildCount(); child++) {
+				Step step = new Step();
+				step.setStepText("Step " + child + " of load test project " + index);
+				steps.add(step);
+			}
+
+			projectService.addSteps(project.getProjectId(), steps);
+		}
+
+		projectIds.add(project.getProjectId());
+	}
+
+	private static Project newProject(int index) {
+		Project project = new Project();
+
+		project.setProjectName("Load test project " + index);
+		project.setEstimatedHours(BigDecimal.valueOf(index % 40 + 1, 0));
+		project.setActualHours(BigDecimal.valueOf(index % 4000, 2));
+		project.setDifficulty(index % 5 + 1);
+		project.setNotes("Created by the load generator");
+		return project;
+	}
+
+	/**
+	 * Imports the requested number of projects with materials, steps and
+	 * categories, then collects the IDs of every project in the database.
+	 */
+	private void seed() {
+		if (options.getDatasetSize() > 0) {
+			System.out.println("Seeding " + options.getDatasetSize() + " projects...");
+
+			Path file = null;
+
+			try {
+				file = Files.createTempFile("loadgen-seed-", ".jsonl");
+				writeSeedFile(file);
+				System.out.println(projectService.importProjects(file));
+			} catch (IOException e) {
+				throw new DbException("Unable to write the seed file.", e);
+			} finally {
+				deleteQuietly(file);
+			}
+		}
+
+		try (Stream<Project> projects = projectService.streamAllProjects()) {
+			projects.forEach(project -> projectIds.add(project.getProjectId()));
+		}
+
+		System.out.println("The dataset holds " + projectIds.size() + " projects.");
+	}
+
+	private void writeSeedFile(Path file) throws IOException {
+		try (Writer out = new BufferedWriter(
+				new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8))) {
+			for (int index = 0; index < options.getDatasetSize(); index++) {
+				out.write("{\"projectName\":\"Seed project " + index + "\",\"estimatedHours\":" + (index % 40 + 1)
+						+ ",\"actualHours\":null,\"difficulty\":" + (index % 5 + 1)
+						+ ",\"notes\":\"Seeded by the load generator\",\"materials\":[");
+
+				for (int child = 0; child < options.getChildCount(); child++) {
+					out.write((child == 0 ? "" : ",") + "{\"materialName\":\"Material " + child
+							+ "\",\"numRequired\":" + (child + 1) + ",\"cost\":" + (child + 1) + ".25}");
+				}
+
+				out.write("],\"steps\":[");
+
+				for (int child = 0; child < options.getChildCount(); child++) {
+					out.write((child == 0 ? "" : ",") + "{\"stepText\":\"Step " + child + "\"}");
+				}
+
+				out.write("],\"categories\":[\"Load test " + index % 10 + "\"]}\n");
+			}
+		}
+	}
+
+	private static void deleteQuietly(Path file) {
+		try {
+			if (Objects.nonNull(file)) {
+				Files.deleteIfExists(file);
+			}
+		} catch (IOException e) {
+			System.out.println("Unable to delete " + file + ": " + e.getMessage());
+		}
+	}
+
+	private void report(double seconds) {
+		long total = 0;
+
+		System.out.printf("%n%-8s %10s %8s %10s %10s %10s %10s %10s%n", "op", "count", "errors", "ops/s", "p50 ms",
+				"p95 ms", "p99 ms", "max ms");
+
+		for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+			LatencyHistogram latency = entry.getValue().latency;
+			total += latency.getCount();
+
+			System.out.printf("%-8s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n", entry.getKey().label(),
+					latency.getCount(), entry.getValue().errors.sum(), latency.getCount() / seconds,
+					millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(95)),
+					millis(latency.getValueAtPercentile(99)), millis(latency.getMaxNanos()));
+		}
+
+		System.out.printf("%-8s %10d %8s %10.1f%n", "total", total, "", total / seconds);
+
+		try {
+			Files.writeString(options.getResultFile(), toJson(total, seconds), StandardCharsets.UTF_8);
+			System.out.println("\nResults written to " + options.getResultFile().toAbsolutePath());
+		} catch (IOException e) {
+			throw new DbException("Unable to write " + options.getResultFile(), e);
+		}
+	}
+
+	private String toJson(long total, double seconds) {
+		StringBuilder json = new StringBuilder();
+
+		json.append("{\n");
+		json.append("  \"finishedAt\": \"").append(Instant.now()).append("\",\n");
+		json.append("  \"options\": {");
+		json.append("\"threads\": ").append(options.getThreads());
+		json.append(", \"virtualThreads\": ").append(options.isVirtualThreads());
+		json.append(", \"targetRate\": ").append(options.getTargetRate());
+		json.append(", \"datasetSize\": ").append(options.getDatasetSize());
+		json.append(", \"childCount\": ").append(options.getChildCount());
+		json.append(", \"warmupSeconds\": ").append(options.getWarmupSeconds());
+		json.append(", \"durationSeconds\": ").append(options.getDurationSeconds());
+		json.append(", \"mix\": {");
+
+		String separator = "";
+
+		for (Map.Entry<Operation, Integer> entry : options.getMix().entrySet()) {
+			json.append(separator).append('"').append(entry.getKey().label()).append("\": ").append(entry.getValue());
+			separator = ", ";
+		}
+
+		json.append("}},\n");
+		json.append("  \"measuredSeconds\": ").append(format(seconds)).append(",\n");
+		json.append("  \"totalOperations\": ").append(total).append(",\n");
+		json.append("  \"throughput\": ").append(format(total / seconds)).append(",\n");
+		json.append("  \"operations\": {");
+
+		separator = "\n";
+
+		for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+			LatencyHistogram latency = entry.getValue().latency;
+
+			json.append(separator).append("    \"").append(entry.getKey().label()).append("\": {");
+			json.append("\"count\": ").append(latency.getCount());
+			json.append(", \"errors\": ").append(entry.getValue().errors.sum());
+			json.append(", \"throughput\": ").append(format(latency.getCount() / seconds));
+			json.append(", \"meanMillis\": ").append(format(latency.getMeanNanos() / NANOS_PER_MILLI));
+			json.append(", \"p50Millis\": ").append(format(millis(latency.getValueAtPercentile(50))));
+			json.append(", \"p95Millis\": ").append(format(millis(latency.getValueAtPercentile(95))));
+			json.append(", \"p99Millis\": ").append(format(millis(latency.getValueAtPercentile(99))));
+			json.append(", \"maxMillis\": ").append(format(millis(latency.getMaxNanos())));
+			json.append('}');
+			separator = ",\n";
+		}
+
+		json.append("\n  }\n}\n");
+		return json.toString();
+	}
+
+	private static double millis(long nanos) {
+		return nanos / NANOS_PER_MILLI;
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	private static class OperationStats {
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LongAdder errors = new LongAdder();
+	}
+
+	/**
+	 * The IDs of the projects that exist, so that selects, updates and deletes
+	 * pick real projects.
+	 */
+	private static class IdPool {
+		private final List<Integer> ids = new ArrayList<>();
+
+		synchronized void add(Integer id) {
+			ids.add(id);
+		}
+
+		synchronized int size() {
+			return ids.size();
+		}
+
+		synchronized Integer random(ThreadLocalRandom random) {
+			if (ids.isEmpty()) {
+				throw new DbException("There are no projects left.");
+			}
+
+			return ids.get(random.nextInt(ids.size()));
+		}
+
+		/* Swaps the last ID into the removed slot so removal does not shift the list. */
+		synchronized Integer removeRandom(ThreadLocalRandom random) {
+			if (ids.isEmpty()) {
+				throw new DbException("There are no projects left.");
+			}
+
+			int index = random.nextInt(ids.size());
+			Integer id = ids.get(index);
+			ids.set(index, ids.get(ids.size() - 1));
+			ids.remove(ids.size() - 1);
+			return id;
+		}
+	}
+}
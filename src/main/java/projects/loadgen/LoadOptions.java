@@ -0,0 +1,183 @@
+package projects.loadgen;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import projects.exception.DbException;
+
+/**
+ * Settings for a {@link LoadGenerator} run, parsed from {@code --name=value}
+ * arguments:
+ * <ul>
+ * <li>{@code --threads=16} the number of worker threads (default 8).</li>
+ * <li>{@code --virtual=true} runs the workers on virtual threads.</li>
+ * <li>{@code --rate=500} the target rate in operations per second across all
+ * workers. Zero (the default) runs as fast as possible.</li>
+ * <li>{@code --dataset=1000} the number of projects to seed before the run.</li>
+ * <li>{@code --children=5} materials and steps seeded for each project.</li>
+ * <li>{@code --warmup=10} seconds of load before measuring starts.</li>
+ * <li>{@code --duration=60} seconds of measured load.</li>
+ * <li>{@code --mix=create:10,list:5,select:70,update:10,delete:5} the relative
+ * weight of each operation.</li>
+ * <li>{@code --createTables=true} drops and recreates the tables before
+ * seeding.</li>
+ * <li>{@code --out=loadgen-result.json} where the results are written.</li>
+ * </ul>
+ */
+public class LoadOptions {
+	private int threads = 8;
+	private boolean virtualThreads;
+	private double targetRate;
+	private int datasetSize = 1000;
+	private int childCount = 5;
+	private int warmupSeconds = 10;
+	private int durationSeconds = 60;
+	private boolean createTables;
+	private Path resultFile = Path.of("loadgen-result.json");
+	private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+
+	public LoadOptions() {
+		mix.put(Operation.CREATE, 10);
+		mix.put(Operation.LIST, 5);
+		mix.put(Operation.SELECT, 70);
+		mix.put(Operation.UPDATE, 10);
+		mix.put(Operation.DELETE, 5);
+	}
+
+	public static LoadOptions parse(String[] args) {
+		LoadOptions options = new LoadOptions();
+
+		for (String arg : args) {
+			int equals = arg.indexOf('=');
+
+			if (!arg.startsWith("--") || equals < 0) {
+				throw new DbException("Expected --name=value but got " + arg);
+			}
+
+			options.set(arg.substring(2, equals), arg.substring(equals + 1).trim());
+		}
+
+		if (options.threads < 1 || options.durationSeconds < 1 || options.warmupSeconds < 0
+				|| options.datasetSize < 0 || options.childCount < 0 || options.targetRate < 0) {
+			throw new DbException("threads and duration must be positive, and the other settings may not be negative.");
+		}
+
+		if (options.mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+			throw new DbException("The operation mix must have at least one positive weight.");
+		}
+
+		return options;
+	}
+
+	private void set(String name, String value) {
+		try {
+			switch (name) {
+			case "threads":
+				threads = Integer.parseInt(value);
+				break;
+
+			case "virtual":
+				virtualThreads = Boolean.parseBoolean(value);
+				break;
+
+			case "rate":
+				targetRate = Double.parseDouble(value);
+				break;
+
+			case "dataset":
+				datasetSize = Integer.parseInt(value);
+				break;
+
+			case "children":
+				childCount = Integer.parseInt(value);
+				break;
+
+			case "warmup":
+				warmupSeconds = Integer.parseInt(value);
+				break;
+
+			case "duration":
+				durationSeconds = Integer.parseInt(value);
+				break;
+
+			case "createTables":
+				createTables = Boolean.parseBoolean(value);
+				break;
+
+			case "out":
+				resultFile = Path.of(value);
+				break;
+
+			case "mix":
+				parseMix(value);
+				break;
+
+			default:
+				throw new DbException("Unknown option --" + name);
+			}
+		} catch (NumberFormatException e) {
+			throw new DbException("--" + name + "=" + value + " is not a valid number.");
+		}
+	}
+
+	private void parseMix(String value) {
+		mix.replaceAll((operation, weight) -> 0);
+
+		for (String entry : value.split(",")) {
+			String[] parts = entry.split(":");
+
+			if (parts.length != 2) {
+				throw new DbException("Expected operation:weight in --mix but got " + entry);
+			}
+
+			try {
+				Operation operation = Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+				mix.put(operation, Integer.parseInt(parts[1].trim()));
+			} catch (IllegalArgumentException e) {
+				throw new DbException("Unknown operation or weight in --mix: " + entry);
+			}
+		}
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public double getTargetRate() {
+		return targetRate;
+	}
+
+	public int getDatasetSize() {
+		return datasetSize;
+	}
+
+	public int getChildCount() {
+		return childCount;
+	}
+
+	public int getWarmupSeconds() {
+		return warmupSeconds;
+	}
+
+	public int getDurationSeconds() {
+		return durationSeconds;
+	}
+
+	public boolean isCreateTables() {
+		return createTables;
+	}
+
+	public Path getResultFile() {
+		return resultFile;
+	}
+
+	public Map<Operation, Integer> getMix() {
+		return mix;
+	}
+}
@@ -0,0 +1,27 @@
+package projects.loadgen;
+
+import java.util.Locale;
+
+/**
+ * The operations a {@link LoadGenerator} worker can perform.
+ */
+public enum Operation {
+	/** Adds a project and appends its steps. */
+	CREATE,
+
+	/** Lists all projects without their children. */
+	LIST,
+
+	/** Fetches one project with its materials, steps and categories. */
+	SELECT,
+
+	/** Changes the details of one project. */
+	UPDATE,
+
+	/** Deletes one project. */
+	DELETE;
+
+	public String label() {
+		return name().toLowerCase(Locale.ROOT);
+	}
+}
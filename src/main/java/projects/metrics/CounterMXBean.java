@@ -0,0 +1,8 @@
+package projects.metrics;
+
+/**
+ * The JMX view of a counter.
+ */
+public interface CounterMXBean {
+	long getCount();
+}
@@ -0,0 +1,22 @@
+package projects.metrics;
+
+/**
+ * The JMX view of a {@link LatencyHistogram}. Times are in milliseconds.
+ */
+public interface HistogramMXBean {
+	long getCount();
+
+	double getMeanMillis();
+
+	double getP50Millis();
+
+	double getP95Millis();
+
+	double getP99Millis();
+
+	double getP999Millis();
+
+	double getMaxMillis();
+
+	void reset();
+}
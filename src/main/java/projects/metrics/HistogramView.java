@@ -0,0 +1,54 @@
+package projects.metrics;
+
+/**
+ * Adapts a {@link LatencyHistogram} to {@link HistogramMXBean}.
+ */
+class HistogramView implements HistogramMXBean {
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+	private final LatencyHistogram histogram;
+
+	HistogramView(LatencyHistogram histogram) {
+		this.histogram = histogram;
+	}
+
+	@Override
+	public long getCount() {
+		return histogram.getCount();
+	}
+
+	@Override
+	public double getMeanMillis() {
+		return histogram.getMeanNanos() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getP50Millis() {
+		return histogram.getValueAtPercentile(50) / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getP95Millis() {
+		return histogram.getValueAtPercentile(95) / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getP99Millis() {
+		return histogram.getValueAtPercentile(99) / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getP999Millis() {
+		return histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getMaxMillis() {
+		return histogram.getMaxNanos() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public void reset() {
+		histogram.reset();
+	}
+}
@@ -0,0 +1,127 @@
+package projects.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds with a fixed relative
+ * error, in the style of HdrHistogram. Values below 64 are counted exactly.
+ * Larger values go into buckets whose width doubles with each power of two, 64
+ * buckets per power of two, so any recorded value is reported within about 1.6%
+ * of its true value. Recording is a couple of shifts and an atomic increment,
+ * and never allocates.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * Records one duration. Negative values are recorded as zero.
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+
+		counts.incrementAndGet(indexOf(value));
+		totalCount.increment();
+		totalNanos.add(value);
+
+		if (value > maxNanos.get()) {
+			maxNanos.accumulateAndGet(value, Math::max);
+		}
+	}
+
+	/**
+	 * Records the time since the given {@link System#nanoTime()} value.
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	public long getCount() {
+		return totalCount.sum();
+	}
+
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	public double getMeanNanos() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) getTotalNanos() / count;
+	}
+
+	/**
+	 * Returns the smallest recorded value (to within the bucket precision) that
+	 * the given percentage of recorded values are less than or equal to.
+	 *
+	 * @param percentile between 0 and 100
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long count = getCount();
+
+		if (count == 0) {
+			return 0;
+		}
+
+		long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+		long seen = 0;
+
+		for (int index = 0; index < BUCKETS; index++) {
+			seen += counts.get(index);
+
+			if (seen >= target) {
+				return Math.min(highestValueIn(index), getMaxNanos());
+			}
+		}
+
+		return getMaxNanos();
+	}
+
+	/**
+	 * Clears all counts. Values recorded while this runs may be partly kept.
+	 */
+	public void reset() {
+		for (int index = 0; index < BUCKETS; index++) {
+			counts.set(index, 0);
+		}
+
+		totalCount.reset();
+		totalNanos.reset();
+		maxNanos.set(0);
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int group = shift + 1;
+
+		return group * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+
+	static long highestValueIn(int index) {
+		int group = index / SUB_BUCKETS;
+		long subBucket = index % SUB_BUCKETS;
+
+		if (group == 0) {
+			return subBucket;
+		}
+
+		int shift = group - 1;
+		return ((subBucket + SUB_BUCKETS + 1) << shift) - 1;
+	}
+}
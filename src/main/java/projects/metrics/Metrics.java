@@ -0,0 +1,266 @@
+package projects.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import projects.dao.DbConfig;
+
+/**
+ * The application's latency histograms and counters. Each metric is created
+ * once, usually into a static field of the class that records it, and is
+ * registered as a JMX MXBean under the {@code projects} domain.
+ * 
+ * <p>
+ * Recording is off unless {@code projects.metrics.enabled=true}. When it is
+ * off, {@link #start()} returns zero without reading the clock and the record
+ * methods return at once, so the instrumented code pays one volatile read. The
+ * other settings are:
+ * <ul>
+ * <li>{@code projects.metrics.dumpIntervalMillis} writes all metrics at this
+ * interval. Zero (the default) turns the dump off.</li>
+ * <li>{@code projects.metrics.dumpFormat} {@code text} or {@code json} (one
+ * JSON object per line).</li>
+ * <li>{@code projects.metrics.dumpFile} appends the dump to this file instead
+ * of printing it.</li>
+ * </ul>
+ */
+public final class Metrics {
+	public static final String CONFIG_PREFIX = "projects.metrics.";
+	private static final String JMX_DOMAIN = "projects";
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+	private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+	private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+
+	private static volatile boolean enabled;
+
+	static {
+		DbConfig config = DbConfig.load(CONFIG_PREFIX);
+		long dumpInterval = config.getLong("dumpIntervalMillis", 0);
+
+		enabled = config.getBoolean("enabled", false);
+
+		if (dumpInterval > 0) {
+			startDump(dumpInterval, "json".equalsIgnoreCase(config.get("dumpFormat", "text")),
+					config.get("dumpFile", null));
+		}
+	}
+
+	private Metrics() {
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turns recording on or off at run time.
+	 */
+	public static void setEnabled(boolean enabled) {
+		Metrics.enabled = enabled;
+	}
+
+	/**
+	 * Returns the histogram with the given name, creating and registering it the
+	 * first time.
+	 */
+	public static LatencyHistogram histogram(String name) {
+		return HISTOGRAMS.computeIfAbsent(name, key -> {
+			LatencyHistogram histogram = new LatencyHistogram();
+			register("Histogram", key, new HistogramView(histogram));
+			return histogram;
+		});
+	}
+
+	/**
+	 * Returns the counter with the given name, creating and registering it the
+	 * first time.
+	 */
+	public static LongAdder counter(String name) {
+		return COUNTERS.computeIfAbsent(name, key -> {
+			LongAdder counter = new LongAdder();
+			register("Counter", key, (CounterMXBean) counter::sum);
+			return counter;
+		});
+	}
+
+	/**
+	 * Returns the start time to pass to {@link #stop(LatencyHistogram, long)}, or
+	 * zero if recording is off.
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Records the time since a {@link #start()}. Does nothing if recording was off
+	 * at the start.
+	 */
+	public static void stop(LatencyHistogram histogram, long start) {
+		if (start != 0) {
+			histogram.recordSince(start);
+		}
+	}
+
+	public static void increment(LongAdder counter) {
+		if (enabled) {
+			counter.increment();
+		}
+	}
+
+	public static void add(LongAdder counter, long amount) {
+		if (enabled) {
+			counter.add(amount);
+		}
+	}
+
+	/**
+	 * Runs the call and records how long it took, whether or not it succeeds.
+	 */
+	public static <T> T time(LatencyHistogram histogram, Supplier<T> call) {
+		long start = start();
+
+		try {
+			return call.get();
+		} finally {
+			stop(histogram, start);
+		}
+	}
+
+	public static void time(LatencyHistogram histogram, Runnable call) {
+		long start = start();
+
+		try {
+			call.run();
+		} finally {
+			stop(histogram, start);
+		}
+	}
+
+	/**
+	 * Clears every histogram and counter.
+	 */
+	public static void reset() {
+		HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+		COUNTERS.values().forEach(LongAdder::reset);
+	}
+
+	/**
+	 * Returns all metrics as a single-line JSON object.
+	 */
+	public static String toJson() {
+		StringBuilder json = new StringBuilder();
+		String separator = "";
+
+		json.append("{\"timestamp\":\"").append(Instant.now()).append("\",\"histograms\":{");
+
+		for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+			LatencyHistogram histogram = entry.getValue();
+
+			json.append(separator).append('"').append(entry.getKey()).append("\":{\"count\":")
+					.append(histogram.getCount()).append(",\"meanMillis\":")
+					.append(format(histogram.getMeanNanos() / NANOS_PER_MILLI)).append(",\"p50Millis\":")
+					.append(millis(histogram, 50)).append(",\"p95Millis\":").append(millis(histogram, 95))
+					.append(",\"p99Millis\":").append(millis(histogram, 99)).append(",\"maxMillis\":")
+					.append(format(histogram.getMaxNanos() / NANOS_PER_MILLI)).append('}');
+			separator = ",";
+		}
+
+		json.append("},\"counters\":{");
+		separator = "";
+
+		for (Map.Entry<String, LongAdder> entry : COUNTERS.entrySet()) {
+			json.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue().sum());
+			separator = ",";
+		}
+
+		return json.append("}}").toString();
+	}
+
+	/**
+	 * Returns all metrics as a table, one metric per line.
+	 */
+	public static String toText() {
+		StringBuilder text = new StringBuilder();
+
+		text.append(String.format(Locale.ROOT, "Metrics at %s%n%-32s %10s %10s %10s %10s %10s%n", Instant.now(),
+				"histogram", "count", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+
+		for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+			LatencyHistogram histogram = entry.getValue();
+
+			text.append(String.format(Locale.ROOT, "%-32s %10d %10s %10s %10s %10s%n", entry.getKey(),
+					histogram.getCount(), millis(histogram, 50), millis(histogram, 95), millis(histogram, 99),
+					format(histogram.getMaxNanos() / NANOS_PER_MILLI)));
+		}
+
+		for (Map.Entry<String, LongAdder> entry : COUNTERS.entrySet()) {
+			text.append(String.format(Locale.ROOT, "%-32s %10d%n", entry.getKey(), entry.getValue().sum()));
+		}
+
+		return text.toString();
+	}
+
+	private static void startDump(long intervalMillis, boolean json, String file) {
+		ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "metrics-dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		dumper.scheduleAtFixedRate(() -> {
+			String dump = json ? toJson() + System.lineSeparator() : toText();
+
+			if (Objects.isNull(file)) {
+				System.out.print(dump);
+				return;
+			}
+
+			try {
+				Files.writeString(Path.of(file), dump, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+						StandardOpenOption.APPEND);
+			} catch (IOException e) {
+				System.out.println("Unable to write metrics to " + file + ": " + e.getMessage());
+			}
+		}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private static void register(String type, String name, Object mbean) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+
+			if (!server.isRegistered(objectName)) {
+				server.registerMBean(mbean, objectName);
+			}
+		} catch (JMException e) {
+			System.out.println("Unable to register metric " + name + " with JMX: " + e.getMessage());
+		}
+	}
+
+	private static String millis(LatencyHistogram histogram, double percentile) {
+		return format(histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI);
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+}
@@ -0,0 +1,38 @@
+package projects.migration;
+
+import java.util.List;
+
+/**
+ * An index a hot-path query depends on: some index on the table must start
+ * with these columns, in this order.
+ */
+class ExpectedIndex {
+	private final String table;
+	private final List<String> columns;
+	private final boolean unique;
+	private final String usedBy;
+
+	ExpectedIndex(String table, List<String> columns, boolean unique, String usedBy) {
+		this.table = table;
+		this.columns = columns;
+		this.unique = unique;
+		this.usedBy = usedBy;
+	}
+
+	String getTable() {
+		return table;
+	}
+
+	List<String> getColumns() {
+		return columns;
+	}
+
+	boolean isUnique() {
+		return unique;
+	}
+
+	@Override
+	public String toString() {
+		return (unique ? "unique index on " : "index on ") + table + columns + " (used by " + usedBy + ")";
+	}
+}
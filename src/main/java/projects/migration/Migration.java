@@ -0,0 +1,67 @@
+package projects.migration;
+
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import projects.exception.DbException;
+
+/**
+ * One versioned migration script, named {@code V<version>__<description>.sql},
+ * or a row of the schema history describing one that was applied.
+ */
+public class Migration {
+	private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+	private final int version;
+	private final String description;
+	private final String script;
+	private final long checksum;
+
+	Migration(int version, String description, String script, long checksum) {
+		this.version = version;
+		this.description = description;
+		this.script = script;
+		this.checksum = checksum;
+	}
+
+	/**
+	 * Reads the version and description from a script name.
+	 */
+	static Migration forScript(String script, long checksum) {
+		Matcher matcher = SCRIPT_NAME.matcher(script);
+
+		if (!matcher.matches()) {
+			throw new DbException("Migration script " + script + " is not named V<version>__<description>.sql");
+		}
+
+		return new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '), script,
+				checksum);
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public String getScript() {
+		return script;
+	}
+
+	/** CRC-32 of the script text. */
+	public long getChecksum() {
+		return checksum;
+	}
+
+	boolean sameChecksum(Migration other) {
+		return checksum == other.checksum && Objects.equals(script, other.script);
+	}
+
+	@Override
+	public String toString() {
+		return "V" + version + " " + description;
+	}
+}
@@ -0,0 +1,177 @@
+package projects.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import projects.dao.DbConnection;
+import projects.exception.DbException;
+import provided.util.DaoBase;
+
+/**
+ * JDBC access to the schema history table and the database's index metadata.
+ */
+class MigrationDao extends DaoBase {
+	static final String HISTORY_TABLE = "schema_history";
+
+	/**
+	 * Creates the history table if it does not exist.
+	 */
+	void createHistoryTable() {
+		// @formatter:off
+		String sql = ""
+				+ "CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + " ("
+				+ "version INT NOT NULL, "
+				+ "description VARCHAR(200) NOT NULL, "
+				+ "script VARCHAR(255) NOT NULL, "
+				+ "checksum BIGINT NOT NULL, "
+				+ "execution_millis BIGINT NOT NULL, "
+				+ "installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+				+ "PRIMARY KEY (version)"
+				+ ")";
+		// @formatter:on
+
+		try (Connection conn = DbConnection.getConnection(); Statement stmt = conn.createStatement()) {
+			stmt.execute(sql);
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	boolean historyTableExists() {
+		try (Connection conn = DbConnection.getConnection()) {
+			DatabaseMetaData meta = conn.getMetaData();
+
+			for (String name : List.of(HISTORY_TABLE, HISTORY_TABLE.toUpperCase(Locale.ROOT))) {
+				try (ResultSet rs = meta.getTables(conn.getCatalog(), null, name, null)) {
+					if (rs.next()) {
+						return true;
+					}
+				}
+			}
+
+			return false;
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Returns the applied migrations in version order.
+	 */
+	List<Migration> fetchAppliedMigrations() {
+		String sql = "SELECT version, description, script, checksum FROM " + HISTORY_TABLE + " ORDER BY version";
+
+		try (Connection conn = DbConnection.getConnection();
+				PreparedStatement stmt = conn.prepareStatement(sql);
+				ResultSet rs = stmt.executeQuery()) {
+			List<Migration> applied = new ArrayList<>();
+
+			while (rs.next()) {
+				applied.add(new Migration(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getLong(4)));
+			}
+
+			return applied;
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Runs a migration's statements and records it in the history table in one
+	 * transaction. Note that MySQL commits implicitly after DDL statements, so a
+	 * failed migration may be partly applied and must be repaired by hand.
+	 */
+	void applyMigration(Migration migration, Iterator<String> statements) {
+		// @formatter:off
+		String sql = ""
+				+ "INSERT INTO " + HISTORY_TABLE + " "
+				+ "(version, description, script, checksum, execution_millis) "
+				+ "VALUES "
+				+ "(?, ?, ?, ?, ?)";
+		// @formatter:on
+
+		long start = System.currentTimeMillis();
+
+		try (Connection conn = DbConnection.getConnection()) {
+			startTransaction(conn);
+
+			String current = null;
+
+			try {
+				try (Statement stmt = conn.createStatement()) {
+					while (statements.hasNext()) {
+						current = statements.next();
+						stmt.execute(current);
+					}
+				}
+
+				current = null;
+
+				try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+					setParameter(stmt, 1, migration.getVersion(), Integer.class);
+					setParameter(stmt, 2, migration.getDescription(), String.class);
+					setParameter(stmt, 3, migration.getScript(), String.class);
+					stmt.setLong(4, migration.getChecksum());
+					stmt.setLong(5, System.currentTimeMillis() - start);
+					stmt.executeUpdate();
+				}
+
+				commitTransaction(conn);
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException("Migration " + migration + " failed"
+						+ (Objects.isNull(current) ? "" : " at statement: " + current), e);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/**
+	 * Returns the indexes of a table as index name to lower-case column names in
+	 * key order. Unique indexes have names prefixed with {@code unique:}.
+	 */
+	Map<String, List<String>> fetchIndexes(String table) {
+		try (Connection conn = DbConnection.getConnection()) {
+			DatabaseMetaData meta = conn.getMetaData();
+			Map<String, TreeMap<Short, String>> byName = new TreeMap<>();
+
+			/* Identifiers may be stored in either case, depending on the database. */
+			for (String name : List.of(table, table.toUpperCase(Locale.ROOT))) {
+				try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, name, false, false)) {
+					while (rs.next()) {
+						String index = rs.getString("INDEX_NAME");
+						String column = rs.getString("COLUMN_NAME");
+
+						if (Objects.nonNull(index) && Objects.nonNull(column)) {
+							String key = (rs.getBoolean("NON_UNIQUE") ? "" : "unique:") + index;
+							byName.computeIfAbsent(key, k -> new TreeMap<>()).put(rs.getShort("ORDINAL_POSITION"),
+									column.toLowerCase(Locale.ROOT));
+						}
+					}
+				}
+
+				if (!byName.isEmpty()) {
+					break;
+				}
+			}
+
+			Map<String, List<String>> indexes = new TreeMap<>();
+			byName.forEach((name, columns) -> indexes.put(name, new ArrayList<>(columns.values())));
+			return indexes;
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+}
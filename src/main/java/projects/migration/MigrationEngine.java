@@ -0,0 +1,194 @@
+package projects.migration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+import projects.dao.SqlScriptReader;
+import projects.exception.DbException;
+
+/**
+ * Brings the database schema up to date by applying versioned migration
+ * scripts in order. The scripts live on the classpath under
+ * {@value #MIGRATION_DIR} and are listed, in order, in
+ * {@value #MIGRATION_INDEX} (a jar cannot be listed like a directory). Each
+ * applied script is recorded in the {@code schema_history} table with a CRC-32
+ * checksum of its text; a script that was changed after it was applied, or an
+ * applied version that no longer exists, stops the migration.
+ * 
+ * <p>
+ * {@link #verifyIndexes()} checks that the indexes the hot-path queries rely
+ * on are present, whatever created the schema.
+ */
+public class MigrationEngine {
+	private static final String MIGRATION_DIR = "db/migration/";
+	private static final String MIGRATION_INDEX = MIGRATION_DIR + "index.txt";
+
+	// @formatter:off
+	private static final List<ExpectedIndex> EXPECTED_INDEXES = List.of(
+			new ExpectedIndex("step", List.of("project_id", "step_order"), false, "fetchProjectById step order"),
+			new ExpectedIndex("material", List.of("project_id"), false, "fetchProjectById materials"),
+			new ExpectedIndex("project", List.of("project_name", "project_id"), false, "fetchAllProjects and fetchProjectPage"),
+			new ExpectedIndex("project_category", List.of("project_id"), false, "fetchProjectById categories"),
+			new ExpectedIndex("category", List.of("category_name"), true, "category lookup during import")
+	);
+	// @formatter:on
+
+	private final MigrationDao migrationDao = new MigrationDao();
+
+	/**
+	 * Applies every migration that has not been applied yet.
+	 * 
+	 * @return the migrations applied by this call, in order
+	 */
+	public List<Migration> migrate() {
+		List<Migration> available = loadMigrations();
+
+		migrationDao.createHistoryTable();
+
+		Map<Integer, Migration> applied = new HashMap<>();
+
+		for (Migration migration : migrationDao.fetchAppliedMigrations()) {
+			applied.put(migration.getVersion(), migration);
+		}
+
+		validate(available, applied);
+
+		List<Migration> pending = new ArrayList<>();
+
+		for (Migration migration : available) {
+			if (!applied.containsKey(migration.getVersion())) {
+				try (SqlScriptReader script = new SqlScriptReader(new StringReader(readScript(migration.getScript())))) {
+					migrationDao.applyMigration(migration, script);
+				}
+
+				pending.add(migration);
+			}
+		}
+
+		return pending;
+	}
+
+	/**
+	 * Returns the migrations on the classpath that have not been applied.
+	 */
+	public List<Migration> pendingMigrations() {
+		List<Integer> applied = migrationDao.historyTableExists()
+				? migrationDao.fetchAppliedMigrations().stream().map(Migration::getVersion).toList()
+				: List.of();
+
+		return loadMigrations().stream().filter(migration -> !applied.contains(migration.getVersion())).toList();
+	}
+
+	/**
+	 * Checks that every index the hot-path queries depend on exists.
+	 * 
+	 * @return a description of each missing index; empty if all are present
+	 */
+	public List<String> verifyIndexes() {
+		List<String> missing = new ArrayList<>();
+		Map<String, Map<String, List<String>>> indexesByTable = new HashMap<>();
+
+		for (ExpectedIndex expected : EXPECTED_INDEXES) {
+			Map<String, List<String>> indexes = indexesByTable.computeIfAbsent(expected.getTable(),
+					migrationDao::fetchIndexes);
+
+			boolean found = indexes.entrySet().stream()
+					.anyMatch(index -> (!expected.isUnique() || index.getKey().startsWith("unique:"))
+							&& startsWith(index.getValue(), expected.getColumns()));
+
+			if (!found) {
+				missing.add(expected.toString());
+			}
+		}
+
+		return missing;
+	}
+
+	private static boolean startsWith(List<String> columns, List<String> prefix) {
+		return columns.size() >= prefix.size() && columns.subList(0, prefix.size()).equals(prefix);
+	}
+
+	private void validate(List<Migration> available, Map<Integer, Migration> applied) {
+		Map<Integer, Migration> byVersion = new HashMap<>();
+
+		for (Migration migration : available) {
+			if (Objects.nonNull(byVersion.put(migration.getVersion(), migration))) {
+				throw new DbException("More than one migration has version " + migration.getVersion() + ".");
+			}
+		}
+
+		for (Migration done : applied.values()) {
+			Migration script = byVersion.get(done.getVersion());
+
+			if (Objects.isNull(script)) {
+				throw new DbException("Applied migration " + done + " (" + done.getScript()
+						+ ") is no longer on the classpath.");
+			}
+
+			if (!script.sameChecksum(done)) {
+				throw new DbException("Migration " + done + " was changed after it was applied. Restore "
+						+ done.getScript() + " and add a new migration instead.");
+			}
+		}
+	}
+
+	/**
+	 * Reads the index and checksums every listed script, sorted by version.
+	 */
+	private List<Migration> loadMigrations() {
+		List<Migration> migrations = new ArrayList<>();
+
+		try (BufferedReader index = new BufferedReader(
+				new InputStreamReader(open(MIGRATION_INDEX), StandardCharsets.UTF_8))) {
+			String line;
+
+			while (Objects.nonNull(line = index.readLine())) {
+				String script = line.strip();
+
+				if (!script.isEmpty() && !script.startsWith("#")) {
+					migrations.add(Migration.forScript(script, checksum(readScript(script))));
+				}
+			}
+		} catch (IOException e) {
+			throw new DbException("Unable to read " + MIGRATION_INDEX, e);
+		}
+
+		migrations.sort((left, right) -> Integer.compare(left.getVersion(), right.getVersion()));
+		return migrations;
+	}
+
+	private static String readScript(String script) {
+		try (InputStream in = open(MIGRATION_DIR + script)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new DbException("Unable to read migration " + script, e);
+		}
+	}
+
+	/* Line endings are normalized so a checkout with CRLF endings has the same checksum. */
+	private static long checksum(String text) {
+		CRC32 crc = new CRC32();
+		crc.update(text.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+
+	private static InputStream open(String name) {
+		InputStream in = MigrationEngine.class.getClassLoader().getResourceAsStream(name);
+
+		if (Objects.isNull(in)) {
+			throw new DbException("Resource " + name + " was not found.");
+		}
+
+		return in;
+	}
+}
@@ -0,0 +1,63 @@
+package projects.search;
+
+import java.util.Arrays;
+
+/**
+ * The documents containing one term and how often the term appears in each.
+ * Each entry also records the term's slot in its document's term list, so the
+ * document can keep track of where its entries are and remove them without a
+ * scan. Removal moves the last entry into the removed slot.
+ */
+class Postings {
+	private int[] docs = new int[2];
+	private int[] freqs = new int[2];
+	private int[] slots = new int[2];
+	private int size;
+
+	/**
+	 * Adds an entry and returns its position.
+	 * 
+	 * @param slot the term's index in the document's term list
+	 */
+	int add(int doc, int freq, int slot) {
+		if (size == docs.length) {
+			docs = Arrays.copyOf(docs, size * 2);
+			freqs = Arrays.copyOf(freqs, size * 2);
+			slots = Arrays.copyOf(slots, size * 2);
+		}
+
+		docs[size] = doc;
+		freqs[size] = freq;
+		slots[size] = slot;
+		return size++;
+	}
+
+	/**
+	 * Removes the entry at the position. The last entry takes its place, and its
+	 * new position is written to {@code positions[doc][slot]}.
+	 * 
+	 * @param positions each document's entry positions, indexed by term slot
+	 */
+	void removeAt(int position, int[][] positions) {
+		size--;
+
+		if (position != size) {
+			docs[position] = docs[size];
+			freqs[position] = freqs[size];
+			slots[position] = slots[size];
+			positions[docs[position]][slots[position]] = position;
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	int doc(int index) {
+		return docs[index];
+	}
+
+	int freq(int index) {
+		return freqs[index];
+	}
+}
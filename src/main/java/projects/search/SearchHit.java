@@ -0,0 +1,34 @@
+package projects.search;
+
+/**
+ * One project matching a search, with its BM25 score. Higher scores are better
+ * matches.
+ */
+public class SearchHit {
+	private final Integer projectId;
+	private final String projectName;
+	private final double score;
+
+	SearchHit(Integer projectId, String projectName, double score) {
+		this.projectId = projectId;
+		this.projectName = projectName;
+		this.score = score;
+	}
+
+	public Integer getProjectId() {
+		return projectId;
+	}
+
+	public String getProjectName() {
+		return projectName;
+	}
+
+	public double getScore() {
+		return score;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%5d: %s (%.2f)", projectId, projectName, score);
+	}
+}
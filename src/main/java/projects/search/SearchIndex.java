@@ -0,0 +1,532 @@
+package projects.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+/**
+ * An in-memory inverted index over project names, notes, step text, material
+ * names and category names, ranked with BM25. Each project is one document.
+ * 
+ * <p>
+ * A query is split into terms the same way documents are. Each term matches
+ * exactly, except the last one, which also matches terms it is a prefix of so
+ * that partly typed words find results. A project's score is the sum of the
+ * BM25 scores of the query terms it contains; for a prefix, the best-scoring
+ * expansion counts.
+ * 
+ * <p>
+ * Searches share a read lock; changes take the write lock. A full rebuild is
+ * loaded outside the lock with a {@link Loader} and swapped in at the end, and
+ * the IDs of projects changed in the meantime are handed back so that the
+ * caller can index them again.
+ */
+public class SearchIndex {
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+	private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+	/* Per-thread score arrays, so a query does not allocate arrays sized to the index. */
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/* All guarded by lock. */
+	private Documents documents = new Documents();
+	private boolean built;
+	private Set<Integer> changedDuringRebuild;
+
+	/**
+	 * Returns true once a rebuild has been installed.
+	 */
+	public boolean isBuilt() {
+		lock.readLock().lock();
+		try {
+			return built;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Marks the index as out of date after a change that was not made project by
+	 * project, such as a bulk import. {@link #isBuilt()} returns false until the
+	 * next rebuild is installed; searches keep using the old data until then.
+	 */
+	public void markStale() {
+		lock.writeLock().lock();
+		try {
+			built = false;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of indexed projects.
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return documents.liveCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds or replaces a project. The project should include its materials, steps
+	 * and categories.
+	 */
+	public void index(Project project) {
+		Document document = new Document();
+
+		document.name = project.getProjectName();
+		document.addDetail(project.getProjectName());
+		document.addDetail(project.getNotes());
+
+		for (Step step : project.getSteps()) {
+			document.add(step.getStepText());
+		}
+
+		for (Material material : project.getMaterials()) {
+			document.add(material.getMaterialName());
+		}
+
+		for (Category category : project.getCategories()) {
+			document.add(category.getCategoryName());
+		}
+
+		lock.writeLock().lock();
+		try {
+			documents.put(project.getProjectId(), document);
+			noteChange(project.getProjectId());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Replaces the name and notes of an indexed project, keeping the terms of its
+	 * materials, steps and categories, so a details update does not need the
+	 * project's children.
+	 * 
+	 * @return false if the project is not indexed, in which case nothing changes
+	 *         and the caller should {@link #index(Project)} the full project
+	 */
+	public boolean updateDetails(Integer projectId, String name, String notes) {
+		Document details = new Document();
+
+		details.name = name;
+		details.addDetail(name);
+		details.addDetail(notes);
+
+		lock.writeLock().lock();
+		try {
+			if (!documents.replaceDetails(projectId, details)) {
+				return false;
+			}
+
+			noteChange(projectId);
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Integer projectId) {
+		lock.writeLock().lock();
+		try {
+			documents.remove(projectId);
+			noteChange(projectId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the best matching projects, best first.
+	 * 
+	 * @param query the search text
+	 * @param limit the most hits to return
+	 */
+	public List<SearchHit> search(String query, int limit) {
+		List<String> terms = Tokenizer.tokenize(query);
+
+		if (terms.isEmpty() || limit <= 0) {
+			return Collections.emptyList();
+		}
+
+		lock.readLock().lock();
+		try {
+			return documents.search(terms, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Starts a full rebuild. Feed every project's text to the loader, then pass it
+	 * to {@link #install(Loader)}.
+	 */
+	public Loader startRebuild() {
+		lock.writeLock().lock();
+		try {
+			changedDuringRebuild = new HashSet<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		return new Loader();
+	}
+
+	/**
+	 * Replaces the index with the loaded documents.
+	 * 
+	 * @return the IDs of projects indexed or removed since the rebuild started,
+	 *         which the loaded data may not reflect
+	 */
+	public Set<Integer> install(Loader loader) {
+		Documents loaded = new Documents();
+
+		for (Map.Entry<Integer, Document> entry : loader.documents.entrySet()) {
+			loaded.put(entry.getKey(), entry.getValue());
+		}
+
+		lock.writeLock().lock();
+		try {
+			Set<Integer> changed = Objects.isNull(changedDuringRebuild) ? Set.of() : changedDuringRebuild;
+
+			documents = loaded;
+			built = true;
+			changedDuringRebuild = null;
+			return changed;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void noteChange(Integer projectId) {
+		if (Objects.nonNull(changedDuringRebuild)) {
+			changedDuringRebuild.add(projectId);
+		}
+	}
+
+	/**
+	 * Collects project text for a rebuild. Text may arrive in any order, one
+	 * column at a time. Not thread-safe.
+	 */
+	public static class Loader {
+		private final Map<Integer, Document> documents = new HashMap<>();
+
+		public void addName(Integer projectId, String name) {
+			Document document = documents.computeIfAbsent(projectId, id -> new Document());
+			document.name = name;
+			document.addDetail(name);
+		}
+
+		public void addNotes(Integer projectId, String notes) {
+			documents.computeIfAbsent(projectId, id -> new Document()).addDetail(notes);
+		}
+
+		public void addText(Integer projectId, String text) {
+			documents.computeIfAbsent(projectId, id -> new Document()).add(text);
+		}
+	}
+
+	/**
+	 * Score arrays indexed by document number. Between queries every score is
+	 * zero.
+	 */
+	private static class Scratch {
+		private double[] scores = new double[0];
+		private double[] termScores = new double[0];
+		private int[] matched = new int[0];
+		private int[] touched = new int[0];
+
+		Scratch ensureCapacity(int docCount) {
+			if (scores.length < docCount) {
+				scores = new double[docCount];
+				termScores = new double[docCount];
+				matched = new int[docCount];
+				touched = new int[docCount];
+			}
+
+			return this;
+		}
+	}
+
+	/**
+	 * The terms of one project before it is indexed. Terms from the name and notes
+	 * are also counted separately, so they can be replaced later on their own.
+	 */
+	private static class Document {
+		private String name;
+		private final Map<String, Integer> freqs = new HashMap<>();
+		private final Map<String, Integer> detailFreqs = new HashMap<>();
+		private int length;
+
+		void add(String text) {
+			if (Objects.nonNull(text)) {
+				for (String term : Tokenizer.tokenize(text)) {
+					freqs.merge(term, 1, Integer::sum);
+					length++;
+				}
+			}
+		}
+
+		void addDetail(String text) {
+			if (Objects.nonNull(text)) {
+				for (String term : Tokenizer.tokenize(text)) {
+					freqs.merge(term, 1, Integer::sum);
+					detailFreqs.merge(term, 1, Integer::sum);
+					length++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The postings and per-document data. Documents are numbered densely so that
+	 * scores can be kept in arrays; numbers of removed documents are reused. For
+	 * each of its terms, a document remembers where its entry is in the term's
+	 * postings, so removing a document costs one step per term however common the
+	 * term is.
+	 */
+	private static class Documents {
+		private final NavigableMap<String, Postings> postings = new TreeMap<>();
+		private final Map<Integer, Integer> docByProject = new HashMap<>();
+		private final Deque<Integer> freeDocs = new ArrayDeque<>();
+		private int[] projectIds = new int[16];
+		private int[] lengths = new int[16];
+		private String[] names = new String[16];
+		private String[][] docTerms = new String[16][];
+		private int[][] docPositions = new int[16][];
+		private String[][] detailTerms = new String[16][];
+		private int[][] detailFreqs = new int[16][];
+		private int docCount;
+		private int liveCount;
+		private long totalLength;
+
+		void put(Integer projectId, Document document) {
+			remove(projectId);
+
+			int doc = freeDocs.isEmpty() ? docCount++ : freeDocs.pop();
+
+			if (doc == projectIds.length) {
+				int capacity = doc * 2;
+				projectIds = Arrays.copyOf(projectIds, capacity);
+				lengths = Arrays.copyOf(lengths, capacity);
+				names = Arrays.copyOf(names, capacity);
+				docTerms = Arrays.copyOf(docTerms, capacity);
+				docPositions = Arrays.copyOf(docPositions, capacity);
+				detailTerms = Arrays.copyOf(detailTerms, capacity);
+				detailFreqs = Arrays.copyOf(detailFreqs, capacity);
+			}
+
+			projectIds[doc] = projectId;
+			lengths[doc] = document.length;
+			names[doc] = document.name;
+			String[] terms = document.freqs.keySet().toArray(new String[0]);
+			int[] positions = new int[terms.length];
+
+			for (int slot = 0; slot < terms.length; slot++) {
+				positions[slot] = postings.computeIfAbsent(terms[slot], term -> new Postings()).add(doc,
+						document.freqs.get(terms[slot]), slot);
+			}
+
+			docTerms[doc] = terms;
+			docPositions[doc] = positions;
+			detailTerms[doc] = document.detailFreqs.keySet().toArray(new String[0]);
+			detailFreqs[doc] = new int[detailTerms[doc].length];
+
+			for (int slot = 0; slot < detailTerms[doc].length; slot++) {
+				detailFreqs[doc][slot] = document.detailFreqs.get(detailTerms[doc][slot]);
+			}
+
+			docByProject.put(projectId, doc);
+			liveCount++;
+			totalLength += document.length;
+		}
+
+		void remove(Integer projectId) {
+			Integer doc = docByProject.remove(projectId);
+
+			if (Objects.isNull(doc)) {
+				return;
+			}
+
+			String[] terms = docTerms[doc];
+			int[] positions = docPositions[doc];
+
+			for (int slot = 0; slot < terms.length; slot++) {
+				Postings list = postings.get(terms[slot]);
+				list.removeAt(positions[slot], docPositions);
+
+				if (list.size() == 0) {
+					postings.remove(terms[slot]);
+				}
+			}
+
+			totalLength -= lengths[doc];
+			liveCount--;
+			docTerms[doc] = null;
+			docPositions[doc] = null;
+			detailTerms[doc] = null;
+			detailFreqs[doc] = null;
+			names[doc] = null;
+			freeDocs.push(doc);
+		}
+
+		/*
+		 * Rebuilds the project's term counts from its postings, swaps the old name
+		 * and notes terms for the new ones and indexes the result.
+		 */
+		boolean replaceDetails(Integer projectId, Document details) {
+			Integer doc = docByProject.get(projectId);
+
+			if (Objects.isNull(doc)) {
+				return false;
+			}
+
+			Document document = new Document();
+			String[] terms = docTerms[doc];
+
+			for (int slot = 0; slot < terms.length; slot++) {
+				document.freqs.put(terms[slot], postings.get(terms[slot]).freq(docPositions[doc][slot]));
+			}
+
+			document.length = lengths[doc];
+
+			for (int slot = 0; slot < detailTerms[doc].length; slot++) {
+				int freq = detailFreqs[doc][slot];
+
+				document.freqs.computeIfPresent(detailTerms[doc][slot],
+						(term, total) -> total == freq ? null : total - freq);
+				document.length -= freq;
+			}
+
+			for (Map.Entry<String, Integer> entry : details.detailFreqs.entrySet()) {
+				document.freqs.merge(entry.getKey(), entry.getValue(), Integer::sum);
+				document.detailFreqs.put(entry.getKey(), entry.getValue());
+			}
+
+			document.name = details.name;
+			document.length += details.length;
+			put(projectId, document);
+			return true;
+		}
+
+		List<SearchHit> search(List<String> terms, int limit) {
+			if (liveCount == 0) {
+				return Collections.emptyList();
+			}
+
+			double averageLength = Math.max(1.0, (double) totalLength / liveCount);
+			Scratch scratch = SCRATCH.get().ensureCapacity(docCount);
+			double[] scores = scratch.scores;
+			double[] termScores = scratch.termScores;
+			int[] matched = scratch.matched;
+			int[] touched = scratch.touched;
+			int matchedCount = 0;
+
+			for (int index = 0; index < terms.size(); index++) {
+				String term = terms.get(index);
+				boolean prefix = index == terms.size() - 1;
+				int touchedCount = 0;
+
+				for (Postings list : expand(term, prefix)) {
+					double idf = Math.log(1 + (liveCount - list.size() + 0.5) / (list.size() + 0.5));
+
+					for (int entry = 0; entry < list.size(); entry++) {
+						int doc = list.doc(entry);
+						int freq = list.freq(entry);
+						double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+						double score = idf * freq * (K1 + 1) / (freq + norm);
+
+						if (termScores[doc] == 0) {
+							touched[touchedCount++] = doc;
+						}
+
+						termScores[doc] = Math.max(termScores[doc], score);
+					}
+				}
+
+				for (int entry = 0; entry < touchedCount; entry++) {
+					int doc = touched[entry];
+
+					if (scores[doc] == 0) {
+						matched[matchedCount++] = doc;
+					}
+
+					scores[doc] += termScores[doc];
+					termScores[doc] = 0;
+				}
+			}
+
+			PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1,
+					(left, right) -> Double.compare(scores[left], scores[right]));
+
+			for (int entry = 0; entry < matchedCount; entry++) {
+				int doc = matched[entry];
+
+				if (best.size() < limit) {
+					best.add(doc);
+				} else if (scores[doc] > scores[best.peek()]) {
+					best.poll();
+					best.add(doc);
+				}
+			}
+
+			List<SearchHit> hits = new ArrayList<>(best.size());
+
+			while (!best.isEmpty()) {
+				int doc = best.poll();
+				hits.add(new SearchHit(projectIds[doc], names[doc], scores[doc]));
+			}
+
+			for (int entry = 0; entry < matchedCount; entry++) {
+				scores[matched[entry]] = 0;
+			}
+
+			Collections.reverse(hits);
+			return hits;
+		}
+
+		private List<Postings> expand(String term, boolean prefix) {
+			if (!prefix) {
+				Postings list = postings.get(term);
+				return Objects.isNull(list) ? List.of() : List.of(list);
+			}
+
+			List<Postings> lists = new ArrayList<>();
+
+			for (Postings list : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+				if (lists.size() == MAX_PREFIX_EXPANSIONS) {
+					break;
+				}
+
+				lists.add(list);
+			}
+
+			return lists;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package projects.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits text into lower-case index terms. A term is a run of letters or
+ * digits; everything else separates terms. Single characters and a few common
+ * English words are dropped.
+ */
+class Tokenizer {
+	private static final Set<String> STOP_WORDS = Set.of("an", "and", "are", "as", "at", "be", "by", "for", "from",
+			"in", "is", "it", "of", "on", "or", "the", "to", "with");
+
+	private Tokenizer() {
+	}
+
+	static List<String> tokenize(String text) {
+		List<String> terms = new ArrayList<>();
+		int length = text.length();
+		int start = -1;
+
+		for (int index = 0; index <= length; index++) {
+			boolean inTerm = index < length && Character.isLetterOrDigit(text.charAt(index));
+
+			if (inTerm && start < 0) {
+				start = index;
+			} else if (!inTerm && start >= 0) {
+				addTerm(terms, text, start, index);
+				start = -1;
+			}
+		}
+
+		return terms;
+	}
+
+	private static void addTerm(List<String> terms, String text, int start, int end) {
+		if (end - start < 2) {
+			return;
+		}
+
+		String term = toLowerCase(text, start, end);
+
+		if (!STOP_WORDS.contains(term)) {
+			terms.add(term);
+		}
+	}
+
+	/* Avoids the Locale lookup and extra copy of substring().toLowerCase(). */
+	private static String toLowerCase(String text, int start, int end) {
+		char[] chars = new char[end - start];
+
+		for (int index = start; index < end; index++) {
+			chars[index - start] = Character.toLowerCase(text.charAt(index));
+		}
+
+		return new String(chars);
+	}
+}
@@ -0,0 +1,142 @@
+package projects.service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import projects.dao.DbConfig;
+import projects.dao.DbConnection;
+import projects.entity.Project;
+import projects.exception.DbException;
+
+/**
+ * A non-blocking facade over {@link ProjectService}. Each call runs on its own
+ * virtual thread, and a semaphore sized to the database connection budget
+ * limits how many calls use the database at once, so any number of calls can be
+ * in flight without piling up on the connection pool.
+ *
+ * Each call carries the caller's {@link DbConnection.ReadSession}, so reads
+ * made after the caller's own writes stay on the primary database during the
+ * read-your-writes window even though every call runs on a new thread.
+ *
+ * Failures complete the returned future exceptionally with a
+ * {@link DbException}. Cancelling a future interrupts the call if it is running
+ * and completes the future with a {@link DbException}.
+ */
+public class AsyncProjectService implements AutoCloseable {
+	private final ProjectService projectService;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final Semaphore permits;
+
+	/**
+	 * Limits concurrency to the configured maximum connection pool size.
+	 */
+	public AsyncProjectService(ProjectService projectService) {
+		this(projectService, DbConfig.load().getMaxPoolSize());
+	}
+
+	/**
+	 * @param projectService the service to call
+	 * @param maxConcurrency the most calls allowed to use the database at once
+	 */
+	public AsyncProjectService(ProjectService projectService, int maxConcurrency) {
+		this.projectService = projectService;
+		this.permits = new Semaphore(maxConcurrency, true);
+	}
+
+	public CompletableFuture<Project> fetchProjectById(Integer projectId) {
+		return submit(() -> projectService.fetchProjectById(projectId));
+	}
+
+	public CompletableFuture<List<Project>> fetchAllProjects() {
+		return submit(projectService::fetchAllProjects);
+	}
+
+	public CompletableFuture<Project> addProject(Project project) {
+		return submit(() -> projectService.addProject(project));
+	}
+
+	public CompletableFuture<Void> modifyProjectDetails(Project project) {
+		return submit(() -> {
+			projectService.modifyProjectDetails(project);
+			return null;
+		});
+	}
+
+	public CompletableFuture<Void> deleteProject(Integer projectId) {
+		return submit(() -> {
+			projectService.deleteProject(projectId);
+			return null;
+		});
+	}
+
+	/**
+	 * Returns the number of calls waiting for a database permit.
+	 */
+	public int getQueueLength() {
+		return permits.getQueueLength();
+	}
+
+	/**
+	 * Stops accepting calls and waits for running calls to finish.
+	 */
+	@Override
+	public void close() {
+		executor.close();
+	}
+
+	private <T> CompletableFuture<T> submit(Callable<T> call) {
+		Task<T> task = new Task<>();
+		DbConnection.ReadSession session = DbConnection.currentReadSession();
+
+		task.running = executor.submit(() -> {
+			if (task.isDone()) {
+				return;
+			}
+
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				task.completeExceptionally(new DbException("Interrupted while waiting to use the database.", e));
+				return;
+			}
+
+			try {
+				task.complete(DbConnection.withReadSession(session, call));
+			} catch (DbException e) {
+				task.completeExceptionally(e);
+			} catch (Throwable e) {
+				/* Errors too, or the caller would wait on the future forever. */
+				task.completeExceptionally(new DbException(e));
+			} finally {
+				permits.release();
+			}
+		});
+
+		return task;
+	}
+
+	/**
+	 * A future that interrupts its virtual thread when cancelled.
+	 */
+	private static class Task<T> extends CompletableFuture<T> {
+		private volatile Future<?> running;
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = completeExceptionally(new DbException("The operation was cancelled."));
+			Future<?> thread = running;
+
+			if (cancelled && Objects.nonNull(thread)) {
+				thread.cancel(true);
+			}
+
+			return cancelled;
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package projects.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import projects.entity.Project;
+
+/**
+ * A size-bounded, least-recently-used cache of full project graphs with an
+ * optional time to live. Cached projects are shared between callers and must be
+ * treated as read-only.
+ * 
+ * Loads run outside the cache lock. To keep a slow load from putting back a
+ * project that was changed while it was loading, a loaded project is only
+ * cached if nothing was invalidated since the load started.
+ */
+public class ProjectCache {
+	private final int maximumSize;
+	private final long ttlNanos;
+
+	/* Access-ordered, so the eldest entry is the least recently used. Guarded by this. */
+	private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final AtomicLong invalidations = new AtomicLong();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param maximumSize the most projects to keep
+	 * @param ttl         how long a project may be served after it was loaded, or
+	 *                    null to keep it until it is evicted or invalidated
+	 */
+	public ProjectCache(int maximumSize, Duration ttl) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("maximumSize must be at least 1");
+		}
+
+		this.maximumSize = maximumSize;
+		this.ttlNanos = Objects.isNull(ttl) ? 0 : ttl.toNanos();
+	}
+
+	/**
+	 * Returns the cached project, or loads, caches and returns it.
+	 * 
+	 * @param projectId the project ID
+	 * @param loader    loads the project on a miss. It may return null, which is
+	 *                  not cached.
+	 * @return the project, or null if the loader returned null
+	 */
+	public Project get(Integer projectId, Function<Integer, Project> loader) {
+		long now = System.nanoTime();
+
+		synchronized (this) {
+			Entry entry = entries.get(projectId);
+
+			if (Objects.nonNull(entry)) {
+				if (ttlNanos == 0 || now - entry.loadedNanos < ttlNanos) {
+					hits.increment();
+					return entry.project;
+				}
+
+				entries.remove(projectId);
+			}
+		}
+
+		misses.increment();
+
+		long stamp = invalidations.get();
+		Project project = loader.apply(projectId);
+
+		if (Objects.nonNull(project)) {
+			put(projectId, project, now, stamp);
+		}
+
+		return project;
+	}
+
+	/**
+	 * Removes a project so the next read loads it again.
+	 */
+	public void invalidate(Integer projectId) {
+		synchronized (this) {
+			invalidations.incrementAndGet();
+			entries.remove(projectId);
+		}
+	}
+
+	/**
+	 * Removes every project.
+	 */
+	public void invalidateAll() {
+		synchronized (this) {
+			invalidations.incrementAndGet();
+			entries.clear();
+		}
+	}
+
+	public CacheStats getStats() {
+		int size;
+
+		synchronized (this) {
+			size = entries.size();
+		}
+
+		return new CacheStats(size, hits.sum(), misses.sum(), evictions.sum());
+	}
+
+	private synchronized void put(Integer projectId, Project project, long loadedNanos, long stamp) {
+		if (invalidations.get() != stamp) {
+			return;
+		}
+
+		entries.put(projectId, new Entry(project, loadedNanos));
+
+		Iterator<Map.Entry<Integer, Entry>> eldest = entries.entrySet().iterator();
+
+		while (entries.size() > maximumSize) {
+			eldest.next();
+			eldest.remove();
+			evictions.increment();
+		}
+	}
+
+	private static class Entry {
+		private final Project project;
+		private final long loadedNanos;
+
+		Entry(Project project, long loadedNanos) {
+			this.project = project;
+			this.loadedNanos = loadedNanos;
+		}
+	}
+
+	/**
+	 * A point-in-time view of the cache counters.
+	 */
+	public static class CacheStats {
+		private final int size;
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+
+		CacheStats(int size, long hitCount, long missCount, long evictionCount) {
+			this.size = size;
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		public double getHitRate() {
+			long requests = hitCount + missCount;
+			return requests == 0 ? 0 : (double) hitCount / requests;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("size=%d, hits=%d, misses=%d, evictions=%d, hitRate=%.3f", size, hitCount, missCount,
+					evictionCount, getHitRate());
+		}
+	}
+}
@@ -1,17 +1,43 @@
 package projects.service;
 
-import java.io.IOException;
-import java.net.URISyntaxException;
-import java.nio.file.Files;
+import java.math.BigDecimal;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
+import projects.analytics.ProjectColumns;
+import projects.dao.DbConnection;
 import projects.dao.ProjectDao;
+import projects.dao.ProjectPage;
+import projects.dao.RollupDao;
+import projects.dao.SqlScriptReader;
+import projects.entity.CategoryRollup;
 import projects.entity.Project;
+import projects.entity.ProjectRollup;
+import projects.entity.Step;
+import projects.events.ChangeFeed;
 import projects.exception.DbException;
+import projects.exception.ProjectConflictException;
+import projects.io.ExportSummary;
+import projects.io.ImportSummary;
+import projects.io.ProjectExporter;
+import projects.io.ProjectImporter;
+import projects.metrics.LatencyHistogram;
+import projects.metrics.Metrics;
+import projects.migration.Migration;
+import projects.migration.MigrationEngine;
+import projects.search.SearchHit;
+import projects.search.SearchIndex;
+import projects.snapshot.ProjectSnapshot;
 
 /**
  * project service represents the service/business layer of the Project
@@ -20,8 +46,168 @@ import projects.exception.DbException;
 
 public class ProjectService {
 	private static final String SCHEMA_FILE = "project_schema.sql";
+	private static final int SCRIPT_BATCH_SIZE = 500;
+
+	/* Latency of each service operation, recorded when metrics are on. */
+	private static final LatencyHistogram FETCH_PROJECT_BY_ID = Metrics.histogram("service.fetchProjectById");
+	private static final LatencyHistogram ADD_PROJECT = Metrics.histogram("service.addProject");
+	private static final LatencyHistogram ADD_PROJECTS = Metrics.histogram("service.addProjects");
+	private static final LatencyHistogram FETCH_ALL_PROJECTS = Metrics.histogram("service.fetchAllProjects");
+	private static final LatencyHistogram FETCH_PROJECT_PAGE = Metrics.histogram("service.fetchProjectPage");
+	private static final LatencyHistogram FETCH_PROJECTS_BY_IDS = Metrics.histogram("service.fetchProjectsByIds");
+	private static final LatencyHistogram FETCH_ALL_PROJECT_GRAPHS = Metrics.histogram("service.fetchAllProjectGraphs");
+	private static final LatencyHistogram MODIFY_PROJECT_DETAILS = Metrics.histogram("service.modifyProjectDetails");
+	private static final LatencyHistogram DELETE_PROJECT = Metrics.histogram("service.deleteProject");
+	private static final LatencyHistogram ADD_STEPS = Metrics.histogram("service.addSteps");
+	private static final LatencyHistogram MOVE_STEP = Metrics.histogram("service.moveStep");
+	private static final LatencyHistogram SEARCH_PROJECTS = Metrics.histogram("service.searchProjects");
+	private static final LongAdder UPDATE_CONFLICTS = Metrics.counter("service.updateConflicts");
+	private static final LongAdder SNAPSHOT_HITS = Metrics.counter("service.snapshotHits");
 
 	private ProjectDao projectDao = new ProjectDao();
+	private RollupDao rollupDao = new RollupDao();
+	private MigrationEngine migrationEngine = new MigrationEngine();
+
+	/* Optional read-through cache of full project graphs. Null when disabled. */
+	private ProjectCache projectCache;
+
+	/* Optional full-text index. Null when search is off. */
+	private SearchIndex searchIndex;
+
+	/* Optional write-behind for modifyProjectDetails. Null when updates are written at once. */
+	private WriteBehindBuffer writeBehind;
+
+	/* The last columnar snapshot, loaded on first use. */
+	private volatile ProjectColumns projectColumns;
+
+	/* Optional binary snapshot that serves project loads. Null when off. */
+	private volatile SnapshotView snapshotView;
+
+	/* Projects changed while a snapshot is being written. Null when no refresh is running. */
+	private volatile Set<Integer> changesDuringRefresh;
+
+	/* Counts changes that may touch any project, which no snapshot taken before them can serve. */
+	private final AtomicLong bulkChanges = new AtomicLong();
+
+	/* A snapshot and the projects changed through this service since it was taken. */
+	private static class SnapshotView {
+		private final ProjectSnapshot snapshot;
+		private final Set<Integer> changed;
+
+		SnapshotView(ProjectSnapshot snapshot, Set<Integer> changed) {
+			this.snapshot = snapshot;
+			this.changed = changed;
+		}
+	}
+
+	/**
+	 * Turns on read-through caching of {@link #fetchProjectById(Integer)}. Changes
+	 * made through this service invalidate the affected entries.
+	 * 
+	 * @param projectCache the cache, or null to turn caching off
+	 * @return this service
+	 */
+	public ProjectService setProjectCache(ProjectCache projectCache) {
+		this.projectCache = projectCache;
+		return this;
+	}
+
+	/**
+	 * Turns on {@link #searchProjects(String, int)}. Call
+	 * {@link #rebuildSearchIndex()} to build the index from the database before
+	 * the first search; changes made through this service, imports included, then
+	 * keep it up to date. Scripts and schema changes mark it stale, and the next
+	 * search rebuilds it.
+	 * 
+	 * @param searchIndex the index, or null to turn search off
+	 * @return this service
+	 */
+	public ProjectService setSearchIndex(SearchIndex searchIndex) {
+		this.searchIndex = searchIndex;
+		return this;
+	}
+
+	/**
+	 * Turns on write-behind for {@link #modifyProjectDetails(Project)}: updates
+	 * are queued, coalesced per project and written in one batch per window by a
+	 * background thread. {@link #fetchProjectById(Integer)} still returns the
+	 * latest details; other queries see them once they are written. Call
+	 * {@link #flushPendingWrites()} or close the buffer to write them at once.
+	 * 
+	 * @param writeBehind the buffer, which must not be used by another service
+	 * @return this service
+	 */
+	public ProjectService setWriteBehind(WriteBehindBuffer writeBehind) {
+		writeBehind.start(this::writeDetails);
+		this.writeBehind = writeBehind;
+		return this;
+	}
+
+	/**
+	 * Publishes every committed change made through this service to the feed, so
+	 * that other components can react to it. Subscribe to the feed to receive the
+	 * events.
+	 * 
+	 * @param changeFeed the feed, or null to stop publishing
+	 * @return this service
+	 */
+	public ProjectService setChangeFeed(ChangeFeed changeFeed) {
+		projectDao.setChangeFeed(changeFeed);
+		return this;
+	}
+
+	/**
+	 * Serves {@link #fetchProjectById(Integer)} from a binary snapshot, so the
+	 * service starts warm instead of reading every project from the database
+	 * once. A project changed through this service is read from the database from
+	 * then on, but changes made elsewhere are not seen until the snapshot is
+	 * refreshed; the caller decides how old a snapshot it accepts.
+	 * 
+	 * @param snapshot the snapshot, or null to stop using one
+	 * @return this service
+	 */
+	public ProjectService setSnapshot(ProjectSnapshot snapshot) {
+		snapshotView = Objects.isNull(snapshot) ? null : new SnapshotView(snapshot, ConcurrentHashMap.newKeySet());
+		return this;
+	}
+
+	/**
+	 * Rebuilds the binary snapshot file from the primary database and starts
+	 * serving project loads from it (see {@link #setSnapshot(ProjectSnapshot)}).
+	 * Changes made through this service while the snapshot is written are
+	 * remembered, so they are never served stale. If a script or other bulk
+	 * change runs meanwhile, the file is still written but not used.
+	 * 
+	 * @param path the snapshot file, replaced once the new one is complete
+	 * @return the new snapshot
+	 */
+	public synchronized ProjectSnapshot refreshSnapshot(Path path) {
+		Set<Integer> changes = ConcurrentHashMap.newKeySet();
+		long bulkChangesBefore = bulkChanges.get();
+
+		changesDuringRefresh = changes;
+
+		try {
+			ProjectSnapshot snapshot = DbConnection.readFromPrimary(() -> ProjectSnapshot.write(projectDao, path));
+
+			if (bulkChanges.get() == bulkChangesBefore) {
+				snapshotView = new SnapshotView(snapshot, changes);
+			}
+
+			return snapshot;
+		} finally {
+			changesDuringRefresh = null;
+		}
+	}
+
+	/**
+	 * Writes any queued project detail updates now.
+	 */
+	public void flushPendingWrites() {
+		if (Objects.nonNull(writeBehind)) {
+			writeBehind.flush();
+		}
+	}
 
 	/**
 	 * returns project with provided project id. If there's no project associated
@@ -31,103 +217,581 @@ public class ProjectService {
 	 * @return
 	 */
 	public Project fetchProjectById(Integer projectId) {
-		return projectDao.fetchProjectById(projectId)
-				.orElseThrow(() -> new NoSuchElementException("Project with ID=" + projectId + " does not exist."));
+		long start = Metrics.start();
+
+		try {
+			/*
+			 * Look for an unwritten update before loading: one that is gone by now was
+			 * committed, and its batch invalidated the cache, before the load began.
+			 */
+			Project pending = Objects.isNull(writeBehind) ? null : writeBehind.getPending(projectId);
+			Project project = Objects.isNull(projectCache) ? loadProject(projectId)
+					: projectCache.get(projectId, this::loadProject);
+
+			if (Objects.isNull(project)) {
+				throw new NoSuchElementException("Project with ID=" + projectId + " does not exist.");
+			}
+
+			return Objects.isNull(pending) ? project : withDetails(project, pending);
+		} finally {
+			Metrics.stop(FETCH_PROJECT_BY_ID, start);
+		}
+	}
+
+	private Project loadProject(Integer projectId) {
+		SnapshotView view = snapshotView;
+
+		if (Objects.nonNull(view) && !view.changed.contains(projectId)) {
+			Optional<Project> project = view.snapshot.fetchProjectById(projectId);
+
+			if (project.isPresent()) {
+				Metrics.increment(SNAPSHOT_HITS);
+				return project.get();
+			}
+		}
+
+		return projectDao.fetchProjectById(projectId).orElse(null);
 	}
 
+	/* Lays an update that has not been written yet over the stored details. */
+	private Project withDetails(Project project, Project details) {
+		Project merged = new Project();
+
+		merged.setProjectId(project.getProjectId());
+		merged.setProjectName(details.getProjectName());
+		merged.setEstimatedHours(details.getEstimatedHours());
+		merged.setActualHours(details.getActualHours());
+		merged.setDifficulty(details.getDifficulty());
+		merged.setNotes(details.getNotes());
+		merged.setVersion(project.getVersion());
+		merged.getMaterials().addAll(project.getMaterials());
+		merged.getSteps().addAll(project.getSteps());
+		merged.getCategories().addAll(project.getCategories());
+		return merged;
+	}
+
+	/**
+	 * Drops every table and rebuilds the schema by running all migrations. This
+	 * destroys all data; it is meant for test and benchmark databases. Use
+	 * {@link #migrateSchema()} to upgrade a database in place.
+	 */
 	public void createAndPopulateTables() {
-		loadFromFile(SCHEMA_FILE);
+		try {
+			loadFromFile(SCHEMA_FILE);
+			migrationEngine.migrate();
+		} finally {
+			invalidateAll();
+		}
+	}
+
+	/**
+	 * Applies any migrations the database does not have yet, keeping its data.
+	 * 
+	 * @return the migrations that were applied
+	 */
+	public List<Migration> migrateSchema() {
+		try {
+			return migrationEngine.migrate();
+		} finally {
+			invalidateAll();
+		}
+	}
+
+	/**
+	 * Checks the schema without changing it.
+	 * 
+	 * @return a description of each pending migration and each missing hot-path
+	 *         index; empty if the schema is up to date
+	 */
+	public List<String> verifySchema() {
+		List<String> problems = new ArrayList<>();
+
+		for (Migration migration : migrationEngine.pendingMigrations()) {
+			problems.add("Migration " + migration + " has not been applied");
+		}
+
+		for (String index : migrationEngine.verifyIndexes()) {
+			problems.add("Missing " + index);
+		}
+
+		return problems;
+	}
+
+	/**
+	 * Runs a SQL script file against the database. The script is read and
+	 * executed a batch of statements at a time, so files of any size run in
+	 * constant memory. Each batch is committed before the next is read. Scripts
+	 * bypass rollup maintenance; call {@link #rebuildRollups()} afterwards if the
+	 * script changed projects or materials.
+	 * 
+	 * @param path the script file
+	 */
+	public void runSqlScript(Path path) {
+		try (SqlScriptReader script = SqlScriptReader.forFile(path)) {
+			projectDao.executeScript(script, SCRIPT_BATCH_SIZE);
+		} finally {
+			invalidateAll();
+		}
 	}
 
 	private void loadFromFile(String fileName) {
-		String content = readFileContent(fileName);
-		List<String> sqlStatements = convertContentToSqlStatements(content);
+		try (SqlScriptReader script = SqlScriptReader.forResource(fileName)) {
+			projectDao.executeScript(script, SCRIPT_BATCH_SIZE);
+		}
+	}
+
+	public Project addProject(Project project) {
+		long start = Metrics.start();
+
+		try {
+			Project dbProject = projectDao.insertProject(project);
 
-		projectDao.executeBatch(sqlStatements);
+			invalidate(dbProject.getProjectId());
+
+			if (Objects.nonNull(searchIndex)) {
+				searchIndex.index(dbProject);
+			}
+
+			return dbProject;
+		} finally {
+			Metrics.stop(ADD_PROJECT, start);
+		}
 	}
 
-	private List<String> convertContentToSqlStatements(String content) {
-		content = removeComments(content);
-		content = replaceWhiteSpaceSequencesWithSingleSpace(content);
+	/**
+	 * Adds many projects (without children) in batches and sets each project's
+	 * generated ID.
+	 * 
+	 * @param projects the projects to add
+	 * @return the projects with IDs filled in
+	 */
+	public List<Project> addProjects(List<Project> projects) {
+		List<Project> dbProjects = Metrics.time(ADD_PROJECTS, () -> projectDao.insertProjects(projects));
+
+		if (Objects.nonNull(searchIndex)) {
+			dbProjects.forEach(searchIndex::index);
+		}
 
-		return extractLinesFromContent(content);
+		return dbProjects;
 	}
 
-	private List<String> extractLinesFromContent(String content) {
-		List<String> lines = new LinkedList<>();
+	/**
+	 * Bulk-imports project graphs from a CSV or JSON Lines file. If an earlier
+	 * import of the same file failed part way through, the import resumes after
+	 * the last committed batch.
+	 * 
+	 * @param path the file to import
+	 * @return a summary of what was imported
+	 */
+	public ImportSummary importProjects(Path path) {
+		ProjectImporter importer = new ProjectImporter(projectDao);
 
-		while (!content.isEmpty()) {
-			int semicolon = content.indexOf(";");
+		if (Objects.nonNull(searchIndex)) {
+			importer.setCommitListener(searchIndex::index);
+		}
 
-			if (semicolon == -1) {
-				if (!content.isBlank()) {
-					lines.add(content);
-				}
+		return importer.importFile(path);
+	}
 
-				content = "";
-			} else {
-				lines.add(content.substring(0, semicolon).trim());
-				content = content.substring(semicolon + 1);
+	/**
+	 * Exports every project graph to a CSV or JSON Lines file, optionally
+	 * gzipped, in the format {@link #importProjects(Path)} reads. Projects are
+	 * streamed, so the export runs in constant memory.
+	 * 
+	 * @param path the file to write; it is replaced if it exists
+	 * @return a summary of what was exported
+	 */
+	public ExportSummary exportProjects(Path path) {
+		return new ProjectExporter(projectDao).exportFile(path);
+	}
+
+	public List<Project> fetchAllProjects() {
+		return Metrics.time(FETCH_ALL_PROJECTS, projectDao::fetchAllProjects);
+	}
+
+	/**
+	 * Returns one page of projects ordered by name. Pass null for the first page
+	 * and the page's next page token for each following page.
+	 */
+	public ProjectPage fetchProjectPage(String pageToken, int pageSize) {
+		return Metrics.time(FETCH_PROJECT_PAGE, () -> projectDao.fetchProjectPage(pageToken, pageSize));
+	}
+
+	/**
+	 * Streams every project row (without children) in constant memory. The stream
+	 * must be closed.
+	 */
+	public Stream<Project> streamAllProjects() {
+		return projectDao.streamAllProjects();
+	}
+
+	/**
+	 * Returns the projects with the given IDs, including materials, steps and
+	 * categories. Missing IDs are skipped.
+	 */
+	public List<Project> fetchProjectsByIds(Collection<Integer> projectIds) {
+		return Metrics.time(FETCH_PROJECTS_BY_IDS, () -> projectDao.fetchProjectsByIds(projectIds));
+	}
+
+	/**
+	 * Returns every project including materials, steps and categories.
+	 */
+	public List<Project> fetchAllProjectGraphs() {
+		return Metrics.time(FETCH_ALL_PROJECT_GRAPHS, projectDao::fetchAllProjectGraphs);
+	}
+
+	/**
+	 * Updates a project's details. If the project has a version the update only
+	 * succeeds if nobody changed the project since that version was read. With
+	 * write-behind on, the update is queued, versions are not checked and a
+	 * missing project is not reported.
+	 * 
+	 * @throws ProjectConflictException if the project's version has changed
+	 */
+	public void modifyProjectDetails(Project project) {
+		long start = Metrics.start();
+
+		if (Objects.nonNull(writeBehind)) {
+			writeBehind.put(project);
+			Metrics.stop(MODIFY_PROJECT_DETAILS, start);
+			return;
+		}
+
+		try {
+			if (!projectDao.modifyProjectDetails(project)) {
+				throw new DbException("Project with ID=" + project.getProjectId() + "does not exist.");
 			}
+
+			reindexDetails(project);
+		} finally {
+			invalidate(project.getProjectId());
+			Metrics.stop(MODIFY_PROJECT_DETAILS, start);
 		}
+	}
+
+	/**
+	 * Saves changes made to a project that was read earlier, merging them with
+	 * any changes made by others since. Each attempt is a conditional update, so
+	 * no row stays locked while the caller edits and editors of different
+	 * projects never wait for each other. On a conflict the current project is
+	 * read again and merged field by field: fields the caller left alone take the
+	 * current value, and fields the caller changed keep the caller's value unless
+	 * someone else changed them to something different. The update is always
+	 * written at once, even with write-behind on.
+	 * 
+	 * @param base        the project as the caller read it, with its version
+	 * @param edited      the project with the caller's changes
+	 * @param maxAttempts the most updates to try
+	 * @return the saved details, with the new version
+	 * @throws ProjectConflictException if both sides changed the same field or
+	 *                                  every attempt conflicted
+	 */
+	public Project modifyProjectDetails(Project base, Project edited, int maxAttempts) {
+		long start = Metrics.start();
+		Project candidate = merge(base, edited, base);
+
+		try {
+			for (int attempt = 1;; attempt++) {
+				try {
+					if (!projectDao.modifyProjectDetails(candidate)) {
+						throw new DbException("Project with ID=" + base.getProjectId() + " does not exist.");
+					}
 
-		return lines;
+					reindexDetails(candidate);
+					return candidate;
+				} catch (ProjectConflictException e) {
+					Metrics.increment(UPDATE_CONFLICTS);
+
+					if (attempt >= maxAttempts) {
+						throw e;
+					}
+
+					/* The replica may not have the winning update yet. */
+					Project current = DbConnection.readFromPrimary(() -> projectDao.fetchProjectById(base.getProjectId()))
+							.orElseThrow(() -> new DbException("Project with ID=" + base.getProjectId() + " does not exist."));
+
+					candidate = merge(base, edited, current);
+				}
+			}
+		} finally {
+			invalidate(base.getProjectId());
+			Metrics.stop(MODIFY_PROJECT_DETAILS, start);
+		}
 	}
 
-	private String replaceWhiteSpaceSequencesWithSingleSpace(String content) {
-		return content.replaceAll("\\s+", " ");
+	/* A three-way merge of the details, versioned to replace current. */
+	private static Project merge(Project base, Project edited, Project current) {
+		Project merged = new Project();
+
+		merged.setProjectId(base.getProjectId());
+		merged.setVersion(current.getVersion());
+		merged.setProjectName(mergeField("projectName", base, current, base.getProjectName(),
+				edited.getProjectName(), current.getProjectName()));
+		merged.setEstimatedHours(mergeField("estimatedHours", base, current, base.getEstimatedHours(),
+				edited.getEstimatedHours(), current.getEstimatedHours()));
+		merged.setActualHours(mergeField("actualHours", base, current, base.getActualHours(),
+				edited.getActualHours(), current.getActualHours()));
+		merged.setDifficulty(mergeField("difficulty", base, current, base.getDifficulty(), edited.getDifficulty(),
+				current.getDifficulty()));
+		merged.setNotes(mergeField("notes", base, current, base.getNotes(), edited.getNotes(), current.getNotes()));
+		return merged;
 	}
 
-	private String removeComments(String content) {
-		StringBuilder builder = new StringBuilder(content);
-		int commentPos = 0;
+	private static <T> T mergeField(String field, Project base, Project current, T original, T mine, T theirs) {
+		if (sameValue(mine, original)) {
+			return theirs;
+		}
 
-		while ((commentPos = builder.indexOf("-- ", commentPos)) != -1) {
-			int eolPos = builder.indexOf("\n", commentPos + 1);
+		if (sameValue(theirs, original) || sameValue(theirs, mine)) {
+			return mine;
+		}
 
-			if (eolPos == -1) {
-				builder.replace(commentPos, builder.length(), "");
-			} else {
-				builder.replace(commentPos, eolPos + 1, "");
+		throw new ProjectConflictException(base.getProjectId(), base.getVersion(), current.getVersion(), field);
+	}
+
+	/* Equal, treating decimals with different scales (10.0 and 10.00) as the same. */
+	private static boolean sameValue(Object left, Object right) {
+		if (left instanceof BigDecimal && right instanceof BigDecimal) {
+			return ((BigDecimal) left).compareTo((BigDecimal) right) == 0;
+		}
+
+		return Objects.equals(left, right);
+	}
+
+	public void deleteProject(Integer projectId) {
+		long start = Metrics.start();
+
+		try {
+			if (Objects.nonNull(writeBehind)) {
+				writeBehind.discard(projectId);
+			}
+
+			if (!projectDao.deleteProject(projectId)) {
+				throw new DbException("Project with ID=" + projectId + " does not exist.");
 			}
+
+			if (Objects.nonNull(searchIndex)) {
+				searchIndex.remove(projectId);
+			}
+		} finally {
+			invalidate(projectId);
+			Metrics.stop(DELETE_PROJECT, start);
 		}
+	}
 
-		return builder.toString();
+	/**
+	 * Appends the steps to the end of the project's steps in one batch.
+	 * 
+	 * @param projectId the project
+	 * @param steps     the steps in order
+	 * @return the steps with IDs and orders set
+	 */
+	public List<Step> addSteps(Integer projectId, List<Step> steps) {
+		if (steps.isEmpty()) {
+			return steps;
+		}
+
+		long start = Metrics.start();
 
+		try {
+			List<Step> dbSteps = projectDao.insertSteps(projectId, steps);
+
+			reindex(projectId);
+			return dbSteps;
+		} finally {
+			invalidate(projectId);
+			Metrics.stop(ADD_STEPS, start);
+		}
 	}
 
-	private String readFileContent(String fileName) {
+	/**
+	 * Moves a step to directly after another step, or to the front if
+	 * afterStepId is null.
+	 */
+	public void moveStep(Integer projectId, Integer stepId, Integer afterStepId) {
+		long start = Metrics.start();
+
 		try {
-			Path path = Paths.get(getClass().getClassLoader().getResource(fileName).toURI());
-			return Files.readString(path);
+			if (!projectDao.moveStep(projectId, stepId, afterStepId)) {
+				throw new DbException("Step with ID=" + stepId + " does not belong to project " + projectId + ".");
+			}
+		} finally {
+			invalidate(projectId);
+			Metrics.stop(MOVE_STEP, start);
+		}
+	}
 
-		} catch (Exception e) {
-			throw new DbException(e);
+	/**
+	 * Finds projects whose name, notes, steps, materials or categories match the
+	 * query, best match first. The last word of the query also matches longer
+	 * words that start with it.
+	 * 
+	 * @param query the words to search for
+	 * @param limit the most projects to return
+	 * @return the matching projects
+	 */
+	public List<SearchHit> searchProjects(String query, int limit) {
+		if (Objects.isNull(searchIndex)) {
+			throw new DbException("Search is not enabled.");
+		}
 
+		if (!searchIndex.isBuilt()) {
+			rebuildSearchIndex();
 		}
+
+		return Metrics.time(SEARCH_PROJECTS, () -> searchIndex.search(query, limit));
 	}
 
-	public Project addProject(Project project) {
-		return projectDao.insertProject(project);
+	/**
+	 * Rebuilds the search index from the database. Searches keep using the old
+	 * index until the new one is ready.
+	 */
+	public synchronized void rebuildSearchIndex() {
+		if (Objects.isNull(searchIndex)) {
+			return;
+		}
+
+		SearchIndex.Loader loader = searchIndex.startRebuild();
+
+		projectDao.forEachProjectText(loader::addName, loader::addNotes, loader::addText);
+
+		for (Integer projectId : searchIndex.install(loader)) {
+			reindex(projectId);
+		}
 	}
 
-	public List<Project> fetchAllProjects() {
-		return projectDao.fetchAllProjects();
+	/* Writes one batch for the write-behind buffer and indexes the details it wrote. */
+	private int writeDetails(List<Project> projects) {
+		int written = projectDao.modifyProjectDetails(projects);
+
+		for (Project project : projects) {
+			invalidate(project.getProjectId());
+			reindexDetails(project);
+		}
 
+		return written;
 	}
 
-	public void modifyProjectDetails(Project project) {
-		if(!projectDao.modifyProjectDetails(project)) {
-			throw new DbException("Project with ID=" + project.getProjectId() + "does not exist.");
+	/*
+	 * Indexes a project's new name and notes, keeping the indexed text of its
+	 * children. A project the index does not have yet is read in full.
+	 */
+	private void reindexDetails(Project project) {
+		if (Objects.nonNull(searchIndex)
+				&& !searchIndex.updateDetails(project.getProjectId(), project.getProjectName(), project.getNotes())) {
+			reindex(project.getProjectId());
 		}
-		
 	}
 
-	public void deleteProject(Integer projectId) {
-		if(!projectDao.deleteProject(projectId)) {
-			throw new DbException("Project with ID=" + projectId + " does not exist.");
+	/* Reads the project again, from the primary, so the index sees its current text. */
+	private void reindex(Integer projectId) {
+		if (Objects.nonNull(searchIndex)) {
+			Optional<Project> project = DbConnection.readFromPrimary(() -> projectDao.fetchProjectById(projectId));
+
+			if (project.isPresent()) {
+				searchIndex.index(project.get());
+			} else {
+				searchIndex.remove(projectId);
+			}
+		}
+	}
+
+	/**
+	 * Returns the columnar snapshot of the project table, loading it on first
+	 * use. The snapshot does not see later changes until
+	 * {@link #refreshProjectColumns()} is called.
+	 */
+	public ProjectColumns fetchProjectColumns() {
+		ProjectColumns columns = projectColumns;
+		return Objects.isNull(columns) ? refreshProjectColumns() : columns;
+	}
+
+	/**
+	 * Loads a new columnar snapshot of the project table, streaming the rows
+	 * without notes, and makes it the current one.
+	 */
+	public ProjectColumns refreshProjectColumns() {
+		try (Stream<Project> projects = projectDao.streamProjectSummaries()) {
+			ProjectColumns columns = ProjectColumns.from(projects);
+
+			projectColumns = columns;
+			return columns;
+		}
+	}
+
+	/**
+	 * Returns a project's material count, material cost and hours from its rollup
+	 * row, without reading its materials.
+	 * 
+	 * @throws NoSuchElementException if there is no such project
+	 */
+	public ProjectRollup fetchProjectRollup(Integer projectId) {
+		return rollupDao.fetchProjectRollup(projectId).orElseThrow(
+				() -> new NoSuchElementException("Project with ID=" + projectId + " does not exist."));
+	}
+
+	/**
+	 * Returns the project count, material cost and hours of every category.
+	 */
+	public List<CategoryRollup> fetchCategoryRollups() {
+		return rollupDao.fetchCategoryRollups();
+	}
+
+	/**
+	 * Returns the project count, material cost and hours over all projects.
+	 */
+	public CategoryRollup fetchRollupTotals() {
+		return rollupDao.fetchRollupTotals();
+	}
+
+	/**
+	 * Recomputes every rollup from the project, material and category tables.
+	 * Rollups are maintained as projects change, so this is only needed to repair
+	 * drift after the tables were changed some other way.
+	 * 
+	 * @return the number of projects rolled up
+	 */
+	public int rebuildRollups() {
+		return rollupDao.rebuildRollups();
+	}
+
+	/**
+	 * Returns the cache counters, or null if caching is off.
+	 */
+	public ProjectCache.CacheStats getCacheStats() {
+		return Objects.isNull(projectCache) ? null : projectCache.getStats();
+	}
+
+	private void invalidate(Integer projectId) {
+		/* Refresh first: if none is running now, one that starts later reads this change. */
+		Set<Integer> refreshChanges = changesDuringRefresh;
+
+		if (Objects.nonNull(refreshChanges)) {
+			refreshChanges.add(projectId);
+		}
+
+		SnapshotView view = snapshotView;
+
+		if (Objects.nonNull(view)) {
+			view.changed.add(projectId);
+		}
+
+		if (Objects.nonNull(projectCache)) {
+			projectCache.invalidate(projectId);
+		}
+	}
+
+	private void invalidateAll() {
+		bulkChanges.incrementAndGet();
+		snapshotView = null;
+
+		if (Objects.nonNull(projectCache)) {
+			projectCache.invalidateAll();
+		}
+
+		if (Objects.nonNull(searchIndex)) {
+			searchIndex.markStale();
 		}
-		
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,215 @@
+package projects.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+import projects.dao.DbConnection;
+import projects.entity.Project;
+import projects.exception.DbException;
+import projects.metrics.Metrics;
+
+/**
+ * Holds project detail updates and writes them in the background. Updates to
+ * the same project within one window are coalesced, so only the latest one is
+ * written, and every window's updates are written as a single batch.
+ *
+ * Memory is bounded by the number of distinct projects waiting: an update for a
+ * new project when {@code maxPending} are already waiting first flushes in the
+ * caller's thread. Updates stay visible through {@link #getPending(Integer)}
+ * until their batch commits, which is what gives callers read-your-writes. If a
+ * batch fails its updates are put back, unless a newer one has arrived, and
+ * retried in the next window.
+ *
+ * {@link #close()} stops the background thread and flushes what is left.
+ * {@link DbConnection#shutdown()} closes the buffer before it closes the pool,
+ * and a shutdown hook does the same when the JVM exits without it.
+ */
+public class WriteBehindBuffer implements AutoCloseable {
+	private static final LongAdder QUEUED = Metrics.counter("writeBehind.queued");
+	private static final LongAdder COALESCED = Metrics.counter("writeBehind.coalesced");
+	private static final LongAdder WRITTEN = Metrics.counter("writeBehind.written");
+	private static final LongAdder BATCHES = Metrics.counter("writeBehind.batches");
+
+	private final long windowMillis;
+	private final int maxPending;
+
+	/* Updates not yet taken by a flush, and updates in a batch that has not committed. */
+	private final Map<Integer, Project> pending = new ConcurrentHashMap<>();
+	private final Map<Integer, Project> flushing = new ConcurrentHashMap<>();
+
+	/* Guarded by this. */
+	private ToIntFunction<List<Project>> writer;
+	private ScheduledExecutorService flusher;
+	private Thread shutdownHook;
+	private final Runnable closeTask = this::close;
+
+	/**
+	 * @param window     how long updates wait to be coalesced before they are
+	 *                   written
+	 * @param maxPending the most projects with updates waiting
+	 */
+	public WriteBehindBuffer(Duration window, int maxPending) {
+		if (window.isNegative() || window.isZero()) {
+			throw new IllegalArgumentException("window must be positive");
+		}
+
+		if (maxPending < 1) {
+			throw new IllegalArgumentException("maxPending must be at least 1");
+		}
+
+		this.windowMillis = window.toMillis();
+		this.maxPending = maxPending;
+	}
+
+	/**
+	 * Starts flushing every window.
+	 *
+	 * @param writer writes one batch and returns the number of projects updated
+	 */
+	synchronized void start(ToIntFunction<List<Project>> writer) {
+		if (Objects.nonNull(flusher)) {
+			throw new IllegalStateException("The write-behind buffer is already in use.");
+		}
+
+		this.writer = writer;
+
+		flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "write-behind");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		flusher.scheduleWithFixedDelay(this::flushInBackground, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+
+		shutdownHook = new Thread(this::flush, "write-behind-shutdown");
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+		DbConnection.addShutdownTask(closeTask);
+	}
+
+	/**
+	 * Queues a copy of the project's details, replacing any update for the same
+	 * project that has not been written yet.
+	 */
+	void put(Project project) {
+		Integer projectId = project.getProjectId();
+
+		if (!pending.containsKey(projectId) && pending.size() >= maxPending) {
+			flush();
+		}
+
+		Metrics.increment(QUEUED);
+
+		if (Objects.nonNull(pending.put(projectId, copyDetails(project)))) {
+			Metrics.increment(COALESCED);
+		}
+	}
+
+	/**
+	 * Returns the latest update for the project that has not been committed yet,
+	 * or null if there is none.
+	 */
+	Project getPending(Integer projectId) {
+		Project project = pending.get(projectId);
+		return Objects.isNull(project) ? flushing.get(projectId) : project;
+	}
+
+	/**
+	 * Drops the waiting update for a project, for example because the project is
+	 * being deleted.
+	 */
+	void discard(Integer projectId) {
+		pending.remove(projectId);
+	}
+
+	/**
+	 * Returns the number of projects with updates waiting to be written.
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Writes every waiting update in one batch in the caller's thread.
+	 *
+	 * @return the number of projects updated
+	 * @throws DbException if the batch fails; the updates are kept for the next
+	 *                     flush
+	 */
+	public synchronized int flush() {
+		if (pending.isEmpty() || Objects.isNull(writer)) {
+			return 0;
+		}
+
+		List<Project> batch = new ArrayList<>(pending.size());
+
+		/* Publish to flushing before removing from pending so readers never miss an update. */
+		for (Map.Entry<Integer, Project> entry : pending.entrySet()) {
+			flushing.put(entry.getKey(), entry.getValue());
+			pending.remove(entry.getKey(), entry.getValue());
+			batch.add(entry.getValue());
+		}
+
+		try {
+			int written = writer.applyAsInt(batch);
+
+			Metrics.increment(BATCHES);
+			Metrics.add(WRITTEN, written);
+			return written;
+		} catch (RuntimeException e) {
+			batch.forEach(project -> pending.putIfAbsent(project.getProjectId(), project));
+			throw e;
+		} finally {
+			batch.forEach(project -> flushing.remove(project.getProjectId(), project));
+		}
+	}
+
+	private void flushInBackground() {
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			System.out.println("Write-behind flush failed, will retry: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Stops the background flush and writes what is left.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (Objects.nonNull(flusher)) {
+				flusher.shutdown();
+				DbConnection.removeShutdownTask(closeTask);
+
+				try {
+					Runtime.getRuntime().removeShutdownHook(shutdownHook);
+				} catch (IllegalStateException e) {
+					/* Already shutting down; the hook is running or has run. */
+				}
+			}
+		}
+
+		flush();
+	}
+
+	private static Project copyDetails(Project project) {
+		Project copy = new Project();
+
+		copy.setProjectId(project.getProjectId());
+		copy.setProjectName(project.getProjectName());
+		copy.setEstimatedHours(project.getEstimatedHours());
+		copy.setActualHours(project.getActualHours());
+		copy.setDifficulty(project.getDifficulty());
+		copy.setNotes(project.getNotes());
+		return copy;
+	}
+}
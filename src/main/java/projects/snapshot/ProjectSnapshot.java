@@ -0,0 +1,311 @@
+package projects.snapshot;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import projects.dao.ProjectDao;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.exception.DbException;
+
+/**
+ * A read-only binary copy of every project graph in one file, mapped into
+ * memory with {@link FileChannel#map}. Opening a snapshot reads only the header
+ * and the category names; a lookup binary-searches the project ID index and
+ * decodes that one project from the mapped file. Pages are loaded by the
+ * operating system on first touch, so a snapshot of millions of rows opens in
+ * milliseconds and is shared with any other process that maps the same file.
+ *
+ * <p>
+ * The file holds, in order:
+ * <ol>
+ * <li>A {@value #HEADER_SIZE}-byte header: magic, format version, creation
+ * time, project and category counts, and the offsets of the sections
+ * below.</li>
+ * <li>One record per project in project ID order: the project's columns, then
+ * its materials, steps (in step order) and category IDs. Strings are
+ * length-prefixed UTF-8, decimals are a scale and an unscaled long.</li>
+ * <li>The category table: every category ID with its name.</li>
+ * <li>The index: the sorted project IDs, then each record's offset.</li>
+ * </ol>
+ * Files over 2 GB are mapped in {@value #SEGMENT_SIZE}-byte segments. The
+ * writer pads so that no record crosses a segment boundary, and index entries
+ * are aligned, so every read stays within one mapping.
+ *
+ * <p>
+ * A snapshot is a point-in-time copy: it does not see later changes.
+ */
+public class ProjectSnapshot {
+	static final int MAGIC = 0x50524A53;
+	static final int FORMAT_VERSION = 1;
+	static final int HEADER_SIZE = 64;
+	static final int NULL_INT = Integer.MIN_VALUE;
+
+	static final int SEGMENT_SHIFT = 30;
+	static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+	private final Path path;
+	private final MappedByteBuffer[] segments;
+	private final long createdAtMillis;
+	private final int projectCount;
+	private final long idsOffset;
+	private final long offsetsOffset;
+	private final long fileSize;
+	private final Map<Integer, String> categoryNames;
+
+	private ProjectSnapshot(Path path, MappedByteBuffer[] segments) {
+		this.path = path;
+		this.segments = segments;
+
+		ByteBuffer header = segments[0].duplicate();
+
+		if (header.limit() < HEADER_SIZE || header.getInt() != MAGIC) {
+			throw new DbException(path + " is not a project snapshot.");
+		}
+
+		int formatVersion = header.getInt();
+
+		if (formatVersion != FORMAT_VERSION) {
+			throw new DbException(path + " has snapshot format " + formatVersion + ", expected " + FORMAT_VERSION
+					+ ". Refresh the snapshot.");
+		}
+
+		createdAtMillis = header.getLong();
+		projectCount = header.getInt();
+
+		int categoryCount = header.getInt();
+		long categoryTableOffset = header.getLong();
+
+		idsOffset = header.getLong();
+		offsetsOffset = header.getLong();
+		fileSize = header.getLong();
+
+		long mappedSize = (long) (segments.length - 1) * SEGMENT_SIZE + segments[segments.length - 1].limit();
+
+		if (fileSize != mappedSize) {
+			throw new DbException(path + " is truncated: expected " + fileSize + " bytes but found " + mappedSize + ".");
+		}
+
+		ByteBuffer table = at(categoryTableOffset);
+
+		if (table.getInt() != categoryCount) {
+			throw new DbException(path + " has a damaged category table.");
+		}
+
+		categoryNames = new HashMap<>(categoryCount * 2);
+
+		for (int index = 0; index < categoryCount; index++) {
+			categoryNames.put(table.getInt(), getString(table));
+		}
+	}
+
+	/**
+	 * Maps the snapshot file.
+	 *
+	 * @throws DbException if the file cannot be read or is not a complete
+	 *                     snapshot
+	 */
+	public static ProjectSnapshot open(Path path) {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int segmentCount = Math.max(1, (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT));
+			MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+
+			for (int index = 0; index < segments.length; index++) {
+				long start = (long) index << SEGMENT_SHIFT;
+				segments[index] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+			}
+
+			/* The mapping stays valid after the channel is closed. */
+			return new ProjectSnapshot(path, segments);
+
+		} catch (IOException e) {
+			throw new DbException("Unable to open the project snapshot " + path + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Writes a new snapshot of every project in the database to the path,
+	 * streaming the rows in constant memory apart from the index, and opens it.
+	 * The file replaces any existing one only once it is complete.
+	 */
+	public static ProjectSnapshot write(ProjectDao projectDao, Path path) {
+		ProjectSnapshotWriter.write(projectDao, path);
+		return open(path);
+	}
+
+	/**
+	 * Returns the project with its materials, steps and categories, decoded from
+	 * the file, or empty if the snapshot has no such project. Each call returns
+	 * new objects.
+	 */
+	public Optional<Project> fetchProjectById(Integer projectId) {
+		int row = find(projectId);
+
+		if (row < 0) {
+			return Optional.empty();
+		}
+
+		return Optional.of(decode(at(getLong(offsetsOffset + (long) row * Long.BYTES))));
+	}
+
+	/**
+	 * Returns true if the snapshot has the project, without decoding it.
+	 */
+	public boolean contains(Integer projectId) {
+		return find(projectId) >= 0;
+	}
+
+	private int find(Integer projectId) {
+		if (Objects.isNull(projectId)) {
+			return -1;
+		}
+
+		int low = 0;
+		int high = projectCount - 1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int id = getInt(idsOffset + (long) middle * Integer.BYTES);
+
+			if (id < projectId) {
+				low = middle + 1;
+			} else if (id > projectId) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+
+		return -1;
+	}
+
+	private Project decode(ByteBuffer in) {
+		Project project = new Project();
+
+		project.setProjectId(in.getInt());
+		project.setVersion(getInt(in));
+		project.setProjectName(getString(in));
+		project.setEstimatedHours(getDecimal(in));
+		project.setActualHours(getDecimal(in));
+		project.setDifficulty(getInt(in));
+		project.setNotes(getString(in));
+
+		for (int count = in.getInt(); count > 0; count--) {
+			Material material = new Material();
+
+			material.setMaterialId(in.getInt());
+			material.setProjectId(project.getProjectId());
+			material.setMaterialName(getString(in));
+			material.setNumRequired(getInt(in));
+			material.setCost(getDecimal(in));
+			project.getMaterials().add(material);
+		}
+
+		for (int count = in.getInt(); count > 0; count--) {
+			Step step = new Step();
+
+			step.setStepId(in.getInt());
+			step.setProjectId(project.getProjectId());
+			step.setStepOrder(getInt(in));
+			step.setStepText(getString(in));
+			project.getSteps().add(step);
+		}
+
+		for (int count = in.getInt(); count > 0; count--) {
+			Category category = new Category();
+
+			category.setCategoryId(in.getInt());
+			category.setCategoryName(categoryNames.get(category.getCategoryId()));
+			project.getCategories().add(category);
+		}
+
+		return project;
+	}
+
+	/* A view of the mapped file positioned at the offset. */
+	private ByteBuffer at(long offset) {
+		ByteBuffer buffer = segments[(int) (offset >>> SEGMENT_SHIFT)].duplicate();
+
+		buffer.position((int) segmentOffset(offset));
+		return buffer;
+	}
+
+	private int getInt(long offset) {
+		return segments[(int) (offset >>> SEGMENT_SHIFT)].getInt((int) segmentOffset(offset));
+	}
+
+	private long getLong(long offset) {
+		return segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) segmentOffset(offset));
+	}
+
+	private static Integer getInt(ByteBuffer in) {
+		int value = in.getInt();
+		return value == NULL_INT ? null : value;
+	}
+
+	private static String getString(ByteBuffer in) {
+		int length = in.getInt();
+
+		if (length < 0) {
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static BigDecimal getDecimal(ByteBuffer in) {
+		if (in.get() == 0) {
+			return null;
+		}
+
+		int scale = in.getInt();
+		return BigDecimal.valueOf(in.getLong(), scale);
+	}
+
+	static int segment(long offset) {
+		return (int) (offset >>> SEGMENT_SHIFT);
+	}
+
+	static long segmentOffset(long offset) {
+		return offset & (SEGMENT_SIZE - 1);
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public int getProjectCount() {
+		return projectCount;
+	}
+
+	public Instant getCreatedAt() {
+		return Instant.ofEpochMilli(createdAtMillis);
+	}
+
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: projects=%d, categories=%d, bytes=%d, created=%s", path, projectCount,
+				categoryNames.size(), fileSize, getCreatedAt());
+	}
+}
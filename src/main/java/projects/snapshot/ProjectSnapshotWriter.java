@@ -0,0 +1,302 @@
+package projects.snapshot;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import projects.dao.ProjectDao;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.exception.DbException;
+
+/**
+ * Writes a {@link ProjectSnapshot} file. Projects arrive in project ID order,
+ * so each record is encoded and appended as soon as it is read, and only the
+ * index (12 bytes per project) and the category names are kept until the end.
+ * The file is written next to the target and renamed over it once complete.
+ */
+class ProjectSnapshotWriter {
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+	private ByteBuffer record = ByteBuffer.allocate(4096);
+	private long position = ProjectSnapshot.HEADER_SIZE;
+
+	private int[] projectIds = new int[1024];
+	private long[] offsets = new long[1024];
+	private int projectCount;
+	private final Map<Integer, String> categoryNames = new TreeMap<>();
+
+	/* Records start after the header, which is written last. */
+	private ProjectSnapshotWriter(FileChannel channel) throws IOException {
+		this.channel = channel;
+		channel.position(position);
+	}
+
+	/**
+	 * Streams every project graph from the database into a new snapshot file at
+	 * the path, replacing any file there.
+	 */
+	static void write(ProjectDao projectDao, Path path) {
+		Path partial = path.resolveSibling(path.getFileName() + ".part");
+
+		try {
+			try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ProjectSnapshotWriter writer = new ProjectSnapshotWriter(channel);
+
+				projectDao.forEachProjectGraph(writer::append);
+				writer.finish();
+			}
+
+			Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		} catch (IOException | RuntimeException e) {
+			try {
+				Files.deleteIfExists(partial);
+			} catch (IOException ignored) {
+				/* The snapshot has failed anyway. */
+			}
+
+			throw new DbException("Unable to write the project snapshot " + path + ": " + e.getMessage(), e);
+		}
+	}
+
+	private void append(Project project) {
+		record.clear();
+
+		while (true) {
+			try {
+				encode(project);
+				break;
+			} catch (BufferOverflowException e) {
+				record = ByteBuffer.allocate(record.capacity() * 2);
+			}
+		}
+
+		if (projectCount > 0 && project.getProjectId() <= projectIds[projectCount - 1]) {
+			throw new DbException("Projects must be written in ascending ID order.");
+		}
+
+		if (projectCount == projectIds.length) {
+			projectIds = Arrays.copyOf(projectIds, projectCount * 2);
+			offsets = Arrays.copyOf(offsets, projectCount * 2);
+		}
+
+		for (Category category : project.getCategories()) {
+			categoryNames.put(category.getCategoryId(), category.getCategoryName());
+		}
+
+		record.flip();
+		projectIds[projectCount] = project.getProjectId();
+		offsets[projectCount] = writeRecord(record);
+		projectCount++;
+	}
+
+	private void encode(Project project) {
+		record.putInt(project.getProjectId());
+		putInt(project.getVersion());
+		putString(project.getProjectName());
+		putDecimal(project.getEstimatedHours());
+		putDecimal(project.getActualHours());
+		putInt(project.getDifficulty());
+		putString(project.getNotes());
+
+		record.putInt(project.getMaterials().size());
+
+		for (Material material : project.getMaterials()) {
+			record.putInt(material.getMaterialId());
+			putString(material.getMaterialName());
+			putInt(material.getNumRequired());
+			putDecimal(material.getCost());
+		}
+
+		record.putInt(project.getSteps().size());
+
+		for (Step step : project.getSteps()) {
+			record.putInt(step.getStepId());
+			putInt(step.getStepOrder());
+			putString(step.getStepText());
+		}
+
+		record.putInt(project.getCategories().size());
+
+		for (Category category : project.getCategories()) {
+			record.putInt(category.getCategoryId());
+		}
+	}
+
+	private void putInt(Integer value) {
+		if (Objects.nonNull(value) && value == ProjectSnapshot.NULL_INT) {
+			throw new DbException(value + " cannot be stored in a snapshot.");
+		}
+
+		record.putInt(Objects.isNull(value) ? ProjectSnapshot.NULL_INT : value);
+	}
+
+	private void putString(String value) {
+		if (Objects.isNull(value)) {
+			record.putInt(-1);
+			return;
+		}
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+		record.putInt(bytes.length);
+		record.put(bytes);
+	}
+
+	private void putDecimal(BigDecimal value) {
+		if (Objects.isNull(value)) {
+			record.put((byte) 0);
+			return;
+		}
+
+		record.put((byte) 1);
+		record.putInt(value.scale());
+		record.putLong(value.unscaledValue().longValueExact());
+	}
+
+	/**
+	 * Appends the block, first padding to the next segment if the block would
+	 * cross into it, and returns the block's offset.
+	 */
+	private long writeRecord(ByteBuffer block) {
+		int length = block.remaining();
+
+		if (length > ProjectSnapshot.SEGMENT_SIZE) {
+			throw new DbException("A snapshot record of " + length + " bytes is too large.");
+		}
+
+		if (ProjectSnapshot.segment(position) != ProjectSnapshot.segment(position + length - 1)) {
+			pad(ProjectSnapshot.SEGMENT_SIZE - ProjectSnapshot.segmentOffset(position));
+		}
+
+		long offset = position;
+
+		writeBytes(block);
+		return offset;
+	}
+
+	private void writeBytes(ByteBuffer bytes) {
+		while (bytes.hasRemaining()) {
+			if (!out.hasRemaining()) {
+				flush();
+			}
+
+			int count = Math.min(bytes.remaining(), out.remaining());
+			ByteBuffer chunk = bytes.slice(bytes.position(), count);
+
+			out.put(chunk);
+			bytes.position(bytes.position() + count);
+			position += count;
+		}
+	}
+
+	private void pad(long count) {
+		for (long index = 0; index < count; index++) {
+			if (!out.hasRemaining()) {
+				flush();
+			}
+
+			out.put((byte) 0);
+			position++;
+		}
+	}
+
+	private void align(int alignment) {
+		pad((alignment - position % alignment) % alignment);
+	}
+
+	private void flush() {
+		out.flip();
+
+		try {
+			while (out.hasRemaining()) {
+				channel.write(out);
+			}
+		} catch (IOException e) {
+			throw new DbException(e);
+		}
+
+		out.clear();
+	}
+
+	/* Writes the category table, the index and then the header. */
+	private void finish() throws IOException {
+		record.clear();
+
+		while (true) {
+			try {
+				record.putInt(categoryNames.size());
+
+				for (Map.Entry<Integer, String> entry : categoryNames.entrySet()) {
+					record.putInt(entry.getKey());
+					putString(entry.getValue());
+				}
+
+				break;
+			} catch (BufferOverflowException e) {
+				record = ByteBuffer.allocate(record.capacity() * 2);
+			}
+		}
+
+		record.flip();
+		long categoryTableOffset = writeRecord(record);
+
+		/* Aligned entries never straddle a segment boundary. */
+		align(Integer.BYTES);
+		long idsOffset = position;
+		ByteBuffer entry = ByteBuffer.allocate(Long.BYTES);
+
+		for (int index = 0; index < projectCount; index++) {
+			entry.clear();
+			entry.putInt(projectIds[index]).flip();
+			writeBytes(entry);
+		}
+
+		align(Long.BYTES);
+		long offsetsOffset = position;
+
+		for (int index = 0; index < projectCount; index++) {
+			entry.clear();
+			entry.putLong(offsets[index]).flip();
+			writeBytes(entry);
+		}
+
+		flush();
+
+		ByteBuffer header = ByteBuffer.allocate(ProjectSnapshot.HEADER_SIZE);
+
+		header.putInt(ProjectSnapshot.MAGIC);
+		header.putInt(ProjectSnapshot.FORMAT_VERSION);
+		header.putLong(System.currentTimeMillis());
+		header.putInt(projectCount);
+		header.putInt(categoryNames.size());
+		header.putLong(categoryTableOffset);
+		header.putLong(idsOffset);
+		header.putLong(offsetsOffset);
+		header.putLong(position);
+		header.clear();
+
+		while (header.hasRemaining()) {
+			channel.write(header, header.position());
+		}
+
+		channel.force(true);
+	}
+}
@@ -3,19 +3,16 @@
  */
 package provided.util;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.Time;
-import java.sql.Timestamp;
 import java.sql.Types;
-import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -37,6 +34,18 @@ public abstract class DaoBase {
     conn.setAutoCommit(false);
   }
 
+  /**
+   * This starts a read-only transaction. The database may route it to a replica and can skip the
+   * bookkeeping it needs for writes. End it with {@link #commitTransaction(Connection)}.
+   * 
+   * @param conn The connection on which to start the transaction.
+   * @throws SQLException Thrown if an error occurs starting the transaction.
+   */
+  protected void startReadOnlyTransaction(Connection conn) throws SQLException {
+    conn.setReadOnly(true);
+    conn.setAutoCommit(false);
+  }
+
   /**
    * Commit the transaction. This will write all the changes, if any, to the database.
    * 
@@ -166,20 +175,21 @@ public abstract class DaoBase {
   }
 
   /**
-   * This returns the integer primary key value of the last row inserted into the given table. It
+   * This returns the integer primary key value of the last row inserted on this connection. It
    * allows the ID to be inserted into the entity object after inserting it into the table.
    * 
-   * The other way of doing this is to call {@link Statement#getGeneratedKeys()}, but this returns a
-   * result set that needs to be parsed for the ID. It's not really any easier than this approach
-   * but should be closer to database-agnostic.
+   * Prefer {@link #getGeneratedIds(Statement)}, which reads the key from the insert's own response
+   * and so doesn't cost another round trip.
    * 
    * @param conn The connection
-   * @param table The name of the table on which to get the last inserted primary key value
+   * @param table The name of the table on which to get the last inserted primary key value. It is
+   *        not needed by MySQL (LAST_INSERT_ID() is per connection) and is kept for the error
+   *        message.
    * @return The primary key value
    * @throws SQLException Thrown if an error occurs
    */
   protected Integer getLastInsertId(Connection conn, String table) throws SQLException {
-    String sql = String.format("SELECT LAST_INSERT_ID() FROM %s", table);
+    String sql = "SELECT LAST_INSERT_ID()";
 
     try(Statement stmt = conn.createStatement()) {
       try(ResultSet rs = stmt.executeQuery(sql)) {
@@ -187,14 +197,54 @@ public abstract class DaoBase {
           return rs.getInt(1);
         }
 
-        throw new SQLException("Unable to retrieve the primary key value. No result set!");
+        throw new SQLException("Unable to retrieve the primary key value for " + table
+            + ". No result set!");
+      }
+    }
+  }
+
+  /**
+   * This returns the integer primary key values generated by the last execution of the given
+   * statement, in the order the rows were inserted. The statement must have been prepared with
+   * {@link Statement#RETURN_GENERATED_KEYS}. For a batch, there is one key per inserted row.
+   * 
+   * @param stmt The statement that performed the insert
+   * @return The primary key values
+   * @throws SQLException Thrown if an error occurs
+   */
+  protected List<Integer> getGeneratedIds(Statement stmt) throws SQLException {
+    try(ResultSet rs = stmt.getGeneratedKeys()) {
+      List<Integer> ids = new ArrayList<>();
+
+      while(rs.next()) {
+        ids.add(rs.getInt(1));
+      }
+
+      return ids;
+    }
+  }
+
+  /**
+   * This returns the single primary key value generated by the last execution of the given
+   * statement. See {@link #getGeneratedIds(Statement)}.
+   * 
+   * @param stmt The statement that performed the insert
+   * @return The primary key value
+   * @throws SQLException Thrown if no key was generated
+   */
+  protected Integer getGeneratedId(Statement stmt) throws SQLException {
+    try(ResultSet rs = stmt.getGeneratedKeys()) {
+      if(rs.next()) {
+        return rs.getInt(1);
       }
+
+      throw new SQLException("Unable to retrieve the primary key value. No generated keys!");
     }
   }
 
   /**
    * This extracts an object of the given type from a result set. The object must have a
-   * zero-argument constructor. It builds an object from a result set using reflection as follows:
+   * zero-argument constructor. It builds an object from a result set as follows:
    * <ol>
    * <li>The zero-argument constructor is obtained.</li>
    * <li>An object of the given class type is created.</li>
@@ -205,6 +255,10 @@ public abstract class DaoBase {
    * <li>The value is assigned to the field in the object.</li>
    * </ol>
    * 
+   * The steps that don't depend on the row are done once per class and result set shape by a
+   * cached {@link RowMapper}. When extracting many rows, call {@link #rowMapper(ResultSet, Class)}
+   * or {@link #extractAll(ResultSet, Class)} instead so that the mapper is only looked up once.
+   * 
    * Example: if a query returns values for a recipe, a Recipe object is returned. So:
    * 
    * <pre>
@@ -231,68 +285,54 @@ public abstract class DaoBase {
    * @return A populated class.
    */
   protected <T> T extract(ResultSet rs, Class<T> classType) {
-    try {
-      /* Obtain the constructor and create an object of the correct type. */
-      Constructor<T> con = classType.getConstructor();
-      T obj = con.newInstance();
-
-      /* Get the list of fields and loop through them. */
-      for(Field field : classType.getDeclaredFields()) {
-        String colName = camelCaseToSnakeCase(field.getName());
-        Class<?> fieldType = field.getType();
-
-        /*
-         * Set the field accessible flag which means that we can populate even private fields
-         * without using the setter.
-         */
-        field.setAccessible(true);
-        Object fieldValue = null;
-
-        try {
-          fieldValue = rs.getObject(colName);
-        }
-        catch(SQLException e) {
-          /*
-           * An exception caught here means that the field name isn't in the result set. Don't take
-           * any action.
-           */
-        }
-
-        /*
-         * Only set the value in the object if there is a value with the same name in the result
-         * set. This will preserve instance variables (like lists) that are assigned values when the
-         * object is created.
-         */
-        if(Objects.nonNull(fieldValue)) {
-          /*
-           * Convert the following types: Time -> LocalTime, and Timestamp -> LocalDateTime.
-           */
-          if(fieldValue instanceof Time && fieldType.equals(LocalTime.class)) {
-            fieldValue = ((Time)fieldValue).toLocalTime();
-          }
-          else if(fieldValue instanceof Timestamp && fieldType.equals(LocalDateTime.class)) {
-            fieldValue = ((Timestamp)fieldValue).toLocalDateTime();
-          }
-
-          field.set(obj, fieldValue);
-        }
-      }
-
-      return obj;
+    return rowMapper(rs, classType).map(rs);
+  }
 
+  /**
+   * Returns the cached row mapper for the given class and the columns of the given result set.
+   * 
+   * @param <T> The type of object to create.
+   * @param rs The result set.
+   * @param classType The class type of the object to create.
+   * @return The row mapper.
+   */
+  protected <T> RowMapper<T> rowMapper(ResultSet rs, Class<T> classType) {
+    try {
+      return RowMapper.forResultSet(rs, classType);
     }
-    catch(Exception e) {
+    catch(SQLException e) {
       throw new DaoException("Unable to create object of type " + classType.getName(), e);
     }
   }
 
+  /**
+   * This extracts all remaining rows of the result set into a list of objects of the given type.
+   * See {@link #extract(ResultSet, Class)} for how the objects are populated.
+   * 
+   * @param <T> The type of object to create.
+   * @param rs The result set, positioned before the first row to extract.
+   * @param classType The class type of the object to create.
+   * @return The list of populated objects.
+   * @throws SQLException Thrown if an error occurs reading the result set.
+   */
+  protected <T> List<T> extractAll(ResultSet rs, Class<T> classType) throws SQLException {
+    RowMapper<T> mapper = rowMapper(rs, classType);
+    List<T> list = new ArrayList<>();
+
+    while(rs.next()) {
+      list.add(mapper.map(rs));
+    }
+
+    return list;
+  }
+
   /**
    * This converts a camel case value (rowInsertTime) to snake case (row_insert_time).
    * 
    * @param identifier The name in camel case to convert.
    * @return The name converted to snake case.
    */
-  private String camelCaseToSnakeCase(String identifier) {
+  static String camelCaseToSnakeCase(String identifier) {
     StringBuilder nameBuilder = new StringBuilder();
 
     for(char ch : identifier.toCharArray()) {
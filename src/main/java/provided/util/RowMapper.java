@@ -0,0 +1,181 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import provided.util.DaoBase.DaoException;
+
+/**
+ * This class maps rows of a result set to objects of a given class. It does the same job as
+ * {@link DaoBase#extract(ResultSet, Class)} used to do with reflection on every row, but all of the
+ * lookups are done once:
+ * <ol>
+ * <li>The fields of the class are matched to result set columns by converting the field name from
+ * camel case to snake case. Fields without a matching column are dropped from the mapper, so no
+ * exception is thrown (or caught) for them while mapping.</li>
+ * <li>The zero-argument constructor and a setter method handle for each matched field are looked
+ * up.</li>
+ * <li>The column index of each matched field is resolved.</li>
+ * </ol>
+ *
+ * Mappers are cached by class and by the shape of the result set (the list of column labels), so a
+ * given query only builds its mapper the first time it runs.
+ *
+ * @param <T> The type of object created for each row.
+ */
+public class RowMapper<T> {
+  private static final ClassValue<Map<String, RowMapper<?>>> CACHE = new ClassValue<>() {
+    @Override
+    protected Map<String, RowMapper<?>> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+
+  private final Class<T> classType;
+  private final MethodHandle constructor;
+  private final int[] columnIndexes;
+  private final MethodHandle[] setters;
+  private final Class<?>[] fieldTypes;
+
+  private RowMapper(Class<T> classType, MethodHandle constructor, int[] columnIndexes,
+      MethodHandle[] setters, Class<?>[] fieldTypes) {
+    this.classType = classType;
+    this.constructor = constructor;
+    this.columnIndexes = columnIndexes;
+    this.setters = setters;
+    this.fieldTypes = fieldTypes;
+  }
+
+  /**
+   * Returns the mapper for the given class and the columns of the given result set, building and
+   * caching it if this is the first time the shape has been seen.
+   *
+   * @param <T> The type of object to create.
+   * @param rs The result set. Only the metadata is read.
+   * @param classType The class of object to create.
+   * @return The mapper.
+   * @throws SQLException Thrown if the result set metadata cannot be read.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> RowMapper<T> forResultSet(ResultSet rs, Class<T> classType)
+      throws SQLException {
+    ResultSetMetaData meta = rs.getMetaData();
+    String[] labels = new String[meta.getColumnCount()];
+    StringBuilder shape = new StringBuilder();
+
+    for(int index = 0; index < labels.length; index++) {
+      labels[index] = meta.getColumnLabel(index + 1).toLowerCase(Locale.ROOT);
+      shape.append(labels[index]).append(',');
+    }
+
+    Map<String, RowMapper<?>> mappers = CACHE.get(classType);
+    return (RowMapper<T>)mappers.computeIfAbsent(shape.toString(),
+        key -> build(classType, labels));
+  }
+
+  /**
+   * Creates an object from the current row of the result set. The result set must be positioned on
+   * the correct row by the caller, and must have the same columns as the result set that was used
+   * to obtain this mapper.
+   *
+   * @param rs The result set.
+   * @return The populated object.
+   */
+  public T map(ResultSet rs) {
+    try {
+      Object obj = constructor.invokeExact();
+
+      for(int index = 0; index < setters.length; index++) {
+        Object fieldValue = rs.getObject(columnIndexes[index]);
+
+        /*
+         * Only set the value if it is not null. This preserves instance variables that are assigned
+         * values when the object is created.
+         */
+        if(Objects.nonNull(fieldValue)) {
+          setters[index].invokeExact(obj, convert(fieldValue, fieldTypes[index]));
+        }
+      }
+
+      return classType.cast(obj);
+    }
+    catch(Throwable e) {
+      throw new DaoException("Unable to create object of type " + classType.getName(), e);
+    }
+  }
+
+  /**
+   * Convert the following types: Time -> LocalTime, and Timestamp -> LocalDateTime.
+   */
+  private static Object convert(Object fieldValue, Class<?> fieldType) {
+    if(fieldValue instanceof Time && fieldType.equals(LocalTime.class)) {
+      return ((Time)fieldValue).toLocalTime();
+    }
+
+    if(fieldValue instanceof Timestamp && fieldType.equals(LocalDateTime.class)) {
+      return ((Timestamp)fieldValue).toLocalDateTime();
+    }
+
+    return fieldValue;
+  }
+
+  private static <T> RowMapper<T> build(Class<T> classType, String[] labels) {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(classType, MethodHandles.lookup());
+      MethodHandle constructor = lookup.findConstructor(classType, MethodType.methodType(void.class))
+          .asType(MethodType.methodType(Object.class));
+
+      /* The first column with a given label wins, the same as ResultSet.findColumn(). */
+      Map<String, Integer> columns = new HashMap<>();
+
+      for(int index = labels.length - 1; index >= 0; index--) {
+        columns.put(labels[index], index + 1);
+      }
+
+      List<Integer> columnIndexes = new ArrayList<>();
+      List<MethodHandle> setters = new ArrayList<>();
+      List<Class<?>> fieldTypes = new ArrayList<>();
+
+      for(Field field : classType.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        Integer column = columns.get(DaoBase.camelCaseToSnakeCase(field.getName()));
+
+        if(Objects.isNull(column) || Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)) {
+          continue;
+        }
+
+        columnIndexes.add(column);
+        setters.add(lookup.unreflectSetter(field)
+            .asType(MethodType.methodType(void.class, Object.class, Object.class)));
+        fieldTypes.add(field.getType());
+      }
+
+      return new RowMapper<>(classType, constructor,
+          columnIndexes.stream().mapToInt(Integer::intValue).toArray(),
+          setters.toArray(new MethodHandle[0]), fieldTypes.toArray(new Class<?>[0]));
+    }
+    catch(ReflectiveOperationException e) {
+      throw new DaoException("Unable to build a row mapper for type " + classType.getName(), e);
+    }
+  }
+}
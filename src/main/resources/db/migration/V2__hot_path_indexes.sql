@@ -0,0 +1,23 @@
+-- Steps are always read for one project in step_order.
+CREATE INDEX step_project_order ON step (project_id, step_order);
+
+-- fetchAllProjects sorts by name, and fetchProjectPage seeks on (name, id).
+CREATE INDEX project_name_id ON project (project_name, project_id);
+
+-- Category names become unique. Duplicates are merged into the lowest ID
+-- first: links are copied to the surviving category, and deleting the other
+-- categories cascades to their old links.
+INSERT IGNORE INTO project_category (project_id, category_id)
+	SELECT pc.project_id, keep.category_id
+	FROM project_category pc
+	JOIN category c USING (category_id)
+	JOIN (SELECT category_name, MIN(category_id) AS category_id FROM category GROUP BY category_name) keep
+		ON keep.category_name = c.category_name
+	WHERE c.category_id <> keep.category_id;
+
+DELETE FROM category
+	WHERE category_name IS NOT NULL
+	AND category_id NOT IN (
+		SELECT keep_id FROM (SELECT MIN(category_id) AS keep_id FROM category GROUP BY category_name) keep);
+
+CREATE UNIQUE INDEX category_name_unique ON category (category_name);
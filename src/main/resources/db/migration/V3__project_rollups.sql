@@ -0,0 +1,38 @@
+-- Summary rows kept up to date by ProjectDao in the same transaction as each
+-- change, so cost and hours statistics never rescan material or step rows.
+-- ProjectService.rebuildRollups() recomputes both tables from scratch.
+
+CREATE TABLE project_rollup (
+	project_id INT NOT NULL,
+	material_count INT NOT NULL DEFAULT 0,
+	material_cost DECIMAL(15,2) NOT NULL DEFAULT 0,
+	estimated_hours DECIMAL(7,2),
+	actual_hours DECIMAL(7,2),
+	PRIMARY KEY (project_id),
+	FOREIGN KEY (project_id) REFERENCES project (project_id) ON DELETE CASCADE
+);
+
+-- hours_variance sums actual - estimated over the projects that have both.
+CREATE TABLE category_rollup (
+	category_id INT NOT NULL,
+	project_count BIGINT NOT NULL DEFAULT 0,
+	material_cost DECIMAL(17,2) NOT NULL DEFAULT 0,
+	estimated_hours DECIMAL(13,2) NOT NULL DEFAULT 0,
+	actual_hours DECIMAL(13,2) NOT NULL DEFAULT 0,
+	hours_variance DECIMAL(13,2) NOT NULL DEFAULT 0,
+	PRIMARY KEY (category_id),
+	FOREIGN KEY (category_id) REFERENCES category (category_id) ON DELETE CASCADE
+);
+
+INSERT INTO project_rollup (project_id, material_count, material_cost, estimated_hours, actual_hours)
+SELECT p.project_id, COUNT(m.material_id), COALESCE(SUM(m.num_required * m.cost), 0), p.estimated_hours, p.actual_hours
+FROM project p
+LEFT JOIN material m ON m.project_id = p.project_id
+GROUP BY p.project_id, p.estimated_hours, p.actual_hours;
+
+INSERT INTO category_rollup (category_id, project_count, material_cost, estimated_hours, actual_hours, hours_variance)
+SELECT pc.category_id, COUNT(*), SUM(r.material_cost), COALESCE(SUM(r.estimated_hours), 0),
+	COALESCE(SUM(r.actual_hours), 0), COALESCE(SUM(r.actual_hours - r.estimated_hours), 0)
+FROM project_category pc
+JOIN project_rollup r ON r.project_id = pc.project_id
+GROUP BY pc.category_id;
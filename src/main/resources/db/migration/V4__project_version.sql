@@ -0,0 +1,5 @@
+-- Row version for optimistic concurrency. Every update of a project's details
+-- increments it, and a conditional update only succeeds if the version is the
+-- one the caller read.
+
+ALTER TABLE project ADD COLUMN version INT NOT NULL DEFAULT 0;